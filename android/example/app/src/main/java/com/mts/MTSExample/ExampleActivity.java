@@ -36,7 +36,10 @@ import android.widget.TextView;
 
 import com.karlotoy.perfectune.instance.PerfectTune;
 import com.mts.mts.MTSBeacon;
-import com.mts.mts.MTSBeaconEvent;
+import com.mts.mts.MTSBeaconBooleanEvent;
+import com.mts.mts.MTSBeaconByteEvent;
+import com.mts.mts.MTSBeaconIntEvent;
+import com.mts.mts.MTSBeaconStringEvent;
 import com.mts.mts.MTSBluetoothConnectionEvent;
 import com.mts.mts.MTSBluetoothDiscoveryStateEvent;
 import com.mts.mts.MTSService;
@@ -125,7 +128,7 @@ public class ExampleActivity extends AppCompatActivity implements ActivityCompat
         bindService(serviceIntent , serviceConnection, BIND_AUTO_CREATE);
         registerReceiver(mtsServiceUpdateReceiver, mtsServiceUpdateIntentFilter());
         if (null != mtsService) {
-            mtsService.detectedBeacons.clear();
+            mtsService.clearDetectedBeacons();
             updateInterface();
         }
         showLocationEnableRequestIfNeeded();
@@ -182,8 +185,8 @@ public class ExampleActivity extends AppCompatActivity implements ActivityCompat
             System.out.println("pruneAssignedBeaconsIfNeeded called while null == mtsService");
             return;
         }
-        if (0 == mtsService.connectedMTSBeacons.size()) {
-            System.out.println("pruneAssignedBeaconsIfNeeded 0 == mtsService.connectedMTSBeacons.size(), clearing beacons...");
+        if (0 == mtsService.connectedMTSBeacons().size()) {
+            System.out.println("pruneAssignedBeaconsIfNeeded 0 == mtsService.connectedMTSBeacons().size(), clearing beacons...");
             mtsBeacon1 = null;
             mtsBeacon2 = null;
         } else {
@@ -709,22 +712,10 @@ public class ExampleActivity extends AppCompatActivity implements ActivityCompat
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onMessage(MTSBeaconEvent event) {
+    public void onMessage(MTSBeaconStringEvent event) {
 
         if (event.eventType.equals(MTSService.MTSEventType.didReceiveTerminalKind)) {
-            String terminalKind = (String) event.value;
-            terminalKindTextView.setText(terminalKind);
-        }
-        else if (event.eventType.equals(MTSService.MTSEventType.updateOnConnectedRSSIReceipt)) {
-            String connectedRSSIValue = (String) event.value;
-            if (event.mtsBeacon.equals(mtsBeacon1)) {
-                connectedRSSITextView1.setText(connectedRSSIValue);
-            }
-            else if (event.mtsBeacon.equals(mtsBeacon2)) {
-                connectedRSSITextView2.setText(connectedRSSIValue);
-            } else {
-                Log.v(TAG, "onMessage RSSI event arrived for an unassigned mtsBeacon.");
-            }
+            terminalKindTextView.setText(event.stringValue);
         }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveCardData)) {
             if (event.mtsBeacon == mtsBeacon1) {
@@ -734,48 +725,72 @@ public class ExampleActivity extends AppCompatActivity implements ActivityCompat
                 Log.v(TAG, "DidReceiveCardData");
             }
         }
-        else if (event.eventType.equals(MTSService.MTSEventType.didWriteCardDataToBluetooth)) {
-            Boolean success = (Boolean) event.value;
-            if (success) {
-                Log.v(TAG, "DidWriteCardDataToBluetooth");
-                Date now = new Date();
-                String formattedDate = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").format(now);
-                lastWriteAtTextView.setText("Last write at: " + formattedDate);
-                mtsService.requestCardData(event.mtsBeacon);
-            } else {
-                Log.v(TAG, "Failed to write cardData to Bluetooth.");
-                lastWriteAtTextView.setText("Failed to write cardData via BLE.");
-            }
-        }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveSasSerialNumber)) {
             if (null != mtsBeacon1) {
-                sasSerialNumberTextView.setText(event.value.toString());
+                sasSerialNumberTextView.setText(event.stringValue);
             }
         }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveLocation)) {
             if (null != mtsBeacon1) {
-                locationTextView.setText(event.value.toString());
+                locationTextView.setText(event.stringValue);
+            }
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onMessage(MTSBeaconIntEvent event) {
+
+        if (event.eventType.equals(MTSService.MTSEventType.updateOnConnectedRSSIReceipt)) {
+            String connectedRSSIValue = String.valueOf(event.intValue);
+            if (event.mtsBeacon.equals(mtsBeacon1)) {
+                connectedRSSITextView1.setText(connectedRSSIValue);
+            }
+            else if (event.mtsBeacon.equals(mtsBeacon2)) {
+                connectedRSSITextView2.setText(connectedRSSIValue);
+            } else {
+                Log.v(TAG, "onMessage RSSI event arrived for an unassigned mtsBeacon.");
             }
         }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveAssetNumber)) {
             if (null != mtsBeacon1) {
-                assetNumberTextView.setText(event.value.toString());
+                assetNumberTextView.setText(String.valueOf(event.intValue));
             }
         }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveDenomination)) {
             if (null != mtsBeacon1) {
-                denominationTextView.setText(event.value.toString());
+                denominationTextView.setText(String.valueOf(event.intValue));
+            }
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onMessage(MTSBeaconBooleanEvent event) {
+
+        if (event.eventType.equals(MTSService.MTSEventType.didWriteCardDataToBluetooth)) {
+            if (event.booleanValue) {
+                Log.v(TAG, "DidWriteCardDataToBluetooth");
+                Date now = new Date();
+                String formattedDate = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").format(now);
+                lastWriteAtTextView.setText("Last write at: " + formattedDate);
+                mtsService.requestCardData(event.mtsBeacon);
+            } else {
+                Log.v(TAG, "Failed to write cardData to Bluetooth.");
+                lastWriteAtTextView.setText("Failed to write cardData via BLE.");
             }
         }
         else if (event.eventType.equals(MTSService.MTSEventType.didReceiveGmiLinkActive)) {
             if (null != mtsBeacon1) {
-                gmiLinkActiveTextView.setText(event.value.toString());
+                gmiLinkActiveTextView.setText(String.valueOf(event.booleanValue));
             }
         }
-        else if (event.eventType.equals(MTSService.MTSEventType.didReceiveTxAttenuationLevel)) {
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onMessage(MTSBeaconByteEvent event) {
+
+        if (event.eventType.equals(MTSService.MTSEventType.didReceiveTxAttenuationLevel)) {
             if (null != mtsBeacon1) {
-                byte b = (byte) event.value;
-                int position = b &255;
+                int position = event.byteValue &255;
                 System.out.println("Example didReceiveTxAttenuationLevel position: " + position);
             }
         }
@@ -0,0 +1,129 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.mts.mts.BluetoothBytesParser.FORMAT_FLOAT;
+import static com.mts.mts.BluetoothBytesParser.FORMAT_SFLOAT;
+import static com.mts.mts.BluetoothBytesParser.FORMAT_UINT16;
+import static com.mts.mts.BluetoothBytesParser.FORMAT_UINT32;
+import static com.mts.mts.BluetoothBytesParser.FORMAT_UINT8;
+
+/// Decoding a characteristic value through the boxed getIntValue(...) / getFloatValue(...) calls against the
+/// primitive and bulk accessors, string decoding, and building a value with and without a reused buffer.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class BluetoothBytesParserBenchmark {
+
+    // uint8, uint16, uint32, SFLOAT, FLOAT: 15 bytes.
+    private final byte[] record = {0x01, 0x34, 0x12, 0x78, 0x56, 0x34, 0x12, 0x72, (byte) 0xF0, 0x40, 0x0F, 0x00, (byte) 0xFE, 0, 0};
+    // utf8s[41] as sent for the SAS serial number.
+    private final byte[] utf8s = new byte[41];
+    private final StringBuilder stringBuilder = new StringBuilder(64);
+    private final BluetoothBytesParser parser = new BluetoothBytesParser(ByteOrder.LITTLE_ENDIAN);
+    private final BluetoothBytesParser writer = new BluetoothBytesParser(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] writeBuffer = new byte[64];
+    // 32 SFLOAT measurements, as streamed by a sensor style characteristic.
+    private final byte[] sfloats = new byte[64];
+    private final float[] measurements = new float[32];
+
+    @Setup
+    public void setup() {
+        byte[] serialNumber = "SAS-0012345678".getBytes();
+        Arrays.fill(utf8s, (byte) 0);
+        System.arraycopy(serialNumber, 0, utf8s, 0, serialNumber.length);
+        for (int i = 0; i < measurements.length; i++) {
+            sfloats[2 * i] = (byte) (i * 7);
+            sfloats[2 * i + 1] = (byte) 0xF0; // Exponent -1.
+        }
+    }
+
+    @Benchmark
+    public void decodeBoxed(Blackhole blackhole) {
+        BluetoothBytesParser parser = new BluetoothBytesParser(record);
+        blackhole.consume(parser.getIntValue(FORMAT_UINT8));
+        blackhole.consume(parser.getIntValue(FORMAT_UINT16));
+        blackhole.consume(parser.getIntValue(FORMAT_UINT32));
+        blackhole.consume(parser.getFloatValue(FORMAT_SFLOAT));
+        blackhole.consume(parser.getFloatValue(FORMAT_FLOAT));
+    }
+
+    @Benchmark
+    public void decodePrimitive(Blackhole blackhole) {
+        parser.setValue(record, 0, record.length);
+        blackhole.consume(parser.getUInt8());
+        blackhole.consume(parser.getUInt16());
+        blackhole.consume(parser.getUInt32());
+        blackhole.consume(parser.getSFloat());
+        blackhole.consume(parser.getFloat());
+    }
+
+    @Benchmark
+    public float decodeSFloatsBoxed() {
+        BluetoothBytesParser parser = new BluetoothBytesParser(sfloats);
+        float sum = 0;
+        for (int i = 0; i < measurements.length; i++) {
+            sum += parser.getFloatValue(FORMAT_SFLOAT);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float[] decodeSFloatsBulk() {
+        parser.setValue(sfloats, 0, sfloats.length);
+        parser.getSFloats(measurements, 0, measurements.length);
+        return measurements;
+    }
+
+    @Benchmark
+    public String decodeStringValue() {
+        return new BluetoothBytesParser(utf8s).getStringValue(0);
+    }
+
+    @Benchmark
+    public String decodeUtf8String() {
+        parser.setValue(utf8s, 0, utf8s.length);
+        return parser.getUtf8String(utf8s.length);
+    }
+
+    @Benchmark
+    public int decodeUtf8StringInto() {
+        stringBuilder.setLength(0);
+        parser.setValue(utf8s, 0, utf8s.length);
+        return parser.getUtf8String(utf8s.length, stringBuilder);
+    }
+
+    @Benchmark
+    public byte[] encodeGrowing() {
+        BluetoothBytesParser parser = new BluetoothBytesParser();
+        parser.setIntValue(0x01, FORMAT_UINT8);
+        parser.setIntValue(0x1234, FORMAT_UINT16);
+        parser.setIntValue(0x12345678, FORMAT_UINT32);
+        parser.setString("SAS-0012345678");
+        return parser.getValue();
+    }
+
+    @Benchmark
+    public int encodeReused() {
+        writer.reset(writeBuffer);
+        writer.setIntValue(0x01, FORMAT_UINT8);
+        writer.setIntValue(0x1234, FORMAT_UINT16);
+        writer.setIntValue(0x12345678, FORMAT_UINT32);
+        writer.setString("SAS-0012345678");
+        return writer.getLength();
+    }
+}
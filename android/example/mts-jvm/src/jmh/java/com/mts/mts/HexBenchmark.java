@@ -0,0 +1,67 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/// The hex formatting used for logging and for MTSBeacon.mtsIdentifier, at the sizes seen in practice: an
+/// identifier, a 20 byte notification and a full card data write.  The deprecated copies now delegate to MTSHex,
+/// bytes2String is kept as it formats lower case.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HexBenchmark {
+
+    @Param({"6", "20", "196"})
+    public int length;
+
+    private byte[] bytes;
+    private char[] chars;
+    private final StringBuilder stringBuilder = new StringBuilder(512);
+    private String hex;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        chars = new char[length * 2];
+        hex = MTSHex.toHex(bytes);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return MTSHex.toHex(bytes);
+    }
+
+    @Benchmark
+    public int appendTo() {
+        stringBuilder.setLength(0);
+        return MTSHex.appendTo(stringBuilder, bytes).length();
+    }
+
+    @Benchmark
+    public int write() {
+        return MTSHex.write(bytes, 0, bytes.length, chars, 0, true);
+    }
+
+    @Benchmark
+    public byte[] fromHex() {
+        return MTSHex.fromHex(hex);
+    }
+
+    @Benchmark
+    public String parserBytes2String() {
+        return BluetoothBytesParser.bytes2String(bytes);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/// Per advertisement work in MTSBeacon: creating a beacon for a first discovery and updating one on rediscovery.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MTSBeaconBenchmark {
+
+    // Advertisement from the comment in the MTSBeacon constructor.
+    static final String kScanRecordHex = "0201060B09475420436F6E6E65637409FFFFFF00A050DD6929"
+            + "00000000000000000000000000000000000000000000000000000000000000000000000000";
+
+    private ScanResult scanResult;
+    private MTSBeacon beacon;
+
+    static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    static ScanResult scanResult(String address, int rssi) {
+        ScanRecord scanRecord = ScanRecord.parseFromBytes(hexToBytes(kScanRecordHex));
+        return new ScanResult(new BluetoothDevice(address, "GT Connect"), scanRecord, rssi, 0);
+    }
+
+    @Setup
+    public void setup() {
+        scanResult = scanResult("00:A0:50:DD:69:29", -60);
+        beacon = new MTSBeacon(null, scanResult, null);
+    }
+
+    @Benchmark
+    public MTSBeacon discover() {
+        return new MTSBeacon(null, scanResult, null);
+    }
+
+    @Benchmark
+    public int rediscover() {
+        beacon.updateOnDiscovery(scanResult);
+        return beacon.filteredRSSI;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.le.ScanResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/// Beacon ingestion in MTSService with beaconCount beacons in range, each call rediscovering the next one with a
+/// changed RSSI so the sort has work to do, and the card data encode used by writeCardDataToBluetooth(...).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MTSServiceBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int beaconCount;
+
+    private MTSService service;
+    private ScanResult[][] scanResults;
+    private int next = 0;
+    private final byte[] cardDataBuffer = new byte[256];
+    private final String cardData = "%B4111111111111111^TEST/CARD^2512101000000000000000000000000?;4111111111111111=25121010000000000000?";
+
+    @Setup
+    public void setup() {
+        service = new MTSService();
+        service.setEventBusEnabled(false);
+        scanResults = new ScanResult[beaconCount][2];
+        for (int i = 0; i < beaconCount; i++) {
+            String address = String.format("00:A0:50:00:%02X:%02X", i >> 8, i & 0xFF);
+            scanResults[i][0] = MTSBeaconBenchmark.scanResult(address, -40 - i);
+            scanResults[i][1] = MTSBeaconBenchmark.scanResult(address, -90 + i);
+            service.addOrUpdateBeacon(new MTSBeacon(null, scanResults[i][0], service), scanResults[i][0]);
+        }
+    }
+
+    @Benchmark
+    public int addOrUpdateBeacon() {
+        int index = next++ % beaconCount;
+        ScanResult scanResult = scanResults[index][(next / beaconCount) & 1];
+        service.addOrUpdateBeacon(new MTSBeacon(null, scanResult, service), scanResult);
+        return service.detectedBeacons().size();
+    }
+
+    @Benchmark
+    public int validatedCardData() {
+        return service.validatedCardData(cardData, cardDataBuffer);
+    }
+}
@@ -0,0 +1,11 @@
+package android;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public final class Manifest {
+    public static final class permission {
+        public static final String ACCESS_COARSE_LOCATION = "android.permission.ACCESS_COARSE_LOCATION";
+        public static final String ACCESS_FINE_LOCATION = "android.permission.ACCESS_FINE_LOCATION";
+    }
+}
@@ -0,0 +1,28 @@
+package android.app;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.os.IBinder;
+
+public abstract class Service extends ContextWrapper {
+    public static final int START_NOT_STICKY = 2;
+
+    public void onCreate() {
+    }
+
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_NOT_STICKY;
+    }
+
+    public abstract IBinder onBind(Intent intent);
+
+    public boolean onUnbind(Intent intent) {
+        return false;
+    }
+
+    public void onDestroy() {
+    }
+}
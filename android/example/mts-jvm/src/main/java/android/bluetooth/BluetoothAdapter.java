@@ -0,0 +1,62 @@
+package android.bluetooth;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.bluetooth.le.BluetoothLeScanner;
+
+import java.util.Collections;
+import java.util.Set;
+
+/// Reports STATE_OFF and has no scanner, the JVM build never reaches the radio.
+public final class BluetoothAdapter {
+    public static final int ERROR = Integer.MIN_VALUE;
+    public static final int STATE_OFF = 10;
+    public static final int STATE_TURNING_ON = 11;
+    public static final int STATE_ON = 12;
+    public static final int STATE_TURNING_OFF = 13;
+    public static final String ACTION_STATE_CHANGED = "android.bluetooth.adapter.action.STATE_CHANGED";
+    public static final String EXTRA_STATE = "android.bluetooth.adapter.extra.STATE";
+
+    private static final BluetoothAdapter defaultAdapter = new BluetoothAdapter();
+
+    public static BluetoothAdapter getDefaultAdapter() {
+        return defaultAdapter;
+    }
+
+    public static boolean checkBluetoothAddress(String address) {
+        return null != address && address.matches("([0-9A-F]{2}:){5}[0-9A-F]{2}");
+    }
+
+    public int getState() {
+        return STATE_OFF;
+    }
+
+    public boolean isEnabled() {
+        return false;
+    }
+
+    public BluetoothLeScanner getBluetoothLeScanner() {
+        return null;
+    }
+
+    public BluetoothDevice getRemoteDevice(String address) {
+        return new BluetoothDevice(address, null);
+    }
+
+    public Set<BluetoothDevice> getBondedDevices() {
+        return Collections.emptySet();
+    }
+
+    public boolean startDiscovery() {
+        return false;
+    }
+
+    public boolean cancelDiscovery() {
+        return false;
+    }
+
+    public boolean isLe2MPhySupported() {
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package android.bluetooth;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.content.Context;
+
+public class BluetoothDevice {
+    public static final int ERROR = Integer.MIN_VALUE;
+    public static final int DEVICE_TYPE_UNKNOWN = 0;
+    public static final int DEVICE_TYPE_LE = 2;
+    public static final int DEVICE_TYPE_DUAL = 3;
+    public static final int TRANSPORT_LE = 2;
+    public static final int PHY_LE_1M_MASK = 1;
+    public static final int PHY_LE_2M_MASK = 2;
+    public static final int PHY_OPTION_NO_PREFERRED = 0;
+    public static final int BOND_NONE = 10;
+    public static final String ACTION_BOND_STATE_CHANGED = "android.bluetooth.device.action.BOND_STATE_CHANGED";
+    public static final String ACTION_PAIRING_REQUEST = "android.bluetooth.device.action.PAIRING_REQUEST";
+    public static final String EXTRA_DEVICE = "android.bluetooth.device.extra.DEVICE";
+    public static final String EXTRA_BOND_STATE = "android.bluetooth.device.extra.BOND_STATE";
+    public static final String EXTRA_PREVIOUS_BOND_STATE = "android.bluetooth.device.extra.PREVIOUS_BOND_STATE";
+    public static final String EXTRA_PAIRING_VARIANT = "android.bluetooth.device.extra.PAIRING_VARIANT";
+
+    private final String address;
+    private final String name;
+
+    /// Hidden on Android, public here so benchmarks and simulators can create devices.
+    public BluetoothDevice(String address, String name) {
+        this.address = address;
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getType() {
+        return DEVICE_TYPE_LE;
+    }
+
+    public int getBondState() {
+        return BOND_NONE;
+    }
+
+    public boolean createBond() {
+        return false;
+    }
+
+    public boolean setPin(byte[] pin) {
+        return false;
+    }
+
+    public BluetoothGatt connectGatt(Context context, boolean autoConnect, BluetoothGattCallback callback) {
+        return null;
+    }
+
+    public BluetoothGatt connectGatt(Context context, boolean autoConnect, BluetoothGattCallback callback, int transport) {
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BluetoothDevice && address.equals(((BluetoothDevice) o).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
@@ -0,0 +1,79 @@
+package android.bluetooth;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class BluetoothGatt {
+    public static final int GATT_SUCCESS = 0;
+    public static final int CONNECTION_PRIORITY_BALANCED = 0;
+    public static final int CONNECTION_PRIORITY_HIGH = 1;
+    public static final int CONNECTION_PRIORITY_LOW_POWER = 2;
+
+    public BluetoothDevice getDevice() {
+        return null;
+    }
+
+    public boolean connect() {
+        return false;
+    }
+
+    public void disconnect() {
+    }
+
+    public void close() {
+    }
+
+    public boolean discoverServices() {
+        return false;
+    }
+
+    public List<BluetoothGattService> getServices() {
+        return Collections.emptyList();
+    }
+
+    public BluetoothGattService getService(UUID uuid) {
+        return null;
+    }
+
+    public boolean readCharacteristic(BluetoothGattCharacteristic characteristic) {
+        return false;
+    }
+
+    public boolean writeCharacteristic(BluetoothGattCharacteristic characteristic) {
+        return false;
+    }
+
+    public boolean readDescriptor(BluetoothGattDescriptor descriptor) {
+        return false;
+    }
+
+    public boolean writeDescriptor(BluetoothGattDescriptor descriptor) {
+        return false;
+    }
+
+    public boolean setCharacteristicNotification(BluetoothGattCharacteristic characteristic, boolean enable) {
+        return false;
+    }
+
+    public boolean readRemoteRssi() {
+        return false;
+    }
+
+    public boolean requestMtu(int mtu) {
+        return false;
+    }
+
+    public boolean requestConnectionPriority(int connectionPriority) {
+        return false;
+    }
+
+    public void setPreferredPhy(int txPhy, int rxPhy, int phyOptions) {
+    }
+
+    public void readPhy() {
+    }
+}
@@ -0,0 +1,82 @@
+package android.bluetooth;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BluetoothGattCharacteristic {
+    public static final int PROPERTY_READ = 0x02;
+    public static final int PROPERTY_WRITE_NO_RESPONSE = 0x04;
+    public static final int PROPERTY_WRITE = 0x08;
+    public static final int PROPERTY_NOTIFY = 0x10;
+    public static final int PROPERTY_INDICATE = 0x20;
+    public static final int PROPERTY_SIGNED_WRITE = 0x40;
+    public static final int PERMISSION_READ = 0x01;
+    public static final int PERMISSION_WRITE = 0x10;
+    public static final int WRITE_TYPE_NO_RESPONSE = 0x01;
+    public static final int WRITE_TYPE_DEFAULT = 0x02;
+    public static final int WRITE_TYPE_SIGNED = 0x04;
+
+    private final UUID uuid;
+    private final int properties;
+    private final List<BluetoothGattDescriptor> descriptors = new ArrayList<BluetoothGattDescriptor>();
+    private BluetoothGattService service;
+    private byte[] value;
+    private int writeType = WRITE_TYPE_DEFAULT;
+
+    public BluetoothGattCharacteristic(UUID uuid, int properties, int permissions) {
+        this.uuid = uuid;
+        this.properties = properties;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public int getProperties() {
+        return properties;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+
+    public boolean setValue(byte[] value) {
+        this.value = value;
+        return true;
+    }
+
+    public int getWriteType() {
+        return writeType;
+    }
+
+    public void setWriteType(int writeType) {
+        this.writeType = writeType;
+    }
+
+    public BluetoothGattService getService() {
+        return service;
+    }
+
+    void setService(BluetoothGattService service) {
+        this.service = service;
+    }
+
+    public boolean addDescriptor(BluetoothGattDescriptor descriptor) {
+        descriptors.add(descriptor);
+        descriptor.setCharacteristic(this);
+        return true;
+    }
+
+    public BluetoothGattDescriptor getDescriptor(UUID uuid) {
+        for (BluetoothGattDescriptor descriptor : descriptors) {
+            if (descriptor.getUuid().equals(uuid)) {
+                return descriptor;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package android.bluetooth;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BluetoothGattService {
+    public static final int SERVICE_TYPE_PRIMARY = 0;
+
+    private final UUID uuid;
+    private final List<BluetoothGattCharacteristic> characteristics = new ArrayList<BluetoothGattCharacteristic>();
+
+    public BluetoothGattService(UUID uuid, int serviceType) {
+        this.uuid = uuid;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public boolean addCharacteristic(BluetoothGattCharacteristic characteristic) {
+        characteristics.add(characteristic);
+        characteristic.setService(this);
+        return true;
+    }
+
+    public List<BluetoothGattCharacteristic> getCharacteristics() {
+        return characteristics;
+    }
+
+    public BluetoothGattCharacteristic getCharacteristic(UUID uuid) {
+        for (BluetoothGattCharacteristic characteristic : characteristics) {
+            if (characteristic.getUuid().equals(uuid)) {
+                return characteristic;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.List;
+
+public class BluetoothLeScanner {
+    public void startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback) {
+    }
+
+    public void stopScan(ScanCallback callback) {
+    }
+}
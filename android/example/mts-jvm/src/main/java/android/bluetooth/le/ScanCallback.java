@@ -0,0 +1,17 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.List;
+
+public abstract class ScanCallback {
+    public void onScanResult(int callbackType, ScanResult result) {
+    }
+
+    public void onBatchScanResults(List<ScanResult> results) {
+    }
+
+    public void onScanFailed(int errorCode) {
+    }
+}
@@ -0,0 +1,22 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.os.ParcelUuid;
+
+public final class ScanFilter {
+    public static final class Builder {
+        public Builder setServiceUuid(ParcelUuid serviceUuid) {
+            return this;
+        }
+
+        public Builder setDeviceAddress(String deviceAddress) {
+            return this;
+        }
+
+        public ScanFilter build() {
+            return new ScanFilter();
+        }
+    }
+}
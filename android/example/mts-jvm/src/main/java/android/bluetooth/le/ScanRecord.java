@@ -0,0 +1,48 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.util.SparseArray;
+
+public final class ScanRecord {
+    private static final int kDataTypeManufacturerSpecificData = 0xFF;
+
+    private final byte[] bytes;
+    private final SparseArray<byte[]> manufacturerSpecificData;
+
+    private ScanRecord(byte[] bytes, SparseArray<byte[]> manufacturerSpecificData) {
+        this.bytes = bytes;
+        this.manufacturerSpecificData = manufacturerSpecificData;
+    }
+
+    /// Parses advertising data structures (length, type, data) the way the Android implementation does, as far as
+    /// MTSBeacon reads them.
+    public static ScanRecord parseFromBytes(byte[] scanRecord) {
+        SparseArray<byte[]> manufacturerSpecificData = new SparseArray<byte[]>();
+        int index = 0;
+        while (index < scanRecord.length) {
+            int length = scanRecord[index++] & 0xFF;
+            if (0 == length || index + length > scanRecord.length) {
+                break;
+            }
+            int dataType = scanRecord[index] & 0xFF;
+            if (kDataTypeManufacturerSpecificData == dataType && length >= 3) {
+                int manufacturerId = ((scanRecord[index + 2] & 0xFF) << 8) | (scanRecord[index + 1] & 0xFF);
+                byte[] data = new byte[length - 3];
+                System.arraycopy(scanRecord, index + 3, data, 0, data.length);
+                manufacturerSpecificData.put(manufacturerId, data);
+            }
+            index += length;
+        }
+        return new ScanRecord(scanRecord, manufacturerSpecificData);
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public SparseArray<byte[]> getManufacturerSpecificData() {
+        return manufacturerSpecificData;
+    }
+}
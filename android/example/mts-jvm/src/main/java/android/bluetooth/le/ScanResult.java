@@ -0,0 +1,36 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.bluetooth.BluetoothDevice;
+
+public final class ScanResult {
+    private final BluetoothDevice device;
+    private final ScanRecord scanRecord;
+    private final int rssi;
+    private final long timestampNanos;
+
+    public ScanResult(BluetoothDevice device, ScanRecord scanRecord, int rssi, long timestampNanos) {
+        this.device = device;
+        this.scanRecord = scanRecord;
+        this.rssi = rssi;
+        this.timestampNanos = timestampNanos;
+    }
+
+    public BluetoothDevice getDevice() {
+        return device;
+    }
+
+    public ScanRecord getScanRecord() {
+        return scanRecord;
+    }
+
+    public int getRssi() {
+        return rssi;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+}
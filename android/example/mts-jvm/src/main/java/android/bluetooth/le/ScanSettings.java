@@ -0,0 +1,53 @@
+package android.bluetooth.le;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public final class ScanSettings {
+    public static final int SCAN_MODE_OPPORTUNISTIC = -1;
+    public static final int SCAN_MODE_LOW_POWER = 0;
+    public static final int SCAN_MODE_BALANCED = 1;
+    public static final int SCAN_MODE_LOW_LATENCY = 2;
+    public static final int CALLBACK_TYPE_ALL_MATCHES = 1;
+    public static final int MATCH_MODE_AGGRESSIVE = 1;
+    public static final int MATCH_NUM_ONE_ADVERTISEMENT = 1;
+
+    private final int scanMode;
+
+    private ScanSettings(int scanMode) {
+        this.scanMode = scanMode;
+    }
+
+    public int getScanMode() {
+        return scanMode;
+    }
+
+    public static final class Builder {
+        private int scanMode = SCAN_MODE_LOW_POWER;
+
+        public Builder setScanMode(int scanMode) {
+            this.scanMode = scanMode;
+            return this;
+        }
+
+        public Builder setCallbackType(int callbackType) {
+            return this;
+        }
+
+        public Builder setMatchMode(int matchMode) {
+            return this;
+        }
+
+        public Builder setNumOfMatches(int numOfMatches) {
+            return this;
+        }
+
+        public Builder setReportDelay(long reportDelayMillis) {
+            return this;
+        }
+
+        public ScanSettings build() {
+            return new ScanSettings(scanMode);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package android.content;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public abstract class BroadcastReceiver {
+    public abstract void onReceive(Context context, Intent intent);
+
+    public final void abortBroadcast() {
+    }
+}
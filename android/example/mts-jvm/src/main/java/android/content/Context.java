@@ -0,0 +1,70 @@
+package android.content;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+public class Context {
+    public static final int MODE_PRIVATE = 0;
+
+    private final HashMap<String, SharedPreferences> sharedPreferences = new HashMap<String, SharedPreferences>();
+    private final ApplicationInfo applicationInfo = new ApplicationInfo();
+    private File filesDir;
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        SharedPreferences preferences = sharedPreferences.get(name);
+        if (null == preferences) {
+            preferences = new MemorySharedPreferences();
+            sharedPreferences.put(name, preferences);
+        }
+        return preferences;
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        return null;
+    }
+
+    public void unregisterReceiver(BroadcastReceiver receiver) {
+    }
+
+    public PackageManager getPackageManager() {
+        return new PackageManager();
+    }
+
+    public ApplicationInfo getApplicationInfo() {
+        return applicationInfo;
+    }
+
+    public int checkSelfPermission(String permission) {
+        return PackageManager.PERMISSION_GRANTED;
+    }
+
+    public File getCacheDir() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /// A new empty directory per Context, so files one run writes, e.g. MTSService's machine info cache, are not
+    /// read by the next.
+    public synchronized File getFilesDir() {
+        if (null == filesDir) {
+            try {
+                filesDir = Files.createTempDirectory("mts-files").toFile();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            filesDir.deleteOnExit();
+        }
+        return filesDir;
+    }
+}
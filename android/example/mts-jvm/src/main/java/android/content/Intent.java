@@ -0,0 +1,24 @@
+package android.content;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public class Intent {
+    private final String action;
+
+    public Intent(String action) {
+        this.action = action;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public int getIntExtra(String name, int defaultValue) {
+        return defaultValue;
+    }
+
+    public <T> T getParcelableExtra(String name) {
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+package android.content;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/// In memory SharedPreferences, returned by Context.getSharedPreferences(...).  Not part of the Android SDK.
+/// Change listeners are accepted but never called.
+final class MemorySharedPreferences implements SharedPreferences {
+    private final HashMap<String, Object> values = new HashMap<String, Object>();
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<String, Object>(values);
+    }
+
+    @Override
+    public synchronized String getString(String key, String defaultValue) {
+        Object value = values.get(key);
+        return (value instanceof String) ? (String) value : defaultValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Set<String> getStringSet(String key, Set<String> defaultValues) {
+        Object value = values.get(key);
+        return (value instanceof Set) ? (Set<String>) value : defaultValues;
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defaultValue) {
+        Object value = values.get(key);
+        return (value instanceof Integer) ? (Integer) value : defaultValue;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defaultValue) {
+        Object value = values.get(key);
+        return (value instanceof Long) ? (Long) value : defaultValue;
+    }
+
+    @Override
+    public synchronized float getFloat(String key, float defaultValue) {
+        Object value = values.get(key);
+        return (value instanceof Float) ? (Float) value : defaultValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defaultValue) {
+        Object value = values.get(key);
+        return (value instanceof Boolean) ? (Boolean) value : defaultValue;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+    }
+
+    @Override
+    public Editor edit() {
+        return new Editor() {
+            private final HashMap<String, Object> changes = new HashMap<String, Object>();
+            private boolean isCleared = false;
+
+            @Override
+            public Editor putString(String key, String value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putStringSet(String key, Set<String> values) {
+                changes.put(key, (null == values) ? null : new HashSet<String>(values));
+                return this;
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                changes.put(key, null);
+                return this;
+            }
+
+            @Override
+            public Editor clear() {
+                isCleared = true;
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                synchronized (MemorySharedPreferences.this) {
+                    // Like Android, clear() applies before the puts of the same editor.
+                    if (isCleared) {
+                        values.clear();
+                    }
+                    for (String key : changes.keySet()) {
+                        Object value = changes.get(key);
+                        if (null == value) {
+                            values.remove(key);
+                        } else {
+                            values.put(key, value);
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package android.content.pm;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public class PackageManager {
+    public static final String FEATURE_BLUETOOTH_LE = "android.hardware.bluetooth_le";
+    public static final int PERMISSION_GRANTED = 0;
+
+    public boolean hasSystemFeature(String name) {
+        return true;
+    }
+}
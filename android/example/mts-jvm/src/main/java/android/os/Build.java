@@ -0,0 +1,26 @@
+package android.os;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public class Build {
+    public static final String BRAND = "jvm";
+    public static final String MANUFACTURER = "jvm";
+    public static final String MODEL = "jvm";
+
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.UPSIDE_DOWN_CAKE;
+    }
+
+    public static class VERSION_CODES {
+        public static final int KITKAT = 19;
+        public static final int LOLLIPOP = 21;
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int S = 31;
+        public static final int UPSIDE_DOWN_CAKE = 34;
+    }
+}
@@ -0,0 +1,48 @@
+package android.os;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+/// Queues work on the Looper, which runs it in virtual time.  Benchmarks of synchronous paths never run the Looper,
+/// so work they post waits in the queue.
+public class Handler {
+    private final Looper looper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public Looper getLooper() {
+        return looper;
+    }
+
+    public boolean post(Runnable runnable) {
+        return postAtTime(runnable, SystemClock.uptimeMillis());
+    }
+
+    public boolean postDelayed(Runnable runnable, long delayMillis) {
+        return postAtTime(runnable, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public boolean postAtTime(Runnable runnable, long uptimeMillis) {
+        looper.enqueue(this, runnable, uptimeMillis);
+        return true;
+    }
+
+    public void removeCallbacks(Runnable runnable) {
+        if (null != runnable) {
+            looper.remove(this, runnable);
+        }
+    }
+
+    /// Only a null token is supported, which removes all of this handler's work.
+    public void removeCallbacksAndMessages(Object token) {
+        if (null == token) {
+            looper.remove(this, null);
+        }
+    }
+}
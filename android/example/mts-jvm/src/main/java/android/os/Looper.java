@@ -0,0 +1,119 @@
+package android.os;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/// A single looper shared by every thread, holding the work posted through Handler in a queue ordered by due time.
+/// Nothing runs until the owner of the simulation calls runNext(), runUntil(...) or runFor(...), which advance
+/// SystemClock to each task's due time before running it, so delays cost no wall clock time and runs repeat exactly.
+public final class Looper {
+    private static final Looper mainLooper = new Looper();
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<Task>();
+    private long sequence = 0;
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+
+    public static Looper myLooper() {
+        return mainLooper;
+    }
+
+    /// Stand-in only: runs the earliest due task, advancing the clock to its due time.  Returns false when the
+    /// queue is empty.
+    public boolean runNext() {
+        Task task;
+        synchronized (queue) {
+            task = queue.poll();
+        }
+        if (null == task) {
+            return false;
+        }
+        SystemClock.advanceTo(task.when);
+        task.runnable.run();
+        return true;
+    }
+
+    /// Stand-in only: runs every task due up to uptimeMillis, including ones those tasks post, then sets the clock to
+    /// uptimeMillis.  Returns the number of tasks run.
+    public int runUntil(long uptimeMillis) {
+        int count = 0;
+        while (true) {
+            synchronized (queue) {
+                Task next = queue.peek();
+                if (null == next || next.when > uptimeMillis) {
+                    break;
+                }
+            }
+            runNext();
+            count++;
+        }
+        SystemClock.advanceTo(uptimeMillis);
+        return count;
+    }
+
+    /// Stand-in only: runUntil(...) millis from now.
+    public int runFor(long millis) {
+        return runUntil(SystemClock.uptimeMillis() + millis);
+    }
+
+    /// Stand-in only: the number of tasks waiting.
+    public int pendingCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /// Stand-in only: drops every waiting task, so one simulation's timers don't run into the next.
+    public void clear() {
+        synchronized (queue) {
+            queue.clear();
+        }
+    }
+
+    void enqueue(Handler handler, Runnable runnable, long uptimeMillis) {
+        synchronized (queue) {
+            queue.add(new Task(handler, runnable, Math.max(uptimeMillis, SystemClock.uptimeMillis()), sequence++));
+        }
+    }
+
+    /// Removes the handler's tasks for runnable, or all of its tasks when runnable is null.
+    void remove(Handler handler, Runnable runnable) {
+        synchronized (queue) {
+            Iterator<Task> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                if (task.handler == handler && (null == runnable || task.runnable == runnable)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // Ordered by due time, then by posting order so tasks due together run first in, first out.
+    private static final class Task implements Comparable<Task> {
+        final Handler handler;
+        final Runnable runnable;
+        final long when;
+        final long sequence;
+
+        Task(Handler handler, Runnable runnable, long when, long sequence) {
+            this.handler = handler;
+            this.runnable = runnable;
+            this.when = when;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (when != other.when) {
+                return (when < other.when) ? -1 : 1;
+            }
+            return (sequence < other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+        }
+    }
+}
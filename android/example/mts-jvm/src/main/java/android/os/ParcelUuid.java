@@ -0,0 +1,37 @@
+package android.os;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.UUID;
+
+public final class ParcelUuid {
+    private final UUID uuid;
+
+    public ParcelUuid(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public static ParcelUuid fromString(String uuid) {
+        return new ParcelUuid(UUID.fromString(uuid));
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ParcelUuid && uuid.equals(((ParcelUuid) o).uuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return uuid.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return uuid.toString();
+    }
+}
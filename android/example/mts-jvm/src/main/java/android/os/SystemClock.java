@@ -0,0 +1,27 @@
+package android.os;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+/// Virtual time, advanced only by Looper as it runs queued work.  Starts at zero.
+public final class SystemClock {
+    private static volatile long uptimeMillis = 0;
+
+    public static long elapsedRealtime() {
+        return uptimeMillis;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return uptimeMillis * 1000000;
+    }
+
+    public static long uptimeMillis() {
+        return uptimeMillis;
+    }
+
+    static void advanceTo(long millis) {
+        if (millis > uptimeMillis) {
+            uptimeMillis = millis;
+        }
+    }
+}
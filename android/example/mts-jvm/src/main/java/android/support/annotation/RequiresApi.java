@@ -0,0 +1,9 @@
+package android.support.annotation;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+public @interface RequiresApi {
+    int api() default 1;
+    int value() default 1;
+}
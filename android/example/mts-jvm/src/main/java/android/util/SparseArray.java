@@ -0,0 +1,65 @@
+package android.util;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import java.util.Arrays;
+
+/// Sorted int keys with binary search, as on Android.
+public class SparseArray<E> {
+    private int[] keys = new int[4];
+    private Object[] values = new Object[4];
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        return (E) values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return (index < 0) ? null : (E) values[index];
+    }
+
+    public void put(int key, E value) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            values[index] = value;
+            return;
+        }
+        index = ~index;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    public void remove(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[--size] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+}
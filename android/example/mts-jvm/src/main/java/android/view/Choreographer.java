@@ -0,0 +1,48 @@
+package android.view;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+// JVM stand-in for the Android SDK class of the same name, see mts-jvm/build.gradle.
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.IdentityHashMap;
+
+/// Calls back on the next 16 ms boundary of virtual time, as a 60 Hz display would.
+public final class Choreographer {
+    private static final long kFrameIntervalMillis = 16;
+    private static final Choreographer instance = new Choreographer();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final IdentityHashMap<FrameCallback, Runnable> pending = new IdentityHashMap<FrameCallback, Runnable>();
+
+    public static Choreographer getInstance() {
+        return instance;
+    }
+
+    public void postFrameCallback(final FrameCallback callback) {
+        removeFrameCallback(callback);
+        Runnable frame = new Runnable() {
+            @Override
+            public void run() {
+                pending.remove(callback);
+                callback.doFrame(SystemClock.elapsedRealtimeNanos());
+            }
+        };
+        pending.put(callback, frame);
+        long now = SystemClock.uptimeMillis();
+        handler.postAtTime(frame, (now / kFrameIntervalMillis + 1) * kFrameIntervalMillis);
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        Runnable frame = pending.remove(callback);
+        if (null != frame) {
+            handler.removeCallbacks(frame);
+        }
+    }
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+}
@@ -0,0 +1,204 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.UUID;
+
+/// Load tests of MTSService against SimulatedBluetoothTransport, run with ./gradlew :mts-jvm:loadTest, see
+/// mts-jvm/build.gradle.  Simulated time is virtual, so results depend only on the arguments and the seed, except
+/// the wall clock figures.
+///
+///   ingest [beacons] [seconds] [seed]   beacons terminals in range for seconds of scanning, reports the
+///                                       advertisements MTSService ingested per wall clock second.
+///   soak [connects] [beacons] [seed]    connects then disconnects until connects connections completed, reports
+///                                       the connection phase latencies from MTSService.connectionMetrics().
+///   record file [beacons] [seconds] [seed]
+///                                       ingest, recording the scan results to file with MTSScanTraceRecorder.
+///   replay file [speed]                 plays file back with MTSScanTraceReplayer at speed (1 - 100), reports the
+///                                       beacons detected and the auto connects MTSService attempted.
+public final class MTSLoadTest {
+    private static final UUID kServiceUUID = UUID.fromString("C94E7734-F70C-4B96-BB48-F1E3CB95F79E");
+    // Time a soak connection stays up before MTSService.disconnect(...).
+    private static final long kSoakHoldTime = 2000;
+    // Simulated time a soak may take per connect before it is abandoned.
+    private static final long kSoakTimeLimitPerConnect = 60 * 1000;
+    // Wall clock time the trace file may take to be written after recording stops.
+    private static final long kTraceCloseTimeout = 10 * 1000;
+
+    private MTSLoadTest() {
+    }
+
+    public static void main(String[] args) {
+        String scenario = (args.length > 0) ? args[0] : "ingest";
+        PrintStream out = System.out;
+        // MTSService logs through System.out.
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            if ("ingest".equals(scenario)) {
+                ingest(out, intArgument(args, 1, 200), intArgument(args, 2, 60), intArgument(args, 3, 1), null);
+            } else if ("soak".equals(scenario)) {
+                soak(out, intArgument(args, 1, 1000), intArgument(args, 2, 10), intArgument(args, 3, 1));
+            } else if ("record".equals(scenario) && args.length > 1) {
+                ingest(out, intArgument(args, 2, 200), intArgument(args, 3, 60), intArgument(args, 4, 1), new File(args[1]));
+            } else if ("replay".equals(scenario) && args.length > 1) {
+                replay(out, new File(args[1]), (args.length > 2) ? Double.parseDouble(args[2]) : 1.0);
+            } else {
+                out.println("Usage: MTSLoadTest ingest [beacons] [seconds] [seed] | soak [connects] [beacons] [seed]"
+                        + " | record file [beacons] [seconds] [seed] | replay file [speed]");
+            }
+        } catch (IOException e) {
+            out.println("MTSLoadTest failed: " + e);
+        } catch (InterruptedException e) {
+            out.println("MTSLoadTest interrupted");
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static int intArgument(String[] args, int index, int defaultValue) {
+        return (args.length > index) ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private static String address(int index) {
+        return String.format("00:A0:50:%02X:%02X:%02X", (index >> 16) & 0xFF, (index >> 8) & 0xFF, index & 0xFF);
+    }
+
+    private static MTSService service(BluetoothTransport transport) {
+        MTSService service = new MTSService();
+        service.setEventBusEnabled(false);
+        service.setBluetoothTransport(transport);
+        service.initialize(new Context(), kServiceUUID);
+        return service;
+    }
+
+    /// Records the scan results to traceFile unless it is null.
+    static void ingest(PrintStream out, int beaconCount, int seconds, long seed, File traceFile) throws InterruptedException {
+        SimulatedBluetoothTransport transport = new SimulatedBluetoothTransport(seed);
+        for (int i = 0; i < beaconCount; i++) {
+            SimulatedBluetoothTransport.Beacon beacon = SimulatedBluetoothTransport.Beacon.mtsTerminal(address(i), kServiceUUID);
+            // Spread the beacons over the floor, all below the auto connect threshold.
+            beacon.rssi = -90 + (i % 40);
+            beacon.maximumRssi = -50;
+            transport.addBeacon(beacon);
+        }
+        MTSService service = service(transport);
+        service.setScanTimeoutInterval(0);
+
+        if (null != traceFile) {
+            service.startScanTraceRecording(traceFile);
+        }
+
+        Looper looper = Looper.getMainLooper();
+        long start = System.nanoTime();
+        service.startScanning();
+        int tasks = looper.runFor(seconds * 1000L);
+        long wallNanos = System.nanoTime() - start;
+        MTSScanTraceRecorder recorder = service.scanTraceRecorder();
+        service.stopScanTraceRecording();
+        if (null != recorder && !recorder.awaitClosed(kTraceCloseTimeout)) {
+            out.println("ingest: trace still being written after " + kTraceCloseTimeout + " ms");
+        }
+
+        out.println(String.format(Locale.US, "ingest: %d beacons for %d s simulated, seed %d", beaconCount, seconds, seed));
+        out.println(String.format(Locale.US, "advertisements=%d tasks=%d detected=%d wall=%.1fms throughput=%.0f advertisements/s",
+                transport.advertisementCount(), tasks, service.detectedBeacons().size(), wallNanos / 1e6,
+                transport.advertisementCount() / (wallNanos / 1e9)));
+        if (null != traceFile) {
+            out.println(String.format(Locale.US, "trace=%s bytes=%d", traceFile, traceFile.length()));
+        }
+    }
+
+    static void replay(PrintStream out, File traceFile, double speed) throws IOException {
+        MTSScanTraceReplayer replayer = new MTSScanTraceReplayer(traceFile, speed);
+        MTSService service = service(replayer);
+        service.setScanTimeoutInterval(0);
+
+        Looper looper = Looper.getMainLooper();
+        long start = System.nanoTime();
+        long simulatedStart = SystemClock.uptimeMillis();
+        service.startScanning();
+        while (!replayer.isFinished() && looper.runNext()) {
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        out.println(String.format(Locale.US, "replay: %s at %.1fx", traceFile, speed));
+        out.println(String.format(Locale.US, "delivered=%d dropped=%d detected=%d connectAttempts=%d simulated=%.1fs wall=%.1fms throughput=%.0f samples/s",
+                replayer.deliveredCount(), replayer.droppedCount(), service.detectedBeacons().size(),
+                replayer.connectAttemptCount(), (SystemClock.uptimeMillis() - simulatedStart) / 1e3, wallNanos / 1e6,
+                replayer.deliveredCount() / (wallNanos / 1e9)));
+    }
+
+    static void soak(PrintStream out, final int connects, int beaconCount, long seed) {
+        final SimulatedBluetoothTransport transport = new SimulatedBluetoothTransport(seed);
+        for (int i = 0; i < beaconCount; i++) {
+            SimulatedBluetoothTransport.Beacon beacon = SimulatedBluetoothTransport.Beacon.mtsTerminal(address(i), kServiceUUID);
+            // Close enough to auto connect.
+            beacon.rssi = -38;
+            beacon.minimumRssi = -42;
+            beacon.maximumRssi = -30;
+            beacon.connectFailureRate = 0.02;
+            beacon.gattFailureRate = 0.001;
+            transport.addBeacon(beacon);
+        }
+        final MTSService service = service(transport);
+        service.setScanTimeoutInterval(0);
+
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final int[] connected = {0};
+        final int[] disconnected = {0};
+        service.addConnectionListener(new MTSConnectionListener() {
+            @Override
+            public void onConnectionEvent(MTSService.BluetoothConnectionEvent connectionEvent, final MTSBeacon mtsBeacon) {
+                switch (connectionEvent) {
+                    case connect:
+                        connected[0]++;
+                        handler.postDelayed(new Runnable() {
+                            @Override
+                            public void run() {
+                                service.disconnect(mtsBeacon);
+                            }
+                        }, kSoakHoldTime);
+                        break;
+                    case disconnect:
+                        disconnected[0]++;
+                        if (connected[0] < connects) {
+                            service.startScanning();
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        Looper looper = Looper.getMainLooper();
+        long start = System.nanoTime();
+        long simulatedStart = SystemClock.uptimeMillis();
+        long simulatedLimit = simulatedStart + connects * kSoakTimeLimitPerConnect;
+        service.startScanning();
+        while (connected[0] < connects && SystemClock.uptimeMillis() < simulatedLimit && looper.runNext()) {
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        out.println(String.format(Locale.US, "soak: %d connects over %d beacons, seed %d", connects, beaconCount, seed));
+        out.println(String.format(Locale.US, "connected=%d disconnected=%d connectFailures=%d gattOperations=%d gattFailures=%d simulated=%.1fs wall=%.1fms",
+                connected[0], disconnected[0], transport.connectFailureCount(), transport.gattOperationCount(),
+                transport.gattFailureCount(), (SystemClock.uptimeMillis() - simulatedStart) / 1e3, wallNanos / 1e6));
+        out.println(service.connectionMetrics());
+    }
+}
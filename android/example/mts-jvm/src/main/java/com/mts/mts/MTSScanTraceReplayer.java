@@ -0,0 +1,209 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/// A radio that plays back a trace written by MTSScanTraceRecorder, for reproducing field sessions and measuring
+/// the filter and threshold logic of MTSService against them.  Pass it to MTSService.setBluetoothTransport(...)
+/// before initialize(...), then drive time with Looper.getMainLooper().
+///
+/// Playback starts with the first scan and follows the recorded timing divided by speed, so at speed 100 a minute
+/// of trace takes 600 ms of virtual time.  Filters that depend on elapsed time see the compressed timing.  Samples
+/// due while no scan is running are dropped, as the radio would.  Sessions are played back to back.  Connections
+/// are not supported: connectGatt(...) counts the attempt and returns null, so the connect times out.
+public final class MTSScanTraceReplayer implements BluetoothTransport {
+
+    public static final double kMaximumSpeed = 100.0;
+
+    private static final int kCallbackTypeAllMatches = 1;
+    private static final int kDataTypeManufacturerSpecificData = 0xFF;
+
+    private final MTSScanTraceReader reader;
+    private final double speed;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<ScanCallback> scanCallbacks = new ArrayList<ScanCallback>();
+    private MTSScanTraceReader.Sample nextSample;
+    private int session = -1;
+    private long sessionOffset = 0;
+    private long lastTime = 0;
+    private long startedAt = -1;
+    private boolean isFinished = false;
+    private long deliveredCount = 0;
+    private long droppedCount = 0;
+    private long connectAttemptCount = 0;
+
+    /// speed from above 0 up to kMaximumSpeed, 1 for the recorded timing.
+    public MTSScanTraceReplayer(File trace, double speed) throws IOException {
+        if (!(speed > 0.0 && speed <= kMaximumSpeed)) {
+            throw new IllegalArgumentException("Replay speed " + speed + " is outside (0, " + kMaximumSpeed + "]");
+        }
+        this.reader = new MTSScanTraceReader(trace);
+        this.speed = speed;
+    }
+
+    /// True once every sample was delivered or dropped.
+    public boolean isFinished() {
+        return isFinished;
+    }
+
+    /// Samples delivered to scan callbacks.
+    public long deliveredCount() {
+        return deliveredCount;
+    }
+
+    /// Samples that came due while no scan was running.
+    public long droppedCount() {
+        return droppedCount;
+    }
+
+    /// connectGatt(...) calls, e.g. the auto connects a threshold would have made.
+    public long connectAttemptCount() {
+        return connectAttemptCount;
+    }
+
+
+    // BluetoothTransport
+
+    @Override
+    public boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /// The recorded adapter stays on, so there are no state changes.
+    @Override
+    public void registerAdapterStateCallback(Context context, AdapterStateCallback callback) {
+    }
+
+    @Override
+    public void unregisterAdapterStateCallback(Context context, AdapterStateCallback callback) {
+    }
+
+    @Override
+    public boolean startDiscovery() {
+        return false;
+    }
+
+    @Override
+    public void cancelDiscovery() {
+    }
+
+    @Override
+    public boolean isLe2MPhySupported() {
+        return false;
+    }
+
+    @Override
+    public boolean startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback) {
+        if (!scanCallbacks.contains(callback)) {
+            scanCallbacks.add(callback);
+        }
+        if (startedAt < 0) {
+            startedAt = SystemClock.uptimeMillis();
+            scheduleNext();
+        }
+        return true;
+    }
+
+    @Override
+    public void stopScan(ScanCallback callback) {
+        scanCallbacks.remove(callback);
+    }
+
+    @Override
+    public BluetoothDevice getRemoteDevice(String address) {
+        return new BluetoothDevice(address, null);
+    }
+
+    @Override
+    public Set<BluetoothDevice> getBondedDevices() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Connection connectGatt(Context context, BluetoothDevice device, boolean autoConnect, BluetoothGattCallback callback) {
+        connectAttemptCount++;
+        return null;
+    }
+
+
+    // Playback
+
+    private void scheduleNext() {
+        try {
+            nextSample = reader.next();
+        } catch (IOException e) {
+            throw new IllegalStateException("Scan trace is corrupt", e);
+        }
+        if (null == nextSample) {
+            isFinished = true;
+            return;
+        }
+        if (nextSample.session != session) {
+            // Continue the next session where the last one ended.
+            session = nextSample.session;
+            sessionOffset += lastTime;
+        }
+        lastTime = nextSample.time;
+        long due = startedAt + (long) ((sessionOffset + nextSample.time) / speed);
+        handler.postAtTime(deliverRunnable, due);
+    }
+
+    private final Runnable deliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            MTSScanTraceReader.Sample sample = nextSample;
+            if (scanCallbacks.isEmpty()) {
+                droppedCount++;
+            } else {
+                ScanResult result = new ScanResult(new BluetoothDevice(sample.address, sample.name), scanRecord(sample),
+                        sample.rssi, SystemClock.elapsedRealtimeNanos());
+                // Copy, a callback may stop the scan.
+                for (ScanCallback callback : new ArrayList<ScanCallback>(scanCallbacks)) {
+                    deliveredCount++;
+                    callback.onScanResult(kCallbackTypeAllMatches, result);
+                }
+            }
+            scheduleNext();
+        }
+    };
+
+    /// Flags and the recorded manufacturer specific data, the parts of the advertisement MTSBeacon reads.
+    static ScanRecord scanRecord(MTSScanTraceReader.Sample sample) {
+        int manufacturerLength = (null == sample.manufacturerData) ? 0 : 4 + sample.manufacturerData.length;
+        ByteBuffer advertisement = ByteBuffer.allocate(3 + manufacturerLength).order(ByteOrder.LITTLE_ENDIAN);
+        advertisement.put(new byte[]{0x02, 0x01, 0x06});
+        if (null != sample.manufacturerData) {
+            advertisement.put((byte) (3 + sample.manufacturerData.length));
+            advertisement.put((byte) kDataTypeManufacturerSpecificData);
+            advertisement.putShort((short) sample.manufacturerId);
+            advertisement.put(sample.manufacturerData);
+        }
+        return ScanRecord.parseFromBytes(advertisement.array());
+    }
+}
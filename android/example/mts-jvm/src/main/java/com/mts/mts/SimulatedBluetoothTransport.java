@@ -0,0 +1,725 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothProfile;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/// A radio with simulated beacons, for load tests of MTSService on the JVM.  Pass it to
+/// MTSService.setBluetoothTransport(...) before initialize(...), then drive time with Looper.getMainLooper().
+///
+/// Each Beacon advertises every advertisingInterval ms while a scan is running and it is not connected, with an RSSI
+/// that takes a random step of up to rssiStep dB per advertisement within [minimumRssi, maximumRssi].  Connections
+/// come up after connectLatency ms and each GATT operation completes after gattLatency ms, both plus up to a jitter,
+/// or fail with the configured status at the configured rate.  Everything is scheduled on the main Looper in virtual
+/// time and all randomness comes from one seeded Random, so a run with the same seed and inputs repeats exactly.
+///
+/// Scan filters are not applied, every beacon is reported to every running scan.
+public final class SimulatedBluetoothTransport implements BluetoothTransport {
+
+    /// GATT_ERROR, the status Android reports for most connection and operation failures.
+    public static final int kGattError = 133;
+    /// GATT_CONN_TIMEOUT, reported when a connected beacon is removed.
+    public static final int kGattConnectionTimeout = 8;
+
+    /// As declared in MTSService.
+    public static final UUID kMachineInfoServiceUUID = UUID.fromString("C83FE52E-0AB5-49D9-9817-98982B4C48A3");
+    public static final UUID kCardDataCharacteristicUUID = UUID.fromString("60D11359-FEB2-411D-A430-CA6167052BD6");
+    public static final UUID kTerminalKindCharacteristicUUID = UUID.fromString("D308DFDE-9F06-4A73-A2C7-EB952E40A184");
+    public static final UUID kUserDisconnectedCharacteristicUUID = UUID.fromString("4E3A829D-4830-47A0-995F-EE923710A469");
+    public static final UUID kSasSerialNumberCharacteristicUUID = UUID.fromString("9D77E2CF-5D20-44EA-8D2F-A221B976C605");
+    public static final UUID kLocationCharacteristicUUID = UUID.fromString("42C458D7-86B9-4ED8-B57E-1352C7F5100A");
+    public static final UUID kAssetNumberCharacteristicUUID = UUID.fromString("D77A787D-E75D-4370-8CAC-6DCFE37DBB92");
+    public static final UUID kDenominationCharacteristicUUID = UUID.fromString("7B9432C6-465A-40FA-A13B-03544B6F0742");
+    public static final UUID kGmiLinkActiveCharacteristicUUID = UUID.fromString("023B4A4A-579C-495F-A61E-D3BBBFD63C4A");
+    public static final UUID kTxAttenLevelCharacteristicUUID = UUID.fromString("51D25B72-68BB-4022-9F71-0CC3DD23A032");
+
+    private static final UUID kClientCharacteristicConfigurationUUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+    private static final int kDefaultMtu = 23;
+    private static final int kCallbackTypeAllMatches = 1;
+    // Android adds a random delay of up to 10 ms to each advertising interval.
+    private static final int kAdvertisingDelay = 10;
+    private static final Charset kUtf8 = Charset.forName("UTF-8");
+
+    /// One simulated peripheral.  Configure the public fields before adding it, except the characteristic values,
+    /// which may be changed at any time with setValue(...).
+    public static class Beacon {
+        public final String address;
+        public String name = "GT Connect";
+        /// Advertising data, by default the MTS layout with the last three address bytes as the identifier.
+        public byte[] scanRecord;
+
+        public long advertisingInterval = 100;
+        public int rssi = -60;
+        public int rssiStep = 2;
+        public int minimumRssi = -95;
+        public int maximumRssi = -30;
+
+        public long connectLatency = 150;
+        public long connectJitter = 100;
+        public double connectFailureRate = 0.0;
+        public int connectFailureStatus = kGattError;
+
+        public long gattLatency = 30;
+        public long gattJitter = 20;
+        public double gattFailureRate = 0.0;
+        public int gattFailureStatus = kGattError;
+
+        /// Largest MTU the beacon accepts.
+        public int mtu = 185;
+
+        // Service UUID to characteristic UUID to value, in discovery order.  Values written by the central persist
+        // across connections.
+        private final LinkedHashMap<UUID, LinkedHashMap<UUID, byte[]>> services = new LinkedHashMap<UUID, LinkedHashMap<UUID, byte[]>>();
+        private ScanRecord parsedScanRecord;
+        private SimulatedConnection connection;
+        private SimulatedBluetoothTransport transport;
+
+        public Beacon(String address) {
+            this.address = address;
+        }
+
+        /// A terminal with the MTS and machine info services and a value for every characteristic MTSService
+        /// reads, with an asset number taken from the address.
+        public static Beacon mtsTerminal(String address, UUID mtsServiceUUID) {
+            Beacon beacon = new Beacon(address);
+            int identifier = addressIdentifier(address);
+            beacon.setValue(mtsServiceUUID, kCardDataCharacteristicUUID, new byte[]{0});
+            beacon.setValue(mtsServiceUUID, kTerminalKindCharacteristicUUID, "Slot".getBytes(kUtf8));
+            beacon.setValue(mtsServiceUUID, kUserDisconnectedCharacteristicUUID, new byte[]{0});
+            beacon.setValue(kMachineInfoServiceUUID, kSasSerialNumberCharacteristicUUID, utf8s(String.format("SIM%08d", identifier), 41));
+            beacon.setValue(kMachineInfoServiceUUID, kLocationCharacteristicUUID, utf8s("Floor " + (identifier % 4 + 1), 41));
+            beacon.setValue(kMachineInfoServiceUUID, kAssetNumberCharacteristicUUID, uint32(identifier));
+            beacon.setValue(kMachineInfoServiceUUID, kDenominationCharacteristicUUID, uint32(1));
+            beacon.setValue(kMachineInfoServiceUUID, kGmiLinkActiveCharacteristicUUID, new byte[]{1});
+            beacon.setValue(kMachineInfoServiceUUID, kTxAttenLevelCharacteristicUUID, new byte[]{0});
+            return beacon;
+        }
+
+        /// Adds the characteristic if needed and sets its value.  Connected centrals that enabled notifications are
+        /// notified after gattLatency.
+        public Beacon setValue(UUID serviceUUID, UUID characteristicUUID, byte[] value) {
+            LinkedHashMap<UUID, byte[]> characteristics = services.get(serviceUUID);
+            if (null == characteristics) {
+                characteristics = new LinkedHashMap<UUID, byte[]>();
+                services.put(serviceUUID, characteristics);
+            }
+            characteristics.put(characteristicUUID, value.clone());
+            if (null != connection) {
+                connection.valueChanged(serviceUUID, characteristicUUID, value.clone());
+            }
+            return this;
+        }
+
+        public byte[] getValue(UUID serviceUUID, UUID characteristicUUID) {
+            Map<UUID, byte[]> characteristics = services.get(serviceUUID);
+            byte[] value = (null == characteristics) ? null : characteristics.get(characteristicUUID);
+            return (null == value) ? null : value.clone();
+        }
+
+        public boolean isConnected() {
+            return null != connection && connection.isConnected;
+        }
+
+        private ScanRecord scanRecord() {
+            if (null == parsedScanRecord) {
+                if (null == scanRecord) {
+                    scanRecord = mtsScanRecord(name, address);
+                }
+                parsedScanRecord = ScanRecord.parseFromBytes(scanRecord);
+            }
+            return parsedScanRecord;
+        }
+
+        private int stepRssi(Random random) {
+            rssi += random.nextInt(2 * rssiStep + 1) - rssiStep;
+            rssi = Math.max(minimumRssi, Math.min(maximumRssi, rssi));
+            return rssi;
+        }
+    }
+
+    private final Random random;
+    private final Handler advertisingHandler = new Handler(Looper.getMainLooper());
+    private final LinkedHashMap<String, Beacon> beacons = new LinkedHashMap<String, Beacon>();
+    private final List<ScanCallback> scanCallbacks = new ArrayList<ScanCallback>();
+    private final Handler adapterStateHandler = new Handler(Looper.getMainLooper());
+    private final List<AdapterStateCallback> adapterStateCallbacks = new ArrayList<AdapterStateCallback>();
+    private boolean isEnabled = true;
+    private long advertisementCount = 0;
+    private long connectCount = 0;
+    private long connectFailureCount = 0;
+    private long gattOperationCount = 0;
+    private long gattFailureCount = 0;
+
+    public SimulatedBluetoothTransport(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /// Starts advertising at a random offset within its interval if a scan is running.
+    public void addBeacon(Beacon beacon) {
+        if (null != beacon.transport) {
+            throw new IllegalArgumentException("Beacon " + beacon.address + " was already added");
+        }
+        beacon.transport = this;
+        beacons.put(beacon.address, beacon);
+        if (!scanCallbacks.isEmpty()) {
+            scheduleAdvertisement(beacon, random.nextInt((int) Math.max(1, beacon.advertisingInterval)));
+        }
+    }
+
+    /// Takes the beacon out of range: it stops advertising and its connection drops with kGattConnectionTimeout.
+    public void removeBeacon(Beacon beacon) {
+        if (beacons.remove(beacon.address) != beacon) {
+            return;
+        }
+        if (null != beacon.connection) {
+            beacon.connection.linkLost(kGattConnectionTimeout);
+        }
+        beacon.transport = null;
+    }
+
+    public List<Beacon> beacons() {
+        return new ArrayList<Beacon>(beacons.values());
+    }
+
+    public Beacon beacon(String address) {
+        return beacons.get(address);
+    }
+
+    /// Turning the adapter off drops every connection and stops scans from starting.  Adapter state callbacks get
+    /// STATE_TURNING_OFF before the connections drop and STATE_OFF after, or STATE_TURNING_ON and STATE_ON.
+    public void setEnabled(boolean enabled) {
+        if (enabled == isEnabled) {
+            return;
+        }
+        isEnabled = enabled;
+        if (enabled) {
+            postAdapterState(BluetoothAdapter.STATE_TURNING_ON);
+            postAdapterState(BluetoothAdapter.STATE_ON);
+            return;
+        }
+        scanCallbacks.clear();
+        advertisingHandler.removeCallbacksAndMessages(null);
+        postAdapterState(BluetoothAdapter.STATE_TURNING_OFF);
+        adapterStateHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (Beacon beacon : beacons.values()) {
+                    if (null != beacon.connection) {
+                        beacon.connection.linkLost(kGattConnectionTimeout);
+                    }
+                }
+            }
+        });
+        postAdapterState(BluetoothAdapter.STATE_OFF);
+    }
+
+    private void postAdapterState(final int state) {
+        adapterStateHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (AdapterStateCallback callback : new ArrayList<AdapterStateCallback>(adapterStateCallbacks)) {
+                    callback.onAdapterStateChanged(state);
+                }
+            }
+        });
+    }
+
+    /// Advertisements delivered to scan callbacks.
+    public long advertisementCount() {
+        return advertisementCount;
+    }
+
+    public long connectCount() {
+        return connectCount;
+    }
+
+    public long connectFailureCount() {
+        return connectFailureCount;
+    }
+
+    /// Completed GATT operations, including failed ones.
+    public long gattOperationCount() {
+        return gattOperationCount;
+    }
+
+    public long gattFailureCount() {
+        return gattFailureCount;
+    }
+
+
+    // BluetoothTransport
+
+    @Override
+    public boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    @Override
+    public void registerAdapterStateCallback(Context context, AdapterStateCallback callback) {
+        if (!adapterStateCallbacks.contains(callback)) {
+            adapterStateCallbacks.add(callback);
+        }
+    }
+
+    @Override
+    public void unregisterAdapterStateCallback(Context context, AdapterStateCallback callback) {
+        adapterStateCallbacks.remove(callback);
+    }
+
+    /// No classic discovery.
+    @Override
+    public boolean startDiscovery() {
+        return false;
+    }
+
+    @Override
+    public void cancelDiscovery() {
+    }
+
+    @Override
+    public boolean isLe2MPhySupported() {
+        return false;
+    }
+
+    @Override
+    public boolean startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback) {
+        if (!isEnabled) {
+            return false;
+        }
+        boolean wasScanning = !scanCallbacks.isEmpty();
+        if (!scanCallbacks.contains(callback)) {
+            scanCallbacks.add(callback);
+        }
+        if (!wasScanning) {
+            for (Beacon beacon : beacons.values()) {
+                scheduleAdvertisement(beacon, random.nextInt((int) Math.max(1, beacon.advertisingInterval)));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void stopScan(ScanCallback callback) {
+        scanCallbacks.remove(callback);
+        if (scanCallbacks.isEmpty()) {
+            advertisingHandler.removeCallbacksAndMessages(null);
+        }
+    }
+
+    @Override
+    public BluetoothDevice getRemoteDevice(String address) {
+        Beacon beacon = beacons.get(address);
+        return new BluetoothDevice(address, (null == beacon) ? null : beacon.name);
+    }
+
+    @Override
+    public Set<BluetoothDevice> getBondedDevices() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Connection connectGatt(Context context, BluetoothDevice device, boolean autoConnect, BluetoothGattCallback callback) {
+        if (!isEnabled) {
+            return null;
+        }
+        SimulatedConnection connection = new SimulatedConnection(beacons.get(device.getAddress()), callback);
+        connection.connect();
+        return connection;
+    }
+
+
+    // Advertising
+
+    private void scheduleAdvertisement(final Beacon beacon, long delay) {
+        advertisingHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (beacon.transport != SimulatedBluetoothTransport.this) {
+                    return;
+                }
+                // A connected terminal stops advertising, but keeps its place in the schedule.
+                if (null == beacon.connection) {
+                    advertise(beacon);
+                }
+                scheduleAdvertisement(beacon, beacon.advertisingInterval + random.nextInt(kAdvertisingDelay + 1));
+            }
+        }, delay);
+    }
+
+    private void advertise(Beacon beacon) {
+        BluetoothDevice device = new BluetoothDevice(beacon.address, beacon.name);
+        ScanResult result = new ScanResult(device, beacon.scanRecord(), beacon.stepRssi(random), SystemClock.elapsedRealtimeNanos());
+        // Copy, a callback may stop the scan.
+        for (ScanCallback callback : new ArrayList<ScanCallback>(scanCallbacks)) {
+            advertisementCount++;
+            callback.onScanResult(kCallbackTypeAllMatches, result);
+        }
+    }
+
+
+    // Connections
+
+    private long latency(long latency, long jitter) {
+        return latency + ((jitter > 0) ? (long) (random.nextDouble() * (jitter + 1)) : 0);
+    }
+
+    private boolean fails(double rate) {
+        return rate > 0.0 && random.nextDouble() < rate;
+    }
+
+    /// The beacon's side of one GATT connection.  Callbacks are delivered on the main Looper after the beacon's
+    /// latencies, and none are delivered after close().
+    private final class SimulatedConnection implements BluetoothTransport.Connection {
+        private final Beacon beacon;
+        private final BluetoothGattCallback callback;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final List<BluetoothGattService> services = new ArrayList<BluetoothGattService>();
+        private final List<UUID> notifyingCharacteristics = new ArrayList<UUID>();
+        private boolean isConnecting;
+        private boolean isConnected;
+        private boolean isDiscovered;
+        private boolean isClosed;
+
+        SimulatedConnection(Beacon beacon, BluetoothGattCallback callback) {
+            this.beacon = beacon;
+            this.callback = callback;
+        }
+
+        void connect() {
+            isConnecting = true;
+            final long connectLatency = (null == beacon) ? 0 : latency(beacon.connectLatency, beacon.connectJitter);
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    isConnecting = false;
+                    // An unknown or already connected address fails as Android does when the device is out of range.
+                    if (null == beacon || beacon.transport != SimulatedBluetoothTransport.this || null != beacon.connection) {
+                        connectFailureCount++;
+                        callback.onConnectionStateChange(null, kGattError, BluetoothProfile.STATE_DISCONNECTED);
+                        return;
+                    }
+                    if (fails(beacon.connectFailureRate)) {
+                        connectFailureCount++;
+                        callback.onConnectionStateChange(null, beacon.connectFailureStatus, BluetoothProfile.STATE_DISCONNECTED);
+                        return;
+                    }
+                    connectCount++;
+                    isConnected = true;
+                    beacon.connection = SimulatedConnection.this;
+                    callback.onConnectionStateChange(null, BluetoothGatt.GATT_SUCCESS, BluetoothProfile.STATE_CONNECTED);
+                }
+            }, connectLatency);
+        }
+
+        /// Completes a GATT operation after the beacon's latency, with success or the configured failure status.
+        private boolean complete(final GattResult result) {
+            if (!isConnected || isClosed) {
+                return false;
+            }
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isConnected) {
+                        return;
+                    }
+                    gattOperationCount++;
+                    int status = BluetoothGatt.GATT_SUCCESS;
+                    if (fails(beacon.gattFailureRate)) {
+                        gattFailureCount++;
+                        status = beacon.gattFailureStatus;
+                    }
+                    result.deliver(status);
+                }
+            }, latency(beacon.gattLatency, beacon.gattJitter));
+            return true;
+        }
+
+        void valueChanged(UUID serviceUUID, UUID characteristicUUID, final byte[] value) {
+            if (!isDiscovered || !notifyingCharacteristics.contains(characteristicUUID)) {
+                return;
+            }
+            BluetoothGattService service = getService(serviceUUID);
+            final BluetoothGattCharacteristic characteristic = (null == service) ? null : service.getCharacteristic(characteristicUUID);
+            if (null == characteristic) {
+                return;
+            }
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    if (isConnected) {
+                        characteristic.setValue(value);
+                        callback.onCharacteristicChanged(null, characteristic);
+                    }
+                }
+            }, latency(beacon.gattLatency, beacon.gattJitter));
+        }
+
+        void linkLost(int status) {
+            if (!isConnected) {
+                return;
+            }
+            handler.removeCallbacksAndMessages(null);
+            dropLink();
+            if (!isClosed) {
+                callback.onConnectionStateChange(null, status, BluetoothProfile.STATE_DISCONNECTED);
+            }
+        }
+
+        private void dropLink() {
+            isConnected = false;
+            if (null != beacon && beacon.connection == this) {
+                beacon.connection = null;
+            }
+        }
+
+        @Override
+        public void disconnect() {
+            if (isClosed) {
+                return;
+            }
+            if (isConnecting) {
+                // Cancels the pending connect.
+                handler.removeCallbacksAndMessages(null);
+                isConnecting = false;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onConnectionStateChange(null, BluetoothGatt.GATT_SUCCESS, BluetoothProfile.STATE_DISCONNECTED);
+                    }
+                });
+                return;
+            }
+            if (!isConnected) {
+                return;
+            }
+            handler.removeCallbacksAndMessages(null);
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    dropLink();
+                    callback.onConnectionStateChange(null, BluetoothGatt.GATT_SUCCESS, BluetoothProfile.STATE_DISCONNECTED);
+                }
+            }, latency(beacon.gattLatency, beacon.gattJitter));
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+            isConnecting = false;
+            handler.removeCallbacksAndMessages(null);
+            dropLink();
+        }
+
+        @Override
+        public boolean discoverServices() {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    if (BluetoothGatt.GATT_SUCCESS == status) {
+                        buildServices();
+                    }
+                    callback.onServicesDiscovered(null, status);
+                }
+            });
+        }
+
+        // Fresh objects per connection, as Android creates them on each discovery.
+        private void buildServices() {
+            services.clear();
+            for (Map.Entry<UUID, LinkedHashMap<UUID, byte[]>> entry : beacon.services.entrySet()) {
+                BluetoothGattService service = new BluetoothGattService(entry.getKey(), BluetoothGattService.SERVICE_TYPE_PRIMARY);
+                for (UUID characteristicUUID : entry.getValue().keySet()) {
+                    BluetoothGattCharacteristic characteristic = new BluetoothGattCharacteristic(characteristicUUID,
+                            BluetoothGattCharacteristic.PROPERTY_READ | BluetoothGattCharacteristic.PROPERTY_WRITE | BluetoothGattCharacteristic.PROPERTY_NOTIFY,
+                            BluetoothGattCharacteristic.PERMISSION_READ | BluetoothGattCharacteristic.PERMISSION_WRITE);
+                    characteristic.addDescriptor(new BluetoothGattDescriptor(kClientCharacteristicConfigurationUUID,
+                            BluetoothGattCharacteristic.PERMISSION_READ | BluetoothGattCharacteristic.PERMISSION_WRITE));
+                    service.addCharacteristic(characteristic);
+                }
+                services.add(service);
+            }
+            isDiscovered = true;
+        }
+
+        @Override
+        public List<BluetoothGattService> getServices() {
+            return isDiscovered ? services : Collections.<BluetoothGattService>emptyList();
+        }
+
+        @Override
+        public BluetoothGattService getService(UUID uuid) {
+            for (BluetoothGattService service : getServices()) {
+                if (service.getUuid().equals(uuid)) {
+                    return service;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean readCharacteristic(final BluetoothGattCharacteristic characteristic) {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    if (BluetoothGatt.GATT_SUCCESS == status) {
+                        characteristic.setValue(beacon.getValue(characteristic.getService().getUuid(), characteristic.getUuid()));
+                    }
+                    callback.onCharacteristicRead(null, characteristic, status);
+                }
+            });
+        }
+
+        @Override
+        public boolean writeCharacteristic(final BluetoothGattCharacteristic characteristic) {
+            if (null == characteristic.getValue()) {
+                return false;
+            }
+            final byte[] value = characteristic.getValue().clone();
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    if (BluetoothGatt.GATT_SUCCESS == status) {
+                        beacon.services.get(characteristic.getService().getUuid()).put(characteristic.getUuid(), value);
+                    }
+                    callback.onCharacteristicWrite(null, characteristic, status);
+                }
+            });
+        }
+
+        @Override
+        public boolean readDescriptor(final BluetoothGattDescriptor descriptor) {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    callback.onDescriptorRead(null, descriptor, status);
+                }
+            });
+        }
+
+        @Override
+        public boolean writeDescriptor(final BluetoothGattDescriptor descriptor) {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    callback.onDescriptorWrite(null, descriptor, status);
+                }
+            });
+        }
+
+        @Override
+        public boolean setCharacteristicNotification(BluetoothGattCharacteristic characteristic, boolean enable) {
+            if (!isConnected) {
+                return false;
+            }
+            notifyingCharacteristics.remove(characteristic.getUuid());
+            if (enable) {
+                notifyingCharacteristics.add(characteristic.getUuid());
+            }
+            return true;
+        }
+
+        @Override
+        public boolean readRemoteRssi() {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    callback.onReadRemoteRssi(null, beacon.stepRssi(random), status);
+                }
+            });
+        }
+
+        @Override
+        public boolean requestMtu(final int mtu) {
+            return complete(new GattResult() {
+                @Override
+                public void deliver(int status) {
+                    int negotiated = (BluetoothGatt.GATT_SUCCESS == status) ? Math.max(kDefaultMtu, Math.min(mtu, beacon.mtu)) : kDefaultMtu;
+                    callback.onMtuChanged(null, negotiated, status);
+                }
+            });
+        }
+
+        @Override
+        public boolean requestConnectionPriority(int connectionPriority) {
+            return isConnected;
+        }
+
+        @Override
+        public void setPreferredPhy(int txPhy, int rxPhy, int phyOptions) {
+        }
+
+        @Override
+        public boolean refresh() {
+            isDiscovered = false;
+            return true;
+        }
+    }
+
+    private interface GattResult {
+        void deliver(int status);
+    }
+
+
+    // Values
+
+    private static int addressIdentifier(String address) {
+        String hex = address.replace(":", "");
+        return Integer.parseInt(hex.substring(Math.max(0, hex.length() - 6)), 16);
+    }
+
+    /// Flags, complete local name and the MTS manufacturer data: company identifier 00A050 followed by the last
+    /// three address bytes, as MTSBeacon reads it.
+    static byte[] mtsScanRecord(String name, String address) {
+        byte[] nameBytes = (null == name) ? new byte[0] : name.getBytes(kUtf8);
+        int identifier = addressIdentifier(address);
+        ByteBuffer buffer = ByteBuffer.allocate(3 + 2 + nameBytes.length + 10);
+        buffer.put(new byte[]{0x02, 0x01, 0x06});
+        buffer.put((byte) (nameBytes.length + 1)).put((byte) 0x09).put(nameBytes);
+        buffer.put(new byte[]{0x09, (byte) 0xFF, (byte) 0xFF, 0x00, (byte) 0xA0, 0x50});
+        buffer.put((byte) (identifier >> 16)).put((byte) (identifier >> 8)).put((byte) identifier).put((byte) 0x00);
+        return buffer.array();
+    }
+
+    private static byte[] utf8s(String value, int fieldLength) {
+        return Arrays.copyOf(value.getBytes(kUtf8), fieldLength);
+    }
+
+    private static byte[] uint32(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+}
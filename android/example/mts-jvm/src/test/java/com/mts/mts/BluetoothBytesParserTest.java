@@ -0,0 +1,404 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.mts.mts.BluetoothBytesParser.FORMAT_FLOAT;
+import static com.mts.mts.BluetoothBytesParser.FORMAT_SFLOAT;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BluetoothBytesParserTest {
+    // IEEE 11073-20601 special values, exponent 0.
+    private static final int kSFloatPositiveInfinity = 0x07FE;
+    private static final int kSFloatNaN = 0x07FF;
+    private static final int kSFloatNRes = 0x0800;
+    private static final int kSFloatReserved = 0x0801;
+    private static final int kSFloatNegativeInfinity = 0x0802;
+    private static final int kFloatPositiveInfinity = 0x007FFFFE;
+    private static final int kFloatNaN = 0x007FFFFF;
+    private static final int kFloatNRes = 0x00800000;
+    private static final int kFloatReserved = 0x00800001;
+    private static final int kFloatNegativeInfinity = 0x00800002;
+
+    private static final int[] kFloatMantissas = {0, 1, -1, 7, -7, 123456, -123456, 0x7FFFFD, -0x7FFFFF, -0x800000};
+
+    private static byte[] bytes(int bits, int length, ByteOrder byteOrder) {
+        byte[] value = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int shift = 8 * ((LITTLE_ENDIAN == byteOrder) ? i : length - 1 - i);
+            value[i] = (byte) (bits >> shift);
+        }
+        return value;
+    }
+
+    /// The decode before the lookup tables, sign extension by shifts and Math.pow per value.
+    private static float sfloatWithMathPow(int bits) {
+        int mantissa = (bits << 20) >> 20;
+        int exponent = (bits << 16) >> 28;
+        return (float) (mantissa * Math.pow(10, exponent));
+    }
+
+    private static float floatWithMathPow(int bits) {
+        int mantissa = (bits << 8) >> 8;
+        int exponent = bits >> 24;
+        return (float) (mantissa * Math.pow(10, exponent));
+    }
+
+    private static boolean isSFloatSpecial(int bits) {
+        return bits >= kSFloatPositiveInfinity && bits <= kSFloatNegativeInfinity;
+    }
+
+    private static boolean isFloatSpecial(int bits) {
+        return bits >= kFloatPositiveInfinity && bits <= kFloatNegativeInfinity;
+    }
+
+    private static float sfloat(int bits, ByteOrder byteOrder) {
+        return new BluetoothBytesParser(bytes(bits, 2, byteOrder), byteOrder).getSFloat();
+    }
+
+    private static float float32(int bits, ByteOrder byteOrder) {
+        return new BluetoothBytesParser(bytes(bits, 4, byteOrder), byteOrder).getFloat();
+    }
+
+    private static void assertSameFloat(String message, float expected, float actual) {
+        assertEquals(message, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+
+    private static void assertReadFails(BluetoothBytesParser parser, int length) {
+        int offset = parser.getOffset();
+        try {
+            parser.getUtf8String(length);
+            fail("read " + length + " bytes at offset " + offset);
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(offset, parser.getOffset());
+    }
+
+    @Test
+    public void primitiveAccessorsLittleEndian() {
+        byte[] value = {(byte) 0xFF, (byte) 0x80, (byte) 0x34, (byte) 0x12, (byte) 0xFE, (byte) 0xFF,
+                (byte) 0x78, (byte) 0x56, (byte) 0x34, (byte) 0xF2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        BluetoothBytesParser parser = new BluetoothBytesParser(value, LITTLE_ENDIAN);
+        assertEquals(255, parser.getUInt8());
+        assertEquals(-128, parser.getSInt8());
+        assertEquals(0x1234, parser.getUInt16());
+        assertEquals(-2, parser.getSInt16());
+        assertEquals(0xF2345678L, parser.getUInt32());
+        assertEquals(4, parser.getRemaining());
+        assertEquals(-1, parser.getSInt32());
+        assertEquals(value.length, parser.getOffset());
+        assertEquals(0, parser.getRemaining());
+    }
+
+    @Test
+    public void primitiveAccessorsBigEndian() {
+        byte[] value = {(byte) 0x12, (byte) 0x34, (byte) 0xFF, (byte) 0xFE, (byte) 0xF2, (byte) 0x34, (byte) 0x56,
+                (byte) 0x78, (byte) 0x80, (byte) 0x00, (byte) 0x00, (byte) 0x00};
+        BluetoothBytesParser parser = new BluetoothBytesParser(value, BIG_ENDIAN);
+        assertEquals(0x1234, parser.getUInt16());
+        assertEquals(-2, parser.getSInt16());
+        assertEquals(0xF2345678L, parser.getUInt32());
+        assertEquals(Integer.MIN_VALUE, parser.getSInt32());
+    }
+
+    @Test
+    public void primitiveAccessorsMatchGetIntValue() {
+        byte[] value = {(byte) 0x9A, (byte) 0xBC, (byte) 0xDE, (byte) 0xF0};
+        for (ByteOrder byteOrder : new ByteOrder[]{LITTLE_ENDIAN, BIG_ENDIAN}) {
+            BluetoothBytesParser parser = new BluetoothBytesParser(value, byteOrder);
+            assertEquals(parser.getIntValue(BluetoothBytesParser.FORMAT_UINT16, 0, byteOrder).intValue(), parser.getUInt16());
+            assertEquals(parser.getIntValue(BluetoothBytesParser.FORMAT_SINT16, 2, byteOrder).intValue(), parser.getSInt16());
+            parser.setOffset(0);
+            assertEquals(parser.getIntValue(BluetoothBytesParser.FORMAT_SINT32, 0, byteOrder).intValue(), parser.getSInt32());
+        }
+    }
+
+    @Test
+    public void readsPastTheEndThrowWithoutMoving() {
+        BluetoothBytesParser parser = new BluetoothBytesParser(new byte[]{1, 2, 3});
+        parser.getUInt16();
+        try {
+            parser.getUInt16();
+            fail("read 2 bytes with 1 left");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            parser.getSFloats(new float[1], 0, 1);
+            fail("decoded an sfloat with 1 byte left");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(2, parser.getOffset());
+        assertEquals(3, parser.getUInt8());
+        assertFalse(new BluetoothBytesParser().hasRemaining(1));
+    }
+
+    @Test
+    public void hasRemainingRejectsNegativeLengths() {
+        BluetoothBytesParser parser = new BluetoothBytesParser(new byte[4]);
+        parser.setOffset(2);
+        assertTrue(parser.hasRemaining(0));
+        assertTrue(parser.hasRemaining(2));
+        assertFalse(parser.hasRemaining(3));
+        assertFalse(parser.hasRemaining(-1));
+        assertFalse(parser.hasRemaining(Integer.MIN_VALUE));
+        // A negative length used to pass the check and move the offset back.
+        assertReadFails(parser, -1);
+    }
+
+    @Test
+    public void slicesParseInPlace() {
+        byte[] value = {0x11, 0x22, 0x33, 0x44, 0x55, 0x66};
+        BluetoothBytesParser parser = new BluetoothBytesParser(value, 1, 4, BIG_ENDIAN);
+        // Offsets stay indexes into value.
+        assertEquals(1, parser.getOffset());
+        assertEquals(4, parser.getRemaining());
+        assertEquals(0x2233, parser.getUInt16());
+        assertEquals(0x4455, parser.getUInt16());
+        assertEquals(5, parser.getOffset());
+        assertFalse(parser.hasRemaining(1));
+        assertReadFails(parser, 1);
+
+        // Moved before the slice, nothing can be read.
+        parser.setOffset(0);
+        assertFalse(parser.hasRemaining(1));
+        assertReadFails(parser, 1);
+    }
+
+    @Test
+    public void setValueReusesTheParser() {
+        byte[] value = "ab\u0000cdefg".getBytes(StandardCharsets.UTF_8);
+        BluetoothBytesParser parser = new BluetoothBytesParser();
+        parser.setValue(value, 0, 4);
+        assertEquals("ab", parser.getUtf8String(4));
+        parser.setValue(value, 3, 3);
+        assertEquals(3, parser.getOffset());
+        StringBuilder destination = new StringBuilder("x");
+        assertEquals(3, parser.getUtf8String(3, destination));
+        assertEquals("xcde", destination.toString());
+        assertEquals(0, parser.getRemaining());
+
+        int[][] slices = {{-1, 1}, {0, -1}, {5, 4}, {value.length + 1, 0}};
+        for (int[] slice : slices) {
+            try {
+                parser.setValue(value, slice[0], slice[1]);
+                fail("slice " + slice[0] + "+" + slice[1]);
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void arrayBackedBuffersParseInPlace() {
+        byte[] value = {0x01, 0x02, 0x03, 0x04, 0x05, 0x06};
+        ByteBuffer buffer = ByteBuffer.wrap(value, 1, 4).slice().order(LITTLE_ENDIAN);
+        buffer.position(1);
+        BluetoothBytesParser parser = new BluetoothBytesParser(buffer);
+        assertEquals(LITTLE_ENDIAN, parser.getByteOrder());
+        assertEquals(3, parser.getRemaining());
+        assertEquals(0x0403, parser.getUInt16());
+        assertEquals(0x05, parser.getUInt8());
+        assertEquals(0, parser.getRemaining());
+        // In place, and the buffer's position is left alone.
+        assertSame(value, parser.getBackingArray());
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void directBuffersAreCopied() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4).order(BIG_ENDIAN);
+        buffer.putInt(0xCAFEBABE);
+        buffer.position(2);
+        BluetoothBytesParser parser = new BluetoothBytesParser(buffer);
+        assertEquals(BIG_ENDIAN, parser.getByteOrder());
+        assertEquals(2, parser.getRemaining());
+        assertEquals(0xBABE, parser.getUInt16());
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void readOnlyBufferViewsTheSlice() {
+        byte[] value = {0x01, 0x02, 0x03, 0x04, 0x05};
+        BluetoothBytesParser parser = new BluetoothBytesParser(value, 1, 3, BIG_ENDIAN);
+        parser.getUInt8();
+        ByteBuffer buffer = parser.asReadOnlyBuffer();
+        assertTrue(buffer.isReadOnly());
+        assertEquals(BIG_ENDIAN, buffer.order());
+        // The whole slice, whatever has been read.
+        assertEquals(0, buffer.position());
+        assertEquals(3, buffer.remaining());
+        assertEquals(0x0203, buffer.getShort());
+        value[3] = 0x7F;
+        assertEquals(0x7F, buffer.get());
+        assertNull(new BluetoothBytesParser().asReadOnlyBuffer());
+    }
+
+    @Test
+    public void resetEncodesIntoTheBuffer() {
+        byte[] buffer = new byte[8];
+        Arrays.fill(buffer, (byte) 0x55);
+        BluetoothBytesParser parser = new BluetoothBytesParser(LITTLE_ENDIAN);
+        parser.reset(buffer);
+        assertEquals(0, parser.getLength());
+        assertTrue(parser.setIntValue(0x1234, BluetoothBytesParser.FORMAT_UINT16));
+        assertTrue(parser.setIntValue(0x07, BluetoothBytesParser.FORMAT_UINT8));
+        assertEquals(3, parser.getLength());
+        assertSame(buffer, parser.getBackingArray());
+        assertArrayEquals(new byte[]{0x34, 0x12, 0x07}, parser.copyValue());
+        assertEquals("341207", parser.toString());
+
+        // Reused for the next value, the bytes left from the last one are not part of it.
+        parser.reset(buffer);
+        assertTrue(parser.setIntValue(0x09, BluetoothBytesParser.FORMAT_UINT8));
+        assertEquals(1, parser.getLength());
+        assertArrayEquals(new byte[]{0x09}, parser.copyValue());
+    }
+
+    @Test
+    public void resetGrowsPastTheBufferCapacity() {
+        byte[] buffer = new byte[2];
+        BluetoothBytesParser parser = new BluetoothBytesParser(BIG_ENDIAN);
+        parser.reset(buffer);
+        assertTrue(parser.setIntValue(0xABCD, BluetoothBytesParser.FORMAT_UINT16));
+        assertSame(buffer, parser.getBackingArray());
+        assertTrue(parser.setIntValue(0x01020304, BluetoothBytesParser.FORMAT_UINT32));
+        assertNotSame(buffer, parser.getBackingArray());
+        assertTrue(parser.getBackingArray().length >= 6);
+        assertEquals(6, parser.getLength());
+        assertArrayEquals(new byte[]{(byte) 0xAB, (byte) 0xCD, 0x01, 0x02, 0x03, 0x04}, parser.copyValue());
+    }
+
+    @Test
+    public void getValueCopiesUnlessTheArrayIsExactlyTheValue() {
+        byte[] value = {0x01, 0x02, 0x03};
+        assertSame(value, new BluetoothBytesParser(value).getValue());
+
+        BluetoothBytesParser slice = new BluetoothBytesParser(value, 1, 2, LITTLE_ENDIAN);
+        byte[] sliceValue = slice.getValue();
+        assertNotSame(value, sliceValue);
+        assertArrayEquals(new byte[]{0x02, 0x03}, sliceValue);
+        assertArrayEquals(sliceValue, slice.copyValue());
+        sliceValue[0] = 0x7F;
+        assertEquals(0x02, value[1]);
+
+        // Spare capacity after encoding is not part of the value either.
+        BluetoothBytesParser parser = new BluetoothBytesParser();
+        parser.reset(new byte[16]);
+        parser.setIntValue(0x05, BluetoothBytesParser.FORMAT_UINT8);
+        assertArrayEquals(new byte[]{0x05}, parser.getValue());
+        assertNotSame(parser.getBackingArray(), parser.getValue());
+
+        assertNull(new BluetoothBytesParser().getValue());
+        assertNull(new BluetoothBytesParser().copyValue());
+        assertEquals(0, new BluetoothBytesParser().getLength());
+    }
+
+    @Test
+    public void sfloatSpecialValues() {
+        for (ByteOrder byteOrder : new ByteOrder[]{LITTLE_ENDIAN, BIG_ENDIAN}) {
+            assertSameFloat("+INFINITY", Float.POSITIVE_INFINITY, sfloat(kSFloatPositiveInfinity, byteOrder));
+            assertTrue(Float.isNaN(sfloat(kSFloatNaN, byteOrder)));
+            assertTrue(Float.isNaN(sfloat(kSFloatNRes, byteOrder)));
+            assertTrue(Float.isNaN(sfloat(kSFloatReserved, byteOrder)));
+            assertSameFloat("-INFINITY", Float.NEGATIVE_INFINITY, sfloat(kSFloatNegativeInfinity, byteOrder));
+
+            // Neighbours of the special range are ordinary values.
+            assertSameFloat("0x07FD", 2045f, sfloat(0x07FD, byteOrder));
+            assertSameFloat("0x0803", -2045f, sfloat(0x0803, byteOrder));
+            // The special mantissas with a non zero exponent are ordinary values as well.
+            assertSameFloat("0x17FE", sfloatWithMathPow(0x17FE), sfloat(0x17FE, byteOrder));
+        }
+        BluetoothBytesParser parser = new BluetoothBytesParser(bytes(kSFloatNegativeInfinity, 2, BIG_ENDIAN));
+        assertSameFloat("getFloatValue", Float.NEGATIVE_INFINITY, parser.getFloatValue(FORMAT_SFLOAT, 0, BIG_ENDIAN));
+    }
+
+    @Test
+    public void floatSpecialValues() {
+        for (ByteOrder byteOrder : new ByteOrder[]{LITTLE_ENDIAN, BIG_ENDIAN}) {
+            assertSameFloat("+INFINITY", Float.POSITIVE_INFINITY, float32(kFloatPositiveInfinity, byteOrder));
+            assertTrue(Float.isNaN(float32(kFloatNaN, byteOrder)));
+            assertTrue(Float.isNaN(float32(kFloatNRes, byteOrder)));
+            assertTrue(Float.isNaN(float32(kFloatReserved, byteOrder)));
+            assertSameFloat("-INFINITY", Float.NEGATIVE_INFINITY, float32(kFloatNegativeInfinity, byteOrder));
+
+            assertSameFloat("0x007FFFFD", 8388605f, float32(0x007FFFFD, byteOrder));
+            assertSameFloat("0x00800003", -8388605f, float32(0x00800003, byteOrder));
+            assertSameFloat("0x017FFFFE", floatWithMathPow(0x017FFFFE), float32(0x017FFFFE, byteOrder));
+        }
+        BluetoothBytesParser parser = new BluetoothBytesParser(bytes(kFloatPositiveInfinity, 4, LITTLE_ENDIAN));
+        assertSameFloat("getFloatValue", Float.POSITIVE_INFINITY, parser.getFloatValue(FORMAT_FLOAT, 0, LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void sfloatMatchesMathPowForEveryValue() {
+        for (int bits = 0; bits <= 0xFFFF; bits++) {
+            if (isSFloatSpecial(bits)) {
+                continue;
+            }
+            float expected = sfloatWithMathPow(bits);
+            String message = Integer.toHexString(bits);
+            assertSameFloat(message, expected, sfloat(bits, LITTLE_ENDIAN));
+            assertSameFloat(message, expected, sfloat(bits, BIG_ENDIAN));
+        }
+    }
+
+    @Test
+    public void floatMatchesMathPowForEveryExponent() {
+        for (int exponent = -128; exponent < 128; exponent++) {
+            for (int mantissa : kFloatMantissas) {
+                int bits = (exponent << 24) | (mantissa & 0xFFFFFF);
+                if (isFloatSpecial(bits)) {
+                    continue;
+                }
+                float expected = floatWithMathPow(bits);
+                String message = Integer.toHexString(bits);
+                assertSameFloat(message, expected, float32(bits, LITTLE_ENDIAN));
+                assertSameFloat(message, expected, float32(bits, BIG_ENDIAN));
+            }
+        }
+    }
+
+    @Test
+    public void bulkDecodeMatchesSingleValues() {
+        int[] sfloatBits = {0x0000, 0x0001, 0x0FFF, 0xF123, 0x8800, 0x7FFF, kSFloatPositiveInfinity, kSFloatNaN,
+                kSFloatNRes, kSFloatReserved, kSFloatNegativeInfinity, 0xE7D0};
+        int[] floatBits = {0x00000000, 0xFF000001, 0x01FFFFFF, 0x80123456, 0x7F7FFFFD, kFloatPositiveInfinity,
+                kFloatNaN, kFloatNRes, kFloatReserved, kFloatNegativeInfinity, 0xFD0001F4};
+        for (ByteOrder byteOrder : new ByteOrder[]{LITTLE_ENDIAN, BIG_ENDIAN}) {
+            // One leading byte, so the values start at an odd offset.
+            byte[] value = new byte[1 + 2 * sfloatBits.length + 4 * floatBits.length];
+            float[] expected = new float[1 + sfloatBits.length + floatBits.length];
+            for (int i = 0; i < sfloatBits.length; i++) {
+                System.arraycopy(bytes(sfloatBits[i], 2, byteOrder), 0, value, 1 + 2 * i, 2);
+                expected[1 + i] = isSFloatSpecial(sfloatBits[i]) ? sfloat(sfloatBits[i], byteOrder) : sfloatWithMathPow(sfloatBits[i]);
+            }
+            for (int i = 0; i < floatBits.length; i++) {
+                System.arraycopy(bytes(floatBits[i], 4, byteOrder), 0, value, 1 + 2 * sfloatBits.length + 4 * i, 4);
+                expected[1 + sfloatBits.length + i] = isFloatSpecial(floatBits[i]) ? float32(floatBits[i], byteOrder) : floatWithMathPow(floatBits[i]);
+            }
+
+            BluetoothBytesParser parser = new BluetoothBytesParser(value, 1, byteOrder);
+            float[] destination = new float[expected.length];
+            parser.getSFloats(destination, 1, sfloatBits.length);
+            assertEquals(1 + 2 * sfloatBits.length, parser.getOffset());
+            parser.getFloats(destination, 1 + sfloatBits.length, floatBits.length);
+            assertEquals(value.length, parser.getOffset());
+            assertArrayEquals(expected, destination, 0f);
+        }
+    }
+}
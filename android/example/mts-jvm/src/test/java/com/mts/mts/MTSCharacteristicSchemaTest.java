@@ -0,0 +1,108 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.os.ParcelUuid;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MTSCharacteristicSchemaTest {
+    // The card data field: 195 characters and the null terminator.
+    private static final int kCardDataFieldLength = 196;
+    private static final int kCardDataCharacterCountMax = 195;
+    // U+1F600, a surrogate pair in Java and 4 bytes in UTF-8.
+    private static final String kEmoji = "\uD83D\uDE00";
+
+    private final MTSCharacteristicSchema cardDataSchema =
+            MTSCharacteristicSchema.utf8s(new ParcelUuid(UUID.randomUUID()), kCardDataFieldLength);
+    // Runs under the JVM stand-ins, MTSService can't be constructed against the mockable android.jar.
+    private final MTSService service = new MTSService();
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private byte[] encodeCardData(String cardData) {
+        byte[] destination = new byte[kCardDataFieldLength];
+        int length = service.validatedCardData(cardData, destination);
+        assertTrue(cardDataSchema.isValid(Arrays.copyOf(destination, length)));
+        return Arrays.copyOf(destination, length);
+    }
+
+    @Test
+    public void roundTripsAtTheFieldLength() {
+        String cardData = repeat('a', kCardDataCharacterCountMax);
+        byte[] value = encodeCardData(cardData);
+        assertEquals(kCardDataFieldLength, value.length);
+        assertEquals(0, value[value.length - 1]);
+        assertEquals(cardData, cardDataSchema.decodeString(value));
+    }
+
+    @Test
+    public void truncatesPastTheFieldLength() {
+        byte[] value = encodeCardData(repeat('a', kCardDataCharacterCountMax + 1));
+        assertEquals(kCardDataFieldLength, value.length);
+        assertEquals(repeat('a', kCardDataCharacterCountMax), cardDataSchema.decodeString(value));
+
+        // A full buffer is cut as well, the terminator always fits.
+        byte[] destination = new byte[kCardDataFieldLength];
+        assertEquals(kCardDataFieldLength, cardDataSchema.encode(repeat('b', 300), destination));
+        assertEquals(0, destination[kCardDataFieldLength - 1]);
+    }
+
+    @Test
+    public void acceptsAndDecodesPastTheFieldLength() {
+        assertTrue(cardDataSchema.isValid(new byte[kCardDataFieldLength]));
+        assertFalse(cardDataSchema.isValid(new byte[0]));
+
+        // A peripheral sending more than the field is decoded whole, as before the schema.
+        String cardData = repeat('c', kCardDataFieldLength + 10);
+        byte[] value = (cardData + "\u0000").getBytes(StandardCharsets.UTF_8);
+        assertTrue(cardDataSchema.isValid(value));
+        assertEquals(cardData, cardDataSchema.decodeString(value));
+        assertFalse(cardDataSchema.isValid(new byte[MTSCharacteristicSchema.kMaximumAttributeLength + 1]));
+    }
+
+    @Test
+    public void roundTripsASurrogatePairThatFits() {
+        // 191 bytes and 4 for the pair fill the field exactly.
+        String cardData = repeat('a', kCardDataCharacterCountMax - 4) + kEmoji;
+        byte[] value = encodeCardData(cardData);
+        assertEquals(kCardDataFieldLength, value.length);
+        assertEquals(cardData, cardDataSchema.decodeString(value));
+    }
+
+    @Test
+    public void dropsASurrogatePairThatDoesNotFit() {
+        // The pair would need bytes 193 to 196, the terminator's place.
+        String cardData = repeat('a', kCardDataCharacterCountMax - 3) + kEmoji;
+        byte[] value = encodeCardData(cardData);
+        assertEquals(kCardDataCharacterCountMax - 3 + 1, value.length);
+        assertEquals(repeat('a', kCardDataCharacterCountMax - 3), cardDataSchema.decodeString(value));
+    }
+
+    @Test
+    public void dropsASurrogatePairSplitByTheCharacterLimit() {
+        // The 195 char limit falls between the high and the low surrogate, neither half is encoded.
+        String cardData = repeat('a', kCardDataCharacterCountMax - 1) + kEmoji;
+        byte[] value = encodeCardData(cardData);
+        assertEquals(kCardDataCharacterCountMax - 1 + 1, value.length);
+        String decoded = cardDataSchema.decodeString(value);
+        assertEquals(repeat('a', kCardDataCharacterCountMax - 1), decoded);
+
+        StringBuilder destination = new StringBuilder();
+        assertEquals(kCardDataCharacterCountMax - 1, cardDataSchema.decodeString(value, destination));
+        assertEquals(decoded, destination.toString());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MTSServiceAdapterStateTest {
+    private static final UUID kServiceUUID = UUID.fromString("C94E7734-F70C-4B96-BB48-F1E3CB95F79E");
+
+    private final Looper looper = Looper.getMainLooper();
+    private SimulatedBluetoothTransport transport;
+    private MTSService service;
+
+    @Before
+    public void setUp() {
+        transport = new SimulatedBluetoothTransport(1);
+        for (int i = 0; i < 3; i++) {
+            SimulatedBluetoothTransport.Beacon beacon =
+                    SimulatedBluetoothTransport.Beacon.mtsTerminal(String.format("00:A0:50:00:00:%02X", i), kServiceUUID);
+            // Close enough to auto connect.
+            beacon.rssi = -38;
+            beacon.minimumRssi = -42;
+            beacon.maximumRssi = -30;
+            transport.addBeacon(beacon);
+        }
+        service = new MTSService();
+        service.setEventBusEnabled(false);
+        service.setBluetoothTransport(transport);
+        service.initialize(new Context(), kServiceUUID);
+        service.setScanTimeoutInterval(0);
+    }
+
+    @After
+    public void tearDown() {
+        looper.clear();
+    }
+
+    @Test
+    public void adapterStateChangesReachTheService() {
+        final int[] disabledCount = {0};
+        service.addConnectionListener(new MTSConnectionListener() {
+            @Override
+            public void onConnectionEvent(MTSService.BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {
+                if (MTSService.BluetoothConnectionEvent.disabled == connectionEvent) {
+                    disabledCount[0]++;
+                }
+            }
+        });
+        service.startScanning();
+        looper.runFor(10 * 1000);
+        assertEquals(1, service.connectedMTSBeacons().size());
+
+        transport.setEnabled(false);
+        looper.runFor(1000);
+        assertEquals(MTSService.BluetoothDiscoveryState.notReady, service.bluetoothDiscoveryState);
+        assertTrue("disabled events", disabledCount[0] > 0);
+        assertEquals(0, service.connectedMTSBeacons().size());
+        assertEquals(0, service.detectedBeacons().size());
+
+        transport.setEnabled(true);
+        looper.runFor(1000);
+        assertEquals(MTSService.BluetoothDiscoveryState.inactive, service.bluetoothDiscoveryState);
+        service.startScanning();
+        looper.runFor(10 * 1000);
+        assertEquals(1, service.connectedMTSBeacons().size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class MTSServiceScanWhileConnectingTest {
+    private static final UUID kServiceUUID = UUID.fromString("C94E7734-F70C-4B96-BB48-F1E3CB95F79E");
+    private static final int kBeaconCount = 5;
+    // Simulated time for every beacon to be detected, connected and hydrated.
+    private static final long kSettleTime = 30 * 1000;
+
+    private final Looper looper = Looper.getMainLooper();
+    private SimulatedBluetoothTransport transport;
+    private MTSService service;
+
+    @Before
+    public void setUp() {
+        transport = new SimulatedBluetoothTransport(1);
+        for (int i = 0; i < kBeaconCount; i++) {
+            SimulatedBluetoothTransport.Beacon beacon =
+                    SimulatedBluetoothTransport.Beacon.mtsTerminal(String.format("00:A0:50:00:00:%02X", i), kServiceUUID);
+            // Close enough to auto connect.
+            beacon.rssi = -38;
+            beacon.minimumRssi = -42;
+            beacon.maximumRssi = -30;
+            transport.addBeacon(beacon);
+        }
+        service = new MTSService();
+        service.setEventBusEnabled(false);
+        service.setBluetoothTransport(transport);
+        service.isScanWhileConnectingEnabled = true;
+        service.initialize(new Context(), kServiceUUID);
+        service.setScanTimeoutInterval(0);
+    }
+
+    @After
+    public void tearDown() {
+        looper.clear();
+    }
+
+    @Test
+    public void startConnectedRSSIReadsKeepsOneLoop() {
+        int pendingCount = looper.pendingCount();
+        for (int i = 0; i < 3; i++) {
+            service.startConnectedRSSIReads();
+        }
+        assertEquals(pendingCount + 1, looper.pendingCount());
+        service.stopConnectedRSSIReads();
+        assertEquals(pendingCount, looper.pendingCount());
+    }
+
+    @Test
+    public void connectsShareOneRSSIReadLoop() {
+        service.startScanning();
+        looper.runFor(kSettleTime);
+        assertEquals(kBeaconCount, service.connectedMTSBeacons().size());
+
+        // Once hydrated, the only GATT operations are the RSSI reads, one a second across all connections.
+        long gattOperationCount = transport.gattOperationCount();
+        looper.runFor(10 * 1000);
+        assertEquals(10, transport.gattOperationCount() - gattOperationCount);
+    }
+
+    @Test
+    public void userDisconnectKeepsScanning() {
+        service.startScanning();
+        looper.runFor(kSettleTime);
+        assertEquals(MTSService.BluetoothDiscoveryState.scanning, service.bluetoothDiscoveryState);
+
+        final int[] pendingUserDisconnectCount = {0};
+        service.addConnectionListener(new MTSConnectionListener() {
+            @Override
+            public void onConnectionEvent(MTSService.BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {
+                if (MTSService.BluetoothConnectionEvent.pendingUserDisconnect == connectionEvent) {
+                    pendingUserDisconnectCount[0]++;
+                }
+            }
+        });
+        service.disconnect(service.connectedMTSBeacons().beacons.get(0));
+        looper.runFor(10 * 1000);
+        assertEquals(1, pendingUserDisconnectCount[0]);
+        assertEquals(MTSService.BluetoothDiscoveryState.scanning, service.bluetoothDiscoveryState);
+    }
+}
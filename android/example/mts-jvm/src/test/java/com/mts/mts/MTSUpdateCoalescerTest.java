@@ -0,0 +1,101 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MTSUpdateCoalescerTest {
+
+    private final Looper looper = Looper.getMainLooper();
+    private final List<MTSBeaconListUpdate> updates = new ArrayList<MTSBeaconListUpdate>();
+    private MTSUpdateCoalescer coalescer;
+    private MTSBeacon a;
+    private MTSBeacon b;
+
+    @Before
+    public void setUp() {
+        coalescer = new MTSUpdateCoalescer();
+        coalescer.addListener(new MTSBeaconListUpdateListener() {
+            @Override
+            public void onBeaconListUpdate(MTSBeaconListUpdate update) {
+                updates.add(update);
+            }
+        });
+        a = beacon("00:A0:50:00:00:01");
+        b = beacon("00:A0:50:00:00:02");
+    }
+
+    @After
+    public void tearDown() {
+        looper.clear();
+    }
+
+    @Test
+    public void updateAfterRemoveIsNotReported() {
+        coalescer.beaconRemoved(a);
+        coalescer.beaconUpdated(a);
+        coalescer.beaconUpdated(b);
+        MTSBeaconListUpdate update = nextFrame();
+        assertEquals(Collections.emptyList(), update.added);
+        assertEquals(Collections.singletonList(a), update.removed);
+        assertEquals(Collections.singletonList(b), update.updated);
+    }
+
+    @Test
+    public void updateAfterAddIsReportedAsAdded() {
+        coalescer.beaconAdded(a);
+        coalescer.beaconUpdated(a);
+        MTSBeaconListUpdate update = nextFrame();
+        assertEquals(Collections.singletonList(a), update.added);
+        assertEquals(Collections.emptyList(), update.updated);
+    }
+
+    @Test
+    public void removeAndAddIsReportedAsUpdated() {
+        coalescer.beaconRemoved(a);
+        coalescer.beaconAdded(a);
+        coalescer.beaconUpdated(a);
+        MTSBeaconListUpdate update = nextFrame();
+        assertEquals(Collections.emptyList(), update.added);
+        assertEquals(Collections.emptyList(), update.removed);
+        assertEquals(Collections.singletonList(a), update.updated);
+    }
+
+    @Test
+    public void addAndRemoveIsNotReported() {
+        coalescer.beaconAdded(a);
+        coalescer.beaconUpdated(a);
+        coalescer.beaconRemoved(a);
+        coalescer.beaconUpdated(b);
+        MTSBeaconListUpdate update = nextFrame();
+        assertEquals(Collections.emptyList(), update.added);
+        assertEquals(Collections.emptyList(), update.removed);
+        assertEquals(Arrays.asList(b), update.updated);
+    }
+
+    private MTSBeaconListUpdate nextFrame() {
+        looper.runFor(16);
+        assertEquals(1, updates.size());
+        return updates.get(0);
+    }
+
+    private static MTSBeacon beacon(String address) {
+        ScanRecord scanRecord = ScanRecord.parseFromBytes(new byte[]{0x02, 0x01, 0x06});
+        return new MTSBeacon(null, new ScanResult(new BluetoothDevice(address, "GT Connect"), scanRecord, -60, 0), null);
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ *   Copyright (c) 2019 Martijn van Welie
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ *
+ */
+
+// MIT License
+// https://github.com/weliem/blessed-android/blob/master/LICENSE
+
+package com.mts.mts;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanSettings;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static android.bluetooth.BluetoothDevice.TRANSPORT_LE;
+
+/**
+ * {@link BluetoothTransport} on the device's Bluetooth adapter, the default for {@link BluetoothCentral}.
+ *
+ * <p>Holds the connectGatt workarounds that used to live in {@link BluetoothPeripheral}.
+ */
+final class AndroidBluetoothTransport implements BluetoothTransport {
+
+    private final BluetoothAdapter bluetoothAdapter;
+    private BluetoothLeScanner bluetoothScanner;
+    private final HashMap<AdapterStateCallback, BroadcastReceiver> adapterStateReceivers = new HashMap<>();
+
+    AndroidBluetoothTransport() {
+        this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+    }
+
+    @Override
+    public boolean isSupported() {
+        return bluetoothAdapter != null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return bluetoothAdapter != null && bluetoothAdapter.isEnabled();
+    }
+
+    @Override
+    public void registerAdapterStateCallback(Context context, final AdapterStateCallback callback) {
+        if (context == null || adapterStateReceivers.containsKey(callback)) {
+            return;
+        }
+        // Broadcasts are delivered on the main thread.
+        BroadcastReceiver adapterStateReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(intent.getAction())) {
+                    callback.onAdapterStateChanged(intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR));
+                }
+            }
+        };
+        adapterStateReceivers.put(callback, adapterStateReceiver);
+        context.registerReceiver(adapterStateReceiver, new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED));
+    }
+
+    @Override
+    public void unregisterAdapterStateCallback(Context context, AdapterStateCallback callback) {
+        BroadcastReceiver adapterStateReceiver = adapterStateReceivers.remove(callback);
+        if (context != null && adapterStateReceiver != null) {
+            context.unregisterReceiver(adapterStateReceiver);
+        }
+    }
+
+    @Override
+    public boolean startDiscovery() {
+        return bluetoothAdapter != null && bluetoothAdapter.startDiscovery();
+    }
+
+    @Override
+    public void cancelDiscovery() {
+        if (bluetoothAdapter != null) {
+            bluetoothAdapter.cancelDiscovery();
+        }
+    }
+
+    @Override
+    public boolean isLe2MPhySupported() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return false;
+        }
+        return bluetoothAdapter != null && bluetoothAdapter.isLe2MPhySupported();
+    }
+
+    @Override
+    public boolean startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback) {
+        // Get a new scanner object
+        if (bluetoothScanner == null) {
+            bluetoothScanner = bluetoothAdapter.getBluetoothLeScanner();
+        }
+        if (bluetoothScanner == null) {
+            return false;
+        }
+        bluetoothScanner.startScan(filters, settings, callback);
+        return true;
+    }
+
+    @Override
+    public void stopScan(ScanCallback callback) {
+        if (bluetoothScanner != null) {
+            bluetoothScanner.stopScan(callback);
+        }
+    }
+
+    @Override
+    public BluetoothDevice getRemoteDevice(String address) {
+        return bluetoothAdapter.getRemoteDevice(address);
+    }
+
+    @Override
+    public Set<BluetoothDevice> getBondedDevices() {
+        Set<BluetoothDevice> bondedDevices = bluetoothAdapter.getBondedDevices();
+        return (bondedDevices != null) ? bondedDevices : Collections.<BluetoothDevice>emptySet();
+    }
+
+    @Override
+    public Connection connectGatt(Context context, BluetoothDevice device, boolean autoConnect, BluetoothGattCallback callback) {
+        BluetoothGatt bluetoothGatt = connectGattHelper(context, device, autoConnect, callback);
+        return (bluetoothGatt != null) ? new AndroidConnection(bluetoothGatt) : null;
+    }
+
+    private BluetoothGatt connectGattHelper(Context context, BluetoothDevice remoteDevice, boolean autoConnect, BluetoothGattCallback bluetoothGattCallback) {
+
+        if (remoteDevice == null) {
+            return null;
+        }
+
+        /*
+          This bug workaround was taken from the Polidea RxAndroidBle
+          Issue that caused a race condition mentioned below was fixed in 7.0.0_r1
+          https://android.googlesource.com/platform/frameworks/base/+/android-7.0.0_r1/core/java/android/bluetooth/BluetoothGatt.java#649
+          compared to
+          https://android.googlesource.com/platform/frameworks/base/+/android-6.0.1_r72/core/java/android/bluetooth/BluetoothGatt.java#739
+          issue: https://android.googlesource.com/platform/frameworks/base/+/d35167adcaa40cb54df8e392379dfdfe98bcdba2%5E%21/#F0
+          */
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N || !autoConnect) {
+            return connectGattCompat(context, bluetoothGattCallback, remoteDevice, autoConnect);
+        }
+
+        try {
+            Object iBluetoothGatt = getIBluetoothGatt(getIBluetoothManager());
+
+            if (iBluetoothGatt == null) {
+                //Timber.e("could not get iBluetoothGatt object");
+                return connectGattCompat(context, bluetoothGattCallback, remoteDevice, true);
+            }
+
+            BluetoothGatt bluetoothGatt = createBluetoothGatt(context, iBluetoothGatt, remoteDevice);
+
+            if (bluetoothGatt == null) {
+                //Timber.e("could not create BluetoothGatt object");
+                return connectGattCompat(context, bluetoothGattCallback, remoteDevice, true);
+            }
+
+            boolean connectedSuccessfully = connectUsingReflection(remoteDevice, bluetoothGatt, bluetoothGattCallback, true);
+
+            if (!connectedSuccessfully) {
+                //Timber.i("connection using reflection failed, closing gatt");
+                bluetoothGatt.close();
+            }
+
+            return bluetoothGatt;
+        } catch (NoSuchMethodException
+                | IllegalAccessException
+                | IllegalArgumentException
+                | InvocationTargetException
+                | InstantiationException
+                | NoSuchFieldException exception) {
+            //Timber.e("error during reflection");
+            return connectGattCompat(context, bluetoothGattCallback, remoteDevice, true);
+        }
+    }
+
+    private BluetoothGatt connectGattCompat(Context context, BluetoothGattCallback bluetoothGattCallback, BluetoothDevice device, boolean autoConnect) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return device.connectGatt(context, autoConnect, bluetoothGattCallback, TRANSPORT_LE);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Try to call connectGatt with TRANSPORT_LE parameter using reflection
+            try {
+                Method connectGattMethod = device.getClass().getMethod("connectGatt", Context.class, boolean.class, BluetoothGattCallback.class, int.class);
+                try {
+                    return (BluetoothGatt) connectGattMethod.invoke(device, context, autoConnect, bluetoothGattCallback, TRANSPORT_LE);
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                } catch (InvocationTargetException e) {
+                    e.printStackTrace();
+                }
+            } catch (NoSuchMethodException e) {
+                e.printStackTrace();
+            }
+        }
+        // Fallback on connectGatt without TRANSPORT_LE parameter
+        return device.connectGatt(context, autoConnect, bluetoothGattCallback);
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private boolean connectUsingReflection(BluetoothDevice device, BluetoothGatt bluetoothGatt, BluetoothGattCallback bluetoothGattCallback, boolean autoConnect)
+            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, NoSuchFieldException {
+        setAutoConnectValue(bluetoothGatt, autoConnect);
+        Method connectMethod = bluetoothGatt.getClass().getDeclaredMethod("connect", Boolean.class, BluetoothGattCallback.class);
+        connectMethod.setAccessible(true);
+        return (Boolean) (connectMethod.invoke(bluetoothGatt, true, bluetoothGattCallback));
+    }
+
+    private BluetoothGatt createBluetoothGatt(Context context, Object iBluetoothGatt, BluetoothDevice remoteDevice)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Constructor bluetoothGattConstructor = BluetoothGatt.class.getDeclaredConstructors()[0];
+        bluetoothGattConstructor.setAccessible(true);
+        if (bluetoothGattConstructor.getParameterTypes().length == 4) {
+            return (BluetoothGatt) (bluetoothGattConstructor.newInstance(context, iBluetoothGatt, remoteDevice, TRANSPORT_LE));
+        } else {
+            return (BluetoothGatt) (bluetoothGattConstructor.newInstance(context, iBluetoothGatt, remoteDevice));
+        }
+    }
+
+    private Object getIBluetoothGatt(Object iBluetoothManager)
+            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        if (iBluetoothManager == null) {
+            return null;
+        }
+
+        Method getBluetoothGattMethod = getMethodFromClass(iBluetoothManager.getClass(), "getBluetoothGatt");
+        return getBluetoothGattMethod.invoke(iBluetoothManager);
+    }
+
+    private Object getIBluetoothManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        if (bluetoothAdapter == null) {
+            return null;
+        }
+
+        Method getBluetoothManagerMethod = getMethodFromClass(bluetoothAdapter.getClass(), "getBluetoothManager");
+        return getBluetoothManagerMethod.invoke(bluetoothAdapter);
+    }
+
+    private Method getMethodFromClass(Class<?> cls, String methodName) throws NoSuchMethodException {
+        Method method = cls.getDeclaredMethod(methodName);
+        method.setAccessible(true);
+        return method;
+    }
+
+    private void setAutoConnectValue(BluetoothGatt bluetoothGatt, boolean autoConnect) throws NoSuchFieldException, IllegalAccessException {
+        Field autoConnectField = bluetoothGatt.getClass().getDeclaredField("mAutoConnect");
+        autoConnectField.setAccessible(true);
+        autoConnectField.setBoolean(bluetoothGatt, autoConnect);
+    }
+
+    /**
+     * {@link BluetoothTransport.Connection} on a {@link BluetoothGatt}.
+     */
+    private static final class AndroidConnection implements Connection {
+
+        private final BluetoothGatt bluetoothGatt;
+
+        AndroidConnection(BluetoothGatt bluetoothGatt) {
+            this.bluetoothGatt = bluetoothGatt;
+        }
+
+        @Override
+        public void disconnect() {
+            bluetoothGatt.disconnect();
+        }
+
+        @Override
+        public void close() {
+            bluetoothGatt.close();
+        }
+
+        @Override
+        public boolean discoverServices() {
+            return bluetoothGatt.discoverServices();
+        }
+
+        @Override
+        public List<BluetoothGattService> getServices() {
+            return bluetoothGatt.getServices();
+        }
+
+        @Override
+        public BluetoothGattService getService(UUID uuid) {
+            return bluetoothGatt.getService(uuid);
+        }
+
+        @Override
+        public boolean readCharacteristic(BluetoothGattCharacteristic characteristic) {
+            return bluetoothGatt.readCharacteristic(characteristic);
+        }
+
+        @Override
+        public boolean writeCharacteristic(BluetoothGattCharacteristic characteristic) {
+            return bluetoothGatt.writeCharacteristic(characteristic);
+        }
+
+        @Override
+        public boolean readDescriptor(BluetoothGattDescriptor descriptor) {
+            return bluetoothGatt.readDescriptor(descriptor);
+        }
+
+        @Override
+        public boolean writeDescriptor(BluetoothGattDescriptor descriptor) {
+            return bluetoothGatt.writeDescriptor(descriptor);
+        }
+
+        @Override
+        public boolean setCharacteristicNotification(BluetoothGattCharacteristic characteristic, boolean enable) {
+            return bluetoothGatt.setCharacteristicNotification(characteristic, enable);
+        }
+
+        @Override
+        public boolean readRemoteRssi() {
+            return bluetoothGatt.readRemoteRssi();
+        }
+
+        @Override
+        public boolean requestMtu(int mtu) {
+            return bluetoothGatt.requestMtu(mtu);
+        }
+
+        @Override
+        public boolean requestConnectionPriority(int connectionPriority) {
+            return bluetoothGatt.requestConnectionPriority(connectionPriority);
+        }
+
+        @Override
+        public void setPreferredPhy(int txPhy, int rxPhy, int phyOptions) {
+            bluetoothGatt.setPreferredPhy(txPhy, rxPhy, phyOptions);
+        }
+
+        @Override
+        public boolean refresh() {
+            boolean result = false;
+            try {
+                Method refreshMethod = bluetoothGatt.getClass().getMethod("refresh");
+                if (refreshMethod != null) {
+                    result = (boolean) refreshMethod.invoke(bluetoothGatt);
+                }
+            } catch (Exception e) {
+                //Timber.e("could not invoke refresh method");
+            }
+            return result;
+        }
+    }
+}
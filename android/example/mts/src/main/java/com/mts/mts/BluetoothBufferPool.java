@@ -0,0 +1,53 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Small pool of reusable byte arrays for building outgoing characteristic values.  BluetoothPeripheral copies a
+/// value when the write is queued, so a buffer can be released as soon as writeCharacteristic(...) returns.
+/// Capacities are powers of two of at least the requested size, so buffers sized for one MTU serve the next.
+/// Access is expected from the MTSService callback thread only.
+class BluetoothBufferPool {
+
+    // ATT payload of a single write is MTU - 3.
+    static final int kAttHeaderLength = 3;
+
+    private final byte[][] buffers;
+    private int count = 0;
+
+    BluetoothBufferPool(int capacity) {
+        buffers = new byte[capacity][];
+    }
+
+    /// Returns a buffer of at least minimumLength bytes, from the pool when one is large enough.
+    byte[] acquire(int minimumLength) {
+        for (int i = count - 1; i >= 0; i--) {
+            byte[] buffer = buffers[i];
+            if (buffer.length >= minimumLength) {
+                buffers[i] = buffers[--count];
+                buffers[count] = null;
+                return buffer;
+            }
+        }
+        return new byte[roundUpToPowerOfTwo(minimumLength)];
+    }
+
+    /// Returns a buffer large enough for one write at the given MTU and for minimumLength bytes.
+    byte[] acquireForMtu(int mtu, int minimumLength) {
+        return acquire(Math.max(mtu - kAttHeaderLength, minimumLength));
+    }
+
+    void release(byte[] buffer) {
+        if (null == buffer || count == buffers.length) {
+            return;
+        }
+        buffers[count++] = buffer;
+    }
+
+    private static int roundUpToPowerOfTwo(int length) {
+        if (length <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+}
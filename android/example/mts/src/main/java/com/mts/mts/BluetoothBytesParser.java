@@ -26,6 +26,7 @@
 
 package com.mts.mts;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
@@ -38,6 +39,9 @@ public class BluetoothBytesParser {
 
     private int offset = 0;
     private byte[] mValue;
+    // Bounds of the parsed slice of mValue; offsets stay absolute indexes into mValue.  -1 limit means mValue.length.
+    private int start = 0;
+    private int limit = -1;
     private ByteOrder byteOrder;
 
     /**
@@ -138,6 +142,37 @@ public class BluetoothBytesParser {
         this.byteOrder = byteOrder;
     }
 
+    /**
+     * Create a BluetoothBytesParser over a slice of a byte array without copying it. Parsing starts at offset
+     * and stops at offset + length; offsets passed to and returned from the parser remain indexes into value.
+     *
+     * @param value     the byte array
+     * @param offset    the first byte of the slice
+     * @param length    the number of bytes in the slice
+     * @param byteOrder the byte order, either LITTLE_ENDIAN or BIG_ENDIAN
+     */
+    public BluetoothBytesParser(byte[] value, int offset, int length, ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+        setValue(value, offset, length);
+    }
+
+    /**
+     * Create a BluetoothBytesParser over the remaining bytes of a ByteBuffer, using its byte order. Array backed
+     * buffers are parsed in place; direct buffers are copied once. The buffer's position is not changed.
+     *
+     * @param buffer the buffer to parse
+     */
+    public BluetoothBytesParser(ByteBuffer buffer) {
+        this.byteOrder = buffer.order();
+        if (buffer.hasArray()) {
+            setValue(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] value = new byte[buffer.remaining()];
+            buffer.duplicate().get(value);
+            setValue(value);
+        }
+    }
+
     /**
      * Return an Integer value of the specified type. This operation will automatically advance the internal offset to the next position.
      *
@@ -220,7 +255,7 @@ public class BluetoothBytesParser {
      * @return Cached value of the byte array or null of offset exceeds value size.
      */
     public Integer getIntValue(int formatType, int offset, ByteOrder byteOrder) {
-        if ((offset + getTypeLen(formatType)) > mValue.length) return null;
+        if ((offset + getTypeLen(formatType)) > limit()) return null;
 
         switch (formatType) {
             case FORMAT_UINT8:
@@ -263,6 +298,162 @@ public class BluetoothBytesParser {
         return null;
     }
 
+    /**
+     * Return true if at least length bytes are left after the internal offset.
+     *
+     * @param length the number of bytes that will be read next
+     * @return true if the next length bytes can be read, false for a negative length
+     */
+    public boolean hasRemaining(int length) {
+        return mValue != null && length >= 0 && offset >= start && length <= limit() - offset;
+    }
+
+    /**
+     * Get the number of bytes left after the internal offset.
+     */
+    public int getRemaining() {
+        return (mValue == null) ? 0 : Math.max(0, limit() - offset);
+    }
+
+    /**
+     * Return a uint8 value. This operation will automatically advance the internal offset to the next position.
+     *
+     * @return the value, 0 - 255
+     * @throws IndexOutOfBoundsException if fewer than 1 byte remains
+     */
+    public int getUInt8() {
+        checkRemaining(1);
+        return mValue[offset++] & 0xFF;
+    }
+
+    /**
+     * Return a sint8 value. This operation will automatically advance the internal offset to the next position.
+     *
+     * @throws IndexOutOfBoundsException if fewer than 1 byte remains
+     */
+    public int getSInt8() {
+        checkRemaining(1);
+        return mValue[offset++];
+    }
+
+    /**
+     * Return a uint16 value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @return the value, 0 - 65535
+     * @throws IndexOutOfBoundsException if fewer than 2 bytes remain
+     */
+    public int getUInt16() {
+        checkRemaining(2);
+        int result = bitsAt(offset, 2);
+        offset += 2;
+        return result;
+    }
+
+    /**
+     * Return a sint16 value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @throws IndexOutOfBoundsException if fewer than 2 bytes remain
+     */
+    public int getSInt16() {
+        return (short) getUInt16();
+    }
+
+    /**
+     * Return a uint32 value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @return the value as a long, 0 - 4294967295
+     * @throws IndexOutOfBoundsException if fewer than 4 bytes remain
+     */
+    public long getUInt32() {
+        return getSInt32() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Return a sint32 value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @throws IndexOutOfBoundsException if fewer than 4 bytes remain
+     */
+    public int getSInt32() {
+        checkRemaining(4);
+        int result = bitsAt(offset, 4);
+        offset += 4;
+        return result;
+    }
+
+    /**
+     * Return an sfloat (16-bit float) value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @throws IndexOutOfBoundsException if fewer than 2 bytes remain
+     */
+    public float getSFloat() {
+        checkRemaining(2);
+        int bits = bitsAt(offset, 2);
+        offset += 2;
+        return sfloatFromBits(bits);
+    }
+
+    /**
+     * Return a float (32-bit float) value in the parser's byte order. This operation will automatically advance the internal offset to the next position.
+     *
+     * @throws IndexOutOfBoundsException if fewer than 4 bytes remain
+     */
+    public float getFloat() {
+        checkRemaining(4);
+        int bits = bitsAt(offset, 4);
+        offset += 4;
+        return floatFromBits(bits);
+    }
+
+    /**
+     * Decode count consecutive sfloat (16-bit float) values in the parser's byte order into destination, for
+     * characteristics carrying a series of measurements. This operation will automatically advance the internal offset past the values.
+     *
+     * @param destination       array receiving the values
+     * @param destinationOffset index in destination of the first value
+     * @param count             number of values to decode
+     * @throws IndexOutOfBoundsException if fewer than 2 * count bytes remain, or destination is too small
+     */
+    public void getSFloats(float[] destination, int destinationOffset, int count) {
+        checkBulk(destination, destinationOffset, count, 2);
+        int o = offset;
+        if (byteOrder == LITTLE_ENDIAN) {
+            for (int i = 0; i < count; i++, o += 2) {
+                destination[destinationOffset + i] = sfloatFromBits((mValue[o] & 0xFF) | ((mValue[o + 1] & 0xFF) << 8));
+            }
+        } else {
+            for (int i = 0; i < count; i++, o += 2) {
+                destination[destinationOffset + i] = sfloatFromBits(((mValue[o] & 0xFF) << 8) | (mValue[o + 1] & 0xFF));
+            }
+        }
+        offset = o;
+    }
+
+    /**
+     * Decode count consecutive float (32-bit float) values in the parser's byte order into destination, for
+     * characteristics carrying a series of measurements. This operation will automatically advance the internal offset past the values.
+     *
+     * @param destination       array receiving the values
+     * @param destinationOffset index in destination of the first value
+     * @param count             number of values to decode
+     * @throws IndexOutOfBoundsException if fewer than 4 * count bytes remain, or destination is too small
+     */
+    public void getFloats(float[] destination, int destinationOffset, int count) {
+        checkBulk(destination, destinationOffset, count, 4);
+        int o = offset;
+        if (byteOrder == LITTLE_ENDIAN) {
+            for (int i = 0; i < count; i++, o += 4) {
+                destination[destinationOffset + i] = floatFromBits((mValue[o] & 0xFF) | ((mValue[o + 1] & 0xFF) << 8)
+                        | ((mValue[o + 2] & 0xFF) << 16) | (mValue[o + 3] << 24));
+            }
+        } else {
+            for (int i = 0; i < count; i++, o += 4) {
+                destination[destinationOffset + i] = floatFromBits((mValue[o] << 24) | ((mValue[o + 1] & 0xFF) << 16)
+                        | ((mValue[o + 2] & 0xFF) << 8) | (mValue[o + 3] & 0xFF));
+            }
+        }
+        offset = o;
+    }
+
     /**
      * Return a float value of the specified format. This operation will automatically advance the internal offset to the next position.
      *
@@ -296,22 +487,22 @@ public class BluetoothBytesParser {
      * @return The float value at the position of the internal offset
      */
     public Float getFloatValue(int formatType, int offset, ByteOrder byteOrder) {
-        if ((offset + getTypeLen(formatType)) > mValue.length) return null;
+        if ((offset + getTypeLen(formatType)) > limit()) return null;
 
         switch (formatType) {
             case FORMAT_SFLOAT:
                 if (byteOrder == LITTLE_ENDIAN)
-                    return bytesToFloat(mValue[offset], mValue[offset + 1]);
+                    return sfloatFromBits(unsignedBytesToInt(mValue[offset], mValue[offset + 1]));
                 else
-                    return bytesToFloat(mValue[offset + 1], mValue[offset]);
+                    return sfloatFromBits(unsignedBytesToInt(mValue[offset + 1], mValue[offset]));
 
             case FORMAT_FLOAT:
                 if (byteOrder == LITTLE_ENDIAN)
-                    return bytesToFloat(mValue[offset], mValue[offset + 1],
-                            mValue[offset + 2], mValue[offset + 3]);
+                    return floatFromBits(unsignedBytesToInt(mValue[offset], mValue[offset + 1],
+                            mValue[offset + 2], mValue[offset + 3]));
                 else
-                    return bytesToFloat(mValue[offset + 3], mValue[offset + 2],
-                            mValue[offset + 1], mValue[offset]);
+                    return floatFromBits(unsignedBytesToInt(mValue[offset + 3], mValue[offset + 2],
+                            mValue[offset + 1], mValue[offset]));
         }
 
         return null;
@@ -334,18 +525,84 @@ public class BluetoothBytesParser {
      */
     public String getStringValue(int offset) {
         // Check if there are enough bytes to parse
-        if (mValue == null || offset > mValue.length) return null;
-
-        // Copy all bytes
-        byte[] strBytes = new byte[mValue.length - offset];
-        for (int i = 0; i != (mValue.length - offset); ++i) strBytes[i] = mValue[offset + i];
+        if (mValue == null || offset > limit()) return null;
 
         // Get rid of trailing zero/space bytes
-        int j = strBytes.length;
-        while (j > 0 && (strBytes[j - 1] == 0 || strBytes[j - 1] == 0x20)) j--;
+        int j = limit();
+        while (j > offset && (mValue[j - 1] == 0 || mValue[j - 1] == 0x20)) j--;
+
+        // Convert to string straight from the backing array
+        return new String(mValue, offset, j - offset, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Return a UTF-8 string of up to length bytes, ending at the first null byte. This operation will automatically
+     * advance the internal offset by length, so fixed size fields such as utf8s[41] can be read in sequence.
+     *
+     * @param length the size of the field in bytes
+     * @return the decoded string
+     * @throws IndexOutOfBoundsException if fewer than length bytes remain
+     */
+    public String getUtf8String(int length) {
+        checkRemaining(length);
+        int end = utf8End(offset, length);
+        String result = new String(mValue, offset, end - offset, StandardCharsets.UTF_8);
+        offset += length;
+        return result;
+    }
 
-        // Convert to string
-        return new String(strBytes, 0, j, StandardCharsets.ISO_8859_1);
+    /**
+     * Append a UTF-8 string of up to length bytes, ending at the first null byte, to destination. Decodes straight
+     * from the backing array and allocates nothing unless destination has to grow. This operation will automatically
+     * advance the internal offset by length. Malformed sequences are appended as U+FFFD.
+     *
+     * @param length      the size of the field in bytes
+     * @param destination the builder to append to, typically reused across notifications
+     * @return the number of chars appended
+     * @throws IndexOutOfBoundsException if fewer than length bytes remain
+     */
+    public int getUtf8String(int length, StringBuilder destination) {
+        checkRemaining(length);
+        int end = utf8End(offset, length);
+        int appended = destination.length();
+        int i = offset;
+        while (i < end) {
+            int b0 = mValue[i] & 0xFF;
+            int codePoint;
+            int size;
+            if (b0 < 0x80) {
+                codePoint = b0;
+                size = 1;
+            } else if (b0 >= 0xC2 && b0 < 0xE0) {
+                codePoint = b0 & 0x1F;
+                size = 2;
+            } else if (b0 >= 0xE0 && b0 < 0xF0) {
+                codePoint = b0 & 0x0F;
+                size = 3;
+            } else if (b0 >= 0xF0 && b0 < 0xF5) {
+                codePoint = b0 & 0x07;
+                size = 4;
+            } else {
+                destination.append('\uFFFD');
+                i++;
+                continue;
+            }
+            int j = 1;
+            while (j < size && i + j < end && (mValue[i + j] & 0xC0) == 0x80) {
+                codePoint = (codePoint << 6) | (mValue[i + j] & 0x3F);
+                j++;
+            }
+            boolean isOverlong = (size == 3 && codePoint < 0x800) || (size == 4 && codePoint < 0x10000);
+            if (j < size || isOverlong || codePoint > 0x10FFFF || (codePoint >= 0xD800 && codePoint < 0xE000)) {
+                destination.append('\uFFFD');
+                i += j;
+                continue;
+            }
+            destination.appendCodePoint(codePoint);
+            i += size;
+        }
+        offset += length;
+        return destination.length() - appended;
     }
 
     /**
@@ -388,12 +645,41 @@ public class BluetoothBytesParser {
     /**
      * Get the byte array
      *
-     * @return the complete byte array
+     * @return the complete byte array. This is the backing array when it holds exactly the value, otherwise a copy; use asReadOnlyBuffer() or getBackingArray() with getLength() to avoid the copy.
      */
     public byte[] getValue() {
+        if (mValue != null && (start != 0 || limit() != mValue.length)) {
+            // Encoding left spare capacity, or this is a slice.
+            return copyValue();
+        }
         return mValue;
     }
 
+    /**
+     * Get the backing array. Only the getLength() bytes from the start of the slice are part of the value.
+     */
+    public byte[] getBackingArray() {
+        return mValue;
+    }
+
+    /**
+     * Get a copy of the parsed bytes, from the start of the slice to its end.
+     */
+    public byte[] copyValue() {
+        if (mValue == null) return null;
+        byte[] copy = new byte[limit() - start];
+        System.arraycopy(mValue, start, copy, 0, copy.length);
+        return copy;
+    }
+
+    /**
+     * Get a read only view of the parsed bytes in the parser's byte order, without copying them.
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        if (mValue == null) return null;
+        return ByteBuffer.wrap(mValue, start, limit() - start).slice().asReadOnlyBuffer().order(byteOrder);
+    }
+
     /**
      * Set the locally stored value of this byte array
      *
@@ -569,8 +855,7 @@ public class BluetoothBytesParser {
      */
     public boolean setString(String value) {
         if (value != null) {
-            setString(value, offset);
-            offset += value.getBytes().length;
+            offset += putBytes(value.getBytes(), offset);
             return true;
         }
         return false;
@@ -585,14 +870,54 @@ public class BluetoothBytesParser {
      */
     public boolean setString(String value, int offset) {
         if (value != null) {
-            prepareArray(offset + value.length());
-            byte[] valueBytes = value.getBytes();
-            System.arraycopy(valueBytes, 0, mValue, offset, valueBytes.length);
+            putBytes(value.getBytes(), offset);
             return true;
         }
         return false;
     }
 
+    /**
+     * Set byte array to bytes at current offset
+     *
+     * @param value  bytes to be added to byte array
+     * @param from   first byte of value to add
+     * @param length number of bytes to add
+     * @return true if the locally stored value has been set
+     */
+    public boolean setBytes(byte[] value, int from, int length) {
+        if (value == null) return false;
+        prepareArray(offset + length);
+        System.arraycopy(value, from, mValue, offset, length);
+        offset += length;
+        return true;
+    }
+
+    private int putBytes(byte[] valueBytes, int offset) {
+        prepareArray(offset + valueBytes.length);
+        System.arraycopy(valueBytes, 0, mValue, offset, valueBytes.length);
+        return valueBytes.length;
+    }
+
+    /**
+     * Encode into buffer from its start, e.g. a buffer from BluetoothBufferPool. The parser grows into a new array
+     * only if a write runs past buffer's capacity; getLength() is the size of the encoded value.
+     *
+     * @param buffer the array to encode into, its contents are overwritten
+     */
+    public void reset(byte[] buffer) {
+        mValue = buffer;
+        start = 0;
+        limit = 0;
+        offset = 0;
+    }
+
+    /**
+     * Get the number of bytes parsed or encoded, from the start of the slice to its end.
+     */
+    public int getLength() {
+        return limit() - start;
+    }
+
 
     /**
      * Set the locally stored value of this byte array.
@@ -601,6 +926,26 @@ public class BluetoothBytesParser {
      */
     public void setValue(byte[] value) {
         mValue = value;
+        start = 0;
+        limit = -1;
+    }
+
+    /**
+     * Parse a slice of a byte array without copying it, and move the internal offset to its start.
+     * Lets one parser be reused for every notification.
+     *
+     * @param value  the byte array
+     * @param offset the first byte of the slice
+     * @param length the number of bytes in the slice
+     */
+    public void setValue(byte[] value, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > value.length) {
+            throw new IndexOutOfBoundsException("slice " + offset + "+" + length + " of " + value.length + " bytes");
+        }
+        mValue = value;
+        start = offset;
+        limit = offset + length;
+        this.offset = offset;
     }
 
     /**
@@ -611,7 +956,7 @@ public class BluetoothBytesParser {
      */
     public boolean setCurrentTime(Calendar calendar) {
         if (calendar == null) return false;
-        mValue = new byte[10];
+        setValue(new byte[10]);
         mValue[0] = (byte) calendar.get(Calendar.YEAR);
         mValue[1] = (byte) (calendar.get(Calendar.YEAR) >> 8);
         mValue[2] = (byte) (calendar.get(Calendar.MONTH) + 1);
@@ -633,7 +978,7 @@ public class BluetoothBytesParser {
      */
     public boolean setDateTime(Calendar calendar) {
         if (calendar == null) return false;
-        mValue = new byte[7];
+        setValue(new byte[7]);
         mValue[0] = (byte) calendar.get(Calendar.YEAR);
         mValue[1] = (byte) (calendar.get(Calendar.YEAR) >> 8);
         mValue[2] = (byte) (calendar.get(Calendar.MONTH) + 1);
@@ -651,6 +996,59 @@ public class BluetoothBytesParser {
         return formatType & 0xF;
     }
 
+    /**
+     * Returns the exclusive end of the parsed bytes.
+     */
+    private int limit() {
+        if (mValue == null) return 0;
+        return (limit < 0) ? mValue.length : limit;
+    }
+
+    /**
+     * Returns the index of the first null byte in the length bytes at offset, or offset + length if there is none.
+     */
+    private int utf8End(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && mValue[end] != 0) end++;
+        return end;
+    }
+
+    /**
+     * Throw if fewer than length bytes remain after the internal offset.
+     */
+    private void checkRemaining(int length) {
+        if (!hasRemaining(length)) {
+            throw new IndexOutOfBoundsException("need " + length + " bytes at offset " + offset + ", have " + getRemaining());
+        }
+    }
+
+    /**
+     * Check the bounds of a bulk decode of count values of size bytes each.
+     */
+    private void checkBulk(float[] destination, int destinationOffset, int count, int size) {
+        if (count < 0 || destinationOffset < 0 || destinationOffset + count > destination.length) {
+            throw new IndexOutOfBoundsException("count " + count + " at index " + destinationOffset + " for " + destination.length + " values");
+        }
+        checkRemaining(count * size);
+    }
+
+    /**
+     * Assemble length (2 or 4) bytes at offset in the parser's byte order, least significant byte first in the result.
+     */
+    private int bitsAt(int offset, int length) {
+        int bits = 0;
+        if (byteOrder == LITTLE_ENDIAN) {
+            for (int i = length - 1; i >= 0; i--) {
+                bits = (bits << 8) | (mValue[offset + i] & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                bits = (bits << 8) | (mValue[offset + i] & 0xFF);
+            }
+        }
+        return bits;
+    }
+
     /**
      * Convert a signed byte to an unsigned int.
      */
@@ -674,23 +1072,50 @@ public class BluetoothBytesParser {
     }
 
     /**
-     * Convert signed bytes to a 16-bit short float value.
+     * Powers of ten for the float exponent range -128..127, at index exponent + 128. Computed with Math.pow so
+     * lookups give the same results as calling it per value.
+     */
+    private static final double[] POWERS_OF_TEN = new double[256];
+
+    static {
+        for (int exponent = -128; exponent < 128; exponent++) {
+            POWERS_OF_TEN[exponent + 128] = Math.pow(10, exponent);
+        }
+    }
+
+    /**
+     * IEEE 11073-20601 special values, indexed by the raw value minus +INFINITY (0x07FE for sfloat, 0x007FFFFE for
+     * float): +INFINITY, NaN, NRes, reserved, -INFINITY. NRes (not at this resolution) and reserved read as NaN.
      */
-    private float bytesToFloat(byte b0, byte b1) {
-        int mantissa = unsignedToSigned(unsignedByteToInt(b0)
-                + ((unsignedByteToInt(b1) & 0x0F) << 8), 12);
-        int exponent = unsignedToSigned(unsignedByteToInt(b1) >> 4, 4);
-        return (float) (mantissa * Math.pow(10, exponent));
+    private static final float[] SPECIAL_VALUES = {
+            Float.POSITIVE_INFINITY, Float.NaN, Float.NaN, Float.NaN, Float.NEGATIVE_INFINITY
+    };
+
+    /**
+     * Convert the 16 bits of an sfloat, least significant byte first, to a float value.
+     */
+    private static float sfloatFromBits(int bits) {
+        // Special values all have a 0 exponent, so one range check on the raw value finds them.
+        int special = (bits & 0xFFFF) - 0x07FE;
+        if (special >= 0 && special < SPECIAL_VALUES.length) {
+            return SPECIAL_VALUES[special];
+        }
+        int mantissa = (bits << 20) >> 20;
+        int exponent = (bits << 16) >> 28;
+        return (float) (mantissa * POWERS_OF_TEN[exponent + 128]);
     }
 
     /**
-     * Convert signed bytes to a 32-bit short float value.
+     * Convert the 32 bits of a float, least significant byte first, to a float value.
      */
-    private float bytesToFloat(byte b0, byte b1, byte b2, byte b3) {
-        int mantissa = unsignedToSigned(unsignedByteToInt(b0)
-                + (unsignedByteToInt(b1) << 8)
-                + (unsignedByteToInt(b2) << 16), 24);
-        return (float) (mantissa * Math.pow(10, b3));
+    private static float floatFromBits(int bits) {
+        int special = bits - 0x007FFFFE;
+        if (special >= 0 && special < SPECIAL_VALUES.length) {
+            return SPECIAL_VALUES[special];
+        }
+        int mantissa = (bits << 8) >> 8;
+        int exponent = bits >> 24;
+        return (float) (mantissa * POWERS_OF_TEN[exponent + 128]);
     }
 
     /**
@@ -723,11 +1148,7 @@ public class BluetoothBytesParser {
     public static String bytes2String(final byte[] bytes) {
         if (bytes == null) return "-";
 
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b & 0xff));
-        }
-        return sb.toString();
+        return MTSHex.toHex(bytes, 0, bytes.length, false);
     }
 
     /**
@@ -776,14 +1197,21 @@ public class BluetoothBytesParser {
     private void prepareArray(int neededLength) {
         if (mValue == null) mValue = new byte[neededLength];
         if (neededLength > mValue.length) {
-            byte[] largerByteArray = new byte[neededLength];
+            // Grow geometrically so a sequence of writes costs amortized O(1) copies; limit keeps the value's length.
+            int end = limit();
+            byte[] largerByteArray = new byte[Math.max(neededLength, mValue.length * 2)];
             System.arraycopy(mValue, 0, largerByteArray, 0, mValue.length);
             mValue = largerByteArray;
+            limit = end;
         }
+        if (limit >= 0 && neededLength > limit) limit = neededLength;
     }
 
     @Override
     public String toString() {
-        return bytes2String(mValue);
+        if (mValue == null) return "-";
+
+        // Only the parsed range, not spare capacity or bytes outside a slice.
+        return MTSHex.toHex(mValue, start, limit() - start, false);
     }
 }
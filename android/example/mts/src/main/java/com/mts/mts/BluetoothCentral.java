@@ -29,15 +29,11 @@ package com.mts.mts;
 import android.Manifest;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.bluetooth.le.BluetoothLeScanner;
 import android.bluetooth.le.ScanCallback;
 import android.bluetooth.le.ScanFilter;
 import android.bluetooth.le.ScanResult;
 import android.bluetooth.le.ScanSettings;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Handler;
@@ -53,6 +49,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -64,8 +61,9 @@ public class BluetoothCentral {
     // Private constants
     private static final long SCAN_TIMEOUT = 180_000L;
     private static final int SCAN_RESTART_DELAY = 1000;
-    private static final int MAX_CONNECTION_RETRIES = 1;
     private static final int MAX_CONNECTED_PERIPHERALS = 7;
+    private static final int SCAN_RESULT_RING_CAPACITY = 256;
+    private static final int SCAN_RESULT_DRAIN_BATCH = 32;
 
     /**
      * Failed to start scan as BLE scan with the same settings is already started by the app.
@@ -101,9 +99,8 @@ public class BluetoothCentral {
     // Private variables
     private final Context context;
     private final Handler callBackHandler;
-    private final BluetoothAdapter bluetoothAdapter;
-    private BluetoothLeScanner bluetoothScanner;
-    private BluetoothLeScanner autoConnectScanner;
+    private final BluetoothTransport transport;
+    private boolean isAutoConnectScanning;
     private final BluetoothCentralCallback bluetoothCentralCallback;
     private final Map<String, BluetoothPeripheral> connectedPeripherals = new ConcurrentHashMap<>();
     private final Map<String, BluetoothPeripheral> unconnectedPeripherals = new ConcurrentHashMap<>();
@@ -118,33 +115,26 @@ public class BluetoothCentral {
     private List<ScanFilter> currentFilters;
     private ScanSettings scanSettings;
     private final ScanSettings autoConnectScanSettings;
+    private final BluetoothConnectionTimeouts connectionTimeouts;
     private final Map<String, Integer> connectionRetries = new ConcurrentHashMap<>();
     private boolean expectingBluetoothOffDisconnects = false;
     private Runnable disconnectRunnable;
     private Map<String, String> pinCodes = new ConcurrentHashMap<>();
+    private final BluetoothScanResultRing scanResultRing = new BluetoothScanResultRing(SCAN_RESULT_RING_CAPACITY);
+    private final AtomicBoolean isScanResultDrainScheduled = new AtomicBoolean(false);
 
     //region Callbacks
 
     private final ScanCallback scanByNameCallback = new ScanCallback() {
         @Override
         public void onScanResult(int callbackType, final ScanResult result) {
-            synchronized (this) {
-                String deviceName = result.getDevice().getName();
-                if (deviceName == null) return;
-
-                for (String name : scanPeripheralNames) {
-                    if (deviceName.contains(name)) {
-                        callBackHandler.post(new Runnable() {
-                            @Override
-                            public void run() {
-                                if (isScanning()) {
-                                    BluetoothPeripheral peripheral = new BluetoothPeripheral(context, result.getDevice(), internalCallback, null, callBackHandler);
-                                    bluetoothCentralCallback.onDiscoveredPeripheral(peripheral, result);
-                                }
-                            }
-                        });
-                        return;
-                    }
+            String deviceName = result.getDevice().getName();
+            if (deviceName == null) return;
+
+            for (String name : scanPeripheralNames) {
+                if (deviceName.contains(name)) {
+                    enqueueScanResult(result);
+                    return;
                 }
             }
         }
@@ -164,17 +154,7 @@ public class BluetoothCentral {
     private final ScanCallback scanByServiceUUIDCallback = new ScanCallback() {
         @Override
         public void onScanResult(int callbackType, final ScanResult result) {
-            synchronized (this) {
-                callBackHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (isScanning()) {
-                            BluetoothPeripheral peripheral = new BluetoothPeripheral(context, result.getDevice(), internalCallback, null, callBackHandler);
-                            bluetoothCentralCallback.onDiscoveredPeripheral(peripheral, result);
-                        }
-                    }
-                });
-            }
+            enqueueScanResult(result);
         }
 
         @Override
@@ -226,10 +206,49 @@ public class BluetoothCentral {
         }
     };
 
+    /**
+     * Hand a scan result to the callback thread. Called from the scan callback (the single producer), results
+     * are drained on callBackHandler in batches of SCAN_RESULT_DRAIN_BATCH with one posted Runnable per batch.
+     */
+    private void enqueueScanResult(ScanResult result) {
+        if (!scanResultRing.offer(result)) {
+            //Timber.w("scan result ring full, dropped %d results", scanResultRing.droppedCount());
+            return;
+        }
+        if (isScanResultDrainScheduled.compareAndSet(false, true)) {
+            callBackHandler.post(drainScanResultsRunnable);
+        }
+    }
+
+    private final Runnable drainScanResultsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Clear first: a result offered from here on schedules another drain.
+            isScanResultDrainScheduled.set(false);
+            for (int i = 0; i < SCAN_RESULT_DRAIN_BATCH; i++) {
+                ScanResult result = scanResultRing.poll();
+                if (result == null) {
+                    return;
+                }
+                if (isScanning()) {
+                    BluetoothPeripheral peripheral = new BluetoothPeripheral(context, result.getDevice(), internalCallback, null, callBackHandler, transport);
+                    bluetoothCentralCallback.onDiscoveredPeripheral(peripheral, result);
+                }
+            }
+            // Yield to other callbacks between batches.
+            if (!scanResultRing.isEmpty() && isScanResultDrainScheduled.compareAndSet(false, true)) {
+                callBackHandler.post(this);
+            }
+        }
+    };
+
     private final BluetoothPeripheral.InternalCallback internalCallback = new BluetoothPeripheral.InternalCallback() {
 
         @Override
         public void connected(final BluetoothPeripheral peripheral) {
+            if (!peripheral.isAutoConnecting()) {
+                connectionTimeouts.recordSuccess(peripheral.getAddress(), peripheral.getConnectionLatency());
+            }
             connectionRetries.remove(peripheral.getAddress());
             unconnectedPeripherals.remove(peripheral.getAddress());
             connectedPeripherals.put(peripheral.getAddress(), peripheral);
@@ -248,6 +267,11 @@ public class BluetoothCentral {
         @Override
         public void connectFailed(final BluetoothPeripheral peripheral, final int status) {
             unconnectedPeripherals.remove(peripheral.getAddress());
+            boolean isTimeout = status == BluetoothPeripheral.GATT_CONN_TIMEOUT;
+            int timedOutAfter = isTimeout ? peripheral.getConnectionTimeout() : 0;
+            if (!peripheral.isAutoConnecting()) {
+                connectionTimeouts.recordFailure(peripheral.getAddress(), timedOutAfter);
+            }
 
             // Get the number of retries for this peripheral
             int nrRetries = 0;
@@ -256,15 +280,24 @@ public class BluetoothCentral {
                 if (retries != null) nrRetries = retries;
             }
 
-            // Retry connection or conclude the connection has failed
-            if (nrRetries < MAX_CONNECTION_RETRIES && status != BluetoothPeripheral.GATT_CONN_TIMEOUT) {
+            // Retry connection or conclude the connection has failed.  A timeout is only worth retrying
+            // when it was a learned (short) one, default timeouts have already cost 35 seconds.
+            int retryBudget = connectionTimeouts.retryBudget(peripheral.getAddress());
+            if (nrRetries < retryBudget && (!isTimeout || timedOutAfter < BluetoothConnectionTimeouts.kMaximumTimeout)) {
                 //Timber.i("retrying connection to '%s' (%s)", peripheral.getName(), peripheral.getAddress());
                 nrRetries++;
                 connectionRetries.put(peripheral.getAddress(), nrRetries);
                 unconnectedPeripherals.put(peripheral.getAddress(), peripheral);
 
-                // Retry with autoconnect
-                peripheral.autoConnect();
+                if (isTimeout) {
+                    // Retry directly, autoconnect never times out.  Each retry waits twice as long, and the
+                    // last one gets the default timeout, in case the learned one is too short for this terminal.
+                    peripheral.setConnectionTimeout(BluetoothConnectionTimeouts.retryTimeout(timedOutAfter, nrRetries == retryBudget));
+                    peripheral.connect();
+                } else {
+                    // Retry with autoconnect
+                    peripheral.autoConnect();
+                }
             } else {
                 //Timber.i("connection to '%s' (%s) failed", peripheral.getName(), peripheral.getAddress());
                 callBackHandler.post(new Runnable() {
@@ -310,6 +343,18 @@ public class BluetoothCentral {
      * @param handler                  Handler to use for callbacks.
      */
     public BluetoothCentral(Context context, BluetoothCentralCallback bluetoothCentralCallback, Handler handler) {
+        this(context, bluetoothCentralCallback, handler, null);
+    }
+
+    /**
+     * Construct a new BluetoothCentral object on a specific radio
+     *
+     * @param context                  Android application environment.
+     * @param bluetoothCentralCallback the callback to call for updates
+     * @param handler                  Handler to use for callbacks.
+     * @param transport                Radio to scan and connect with, null for the device's Bluetooth adapter.
+     */
+    public BluetoothCentral(Context context, BluetoothCentralCallback bluetoothCentralCallback, Handler handler, BluetoothTransport transport) {
         if (context == null) {
             //Timber.e("context is 'null', cannot create BluetoothCentral");
         }
@@ -319,7 +364,8 @@ public class BluetoothCentral {
         this.context = context;
         this.bluetoothCentralCallback = bluetoothCentralCallback;
         this.callBackHandler = (handler != null) ? handler : new Handler();
-        this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        this.transport = (transport != null) ? transport : new AndroidBluetoothTransport();
+        this.connectionTimeouts = new BluetoothConnectionTimeouts(context);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             this.autoConnectScanSettings = new ScanSettings.Builder()
                     .setScanMode(ScanSettings.SCAN_MODE_LOW_POWER)
@@ -336,11 +382,8 @@ public class BluetoothCentral {
         }
         setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY);
 
-        // Register for broadcasts on BluetoothAdapter state change
-        IntentFilter filter = new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED);
-        if (context != null) {
-            context.registerReceiver(adapterStateReceiver, filter);
-        }
+        // Register for BluetoothAdapter state changes
+        this.transport.registerAdapterStateCallback(context, adapterStateCallback);
     }
 
     /**
@@ -351,9 +394,7 @@ public class BluetoothCentral {
         connectedPeripherals.clear();
         reconnectCallbacks.clear();
         reconnectPeripheralAddresses.clear();
-        if (context != null) {
-            context.unregisterReceiver(adapterStateReceiver);
-        }
+        transport.unregisterAdapterStateCallback(context, adapterStateCallback);
     }
 
     /**
@@ -399,20 +440,15 @@ public class BluetoothCentral {
             stopScan();
         }
 
-        // Get a new scanner object
-        if (bluetoothScanner == null) {
-            bluetoothScanner = bluetoothAdapter.getBluetoothLeScanner();
-        }
-
-        // If get scanner was succesful, start the scan
-        if (bluetoothScanner != null) {
-            // Start the scanner
+        // Start the scanner
+        currentCallback = scanCallback;
+        currentFilters = filters;
+        if (transport.startScan(filters, scanSettings, scanCallback)) {
             setScanTimer();
-            currentCallback = scanCallback;
-            currentFilters = filters;
-            bluetoothScanner.startScan(filters, scanSettings, scanCallback);
             //Timber.i("scan started");
         } else {
+            currentCallback = null;
+            currentFilters = null;
             //Timber.e("starting scan failed");
         }
     }
@@ -489,24 +525,22 @@ public class BluetoothCentral {
         if (!isBleReady()) return;
 
         // Stop previous autoconnect scans if any
-        if (autoConnectScanner != null) {
+        if (isAutoConnectScanning) {
             stopAutoconnectScan();
         }
 
-        // Start the scanner
-        autoConnectScanner = bluetoothAdapter.getBluetoothLeScanner();
-        if (autoConnectScanner != null) {
-            List<ScanFilter> filters;
-            filters = new ArrayList<>();
-            for (String address : reconnectPeripheralAddresses) {
-                ScanFilter filter = new ScanFilter.Builder()
-                        .setDeviceAddress(address)
-                        .build();
-                filters.add(filter);
-            }
+        List<ScanFilter> filters;
+        filters = new ArrayList<>();
+        for (String address : reconnectPeripheralAddresses) {
+            ScanFilter filter = new ScanFilter.Builder()
+                    .setDeviceAddress(address)
+                    .build();
+            filters.add(filter);
+        }
 
-            // Start the scanner
-            autoConnectScanner.startScan(filters, autoConnectScanSettings, autoConnectScanCallback);
+        // Start the scanner
+        if (transport.startScan(filters, autoConnectScanSettings, autoConnectScanCallback)) {
+            isAutoConnectScanning = true;
             //Timber.d("started scanning to autoconnect peripherals (" + reconnectPeripheralAddresses.size() + ")");
             setAutoConnectTimer();
         } else {
@@ -516,15 +550,15 @@ public class BluetoothCentral {
 
     private void stopAutoconnectScan() {
         cancelAutoConnectTimer();
-        if (autoConnectScanner != null) {
-            autoConnectScanner.stopScan(autoConnectScanCallback);
-            autoConnectScanner = null;
+        if (isAutoConnectScanning) {
+            transport.stopScan(autoConnectScanCallback);
+            isAutoConnectScanning = false;
             //Timber.i("autoscan stopped");
         }
     }
 
     private boolean isAutoScanning() {
-        return autoConnectScanner != null;
+        return isAutoConnectScanning;
     }
 
     /**
@@ -540,22 +574,44 @@ public class BluetoothCentral {
         if (!isBleReady()) return;
 
         if (isScanning()) {
-            bluetoothScanner.stopScan(currentCallback);
+            transport.stopScan(currentCallback);
             //Timber.i("scan stopped");
         } else {
             //Timber.i("no scan to stop because no scan is running");
         }
         currentCallback = null;
         currentFilters = null;
+        clearScanResults();
     }
 
+    /**
+     * Drop the results of the stopped scan that were not delivered yet, so a new scan does not deliver them.
+     * The ring is only polled on the callback thread.
+     */
+    private void clearScanResults() {
+        if (Looper.myLooper() == callBackHandler.getLooper()) {
+            scanResultRing.clear();
+        } else {
+            callBackHandler.post(clearScanResultsRunnable);
+        }
+    }
+
+    private final Runnable clearScanResultsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!isScanning()) {
+                scanResultRing.clear();
+            }
+        }
+    };
+
     /**
      * Check if a scanning is active
      *
      * @return true if a scan is active, otherwise false
      */
     public boolean isScanning() {
-        return (bluetoothScanner != null && currentCallback != null);
+        return currentCallback != null;
     }
 
     /**
@@ -599,6 +655,7 @@ public class BluetoothCentral {
 
             // It is all looking good! Set the callback and prepare to connect
             peripheral.setPeripheralCallback(peripheralCallback);
+            peripheral.setConnectionTimeout(connectionTimeouts.connectionTimeout(peripheral.getAddress()));
             unconnectedPeripherals.put(peripheral.getAddress(), peripheral);
 
             // Now connect
@@ -792,7 +849,7 @@ public class BluetoothCentral {
         } else if (unconnectedPeripherals.containsKey(peripheralAddress)) {
             return unconnectedPeripherals.get(peripheralAddress);
         } else {
-            return new BluetoothPeripheral(context, bluetoothAdapter.getRemoteDevice(peripheralAddress), internalCallback, null, callBackHandler);
+            return new BluetoothPeripheral(context, transport.getRemoteDevice(peripheralAddress), internalCallback, null, callBackHandler, transport);
         }
     }
 
@@ -815,7 +872,7 @@ public class BluetoothCentral {
     }
 
     private boolean isBleSupported() {
-        if (bluetoothAdapter != null && context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_BLUETOOTH_LE)) {
+        if (transport.isSupported() && context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_BLUETOOTH_LE)) {
             return true;
         }
 
@@ -824,7 +881,7 @@ public class BluetoothCentral {
     }
 
     private boolean isBleEnabled() {
-        if (bluetoothAdapter.isEnabled()) {
+        if (transport.isEnabled()) {
             return true;
         }
         //Timber.e("Bluetooth disabled");
@@ -899,9 +956,9 @@ public class BluetoothCentral {
                 //Timber.d("autoconnect scan timeout, restarting scan");
 
                 // Stop previous autoconnect scans if any
-                if (autoConnectScanner != null) {
-                    autoConnectScanner.stopScan(autoConnectScanCallback);
-                    autoConnectScanner = null;
+                if (isAutoConnectScanning) {
+                    transport.stopScan(autoConnectScanCallback);
+                    isAutoConnectScanning = false;
                 }
 
                 // Restart the auto connect scan and timer
@@ -968,7 +1025,7 @@ public class BluetoothCentral {
         BluetoothDevice peripheralToUnBond = null;
 
         // Get the set of bonded devices
-        Set<BluetoothDevice> bondedDevices = bluetoothAdapter.getBondedDevices();
+        Set<BluetoothDevice> bondedDevices = transport.getBondedDevices();
 
         // See if the device is bonded
         if (bondedDevices.size() > 0) {
@@ -1008,14 +1065,12 @@ public class BluetoothCentral {
     public void startPairingPopupHack() {
         // Check if we are on a Samsung device because those don't need the hack
         String manufacturer = Build.MANUFACTURER;
-        if (!manufacturer.equals("samsung")) {
-            bluetoothAdapter.startDiscovery();
-
+        if (!manufacturer.equals("samsung") && transport.startDiscovery()) {
             callBackHandler.postDelayed(new Runnable() {
                 @Override
                 public void run() {
                     //Timber.d("popup hack completed");
-                    bluetoothAdapter.cancelDiscovery();
+                    transport.cancelDiscovery();
                 }
             }, 1000);
         }
@@ -1071,23 +1126,17 @@ public class BluetoothCentral {
         }
     }
 
-    private final BroadcastReceiver adapterStateReceiver = new BroadcastReceiver() {
+    private final BluetoothTransport.AdapterStateCallback adapterStateCallback = new BluetoothTransport.AdapterStateCallback() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            final String action = intent.getAction();
-            if (action == null) return;
-
-            if (action.equals(BluetoothAdapter.ACTION_STATE_CHANGED)) {
-                final int state = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR);
-                callBackHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        bluetoothCentralCallback.onBluetoothAdapterStateChanged(state);
-                    }
-                });
+        public void onAdapterStateChanged(final int state) {
+            callBackHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    bluetoothCentralCallback.onBluetoothAdapterStateChanged(state);
+                }
+            });
 
-                handleAdapterState(state);
-            }
+            handleAdapterState(state);
         }
     };
 
@@ -1111,7 +1160,7 @@ public class BluetoothCentral {
                 cancelAutoConnectTimer();
                 currentCallback = null;
                 currentFilters = null;
-                autoConnectScanner = null;
+                isAutoConnectScanning = false;
                 //Timber.d("bluetooth turning off");
                 break;
             case BluetoothAdapter.STATE_ON:
@@ -0,0 +1,161 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import java.util.Arrays;
+
+/// Records direct connection outcomes per phone model and terminal address, and derives the connection
+/// timeout and retry budget from them.  Until enough attempts are observed the BLESSED defaults apply:
+/// connectionTimeout(...) returns 0 and retryBudget(...) returns the legacy value.
+class BluetoothConnectionTimeouts {
+
+    private static final String kSharedPreferenceKey = "com.mts.connectionTimeouts";
+    private static final String kAllTerminals = "*";
+
+    // Latencies kept per key, the percentile is taken over this window.
+    private static final int kSampleCount = 20;
+    // Samples required before a learned timeout replaces the default.
+    private static final int kMinimumSampleCount = 5;
+    private static final double kPercentile = 0.95;
+    private static final double kTimeoutMargin = 1.5;
+    private static final int kMinimumTimeout = 3000;
+    // BluetoothPeripheral's default timeout.
+    static final int kMaximumTimeout = 35000;
+    // Attempt counts are halved past this, so older outcomes fade out.
+    private static final int kAttemptHistoryLimit = 64;
+
+    private static final int kLegacyRetryBudget = 1;
+    private static final int kMaximumRetryBudget = 3;
+
+    private final SharedPreferences sharedPreferences;
+
+    BluetoothConnectionTimeouts(Context context) {
+        this((null == context) ? null : context.getSharedPreferences(kSharedPreferenceKey, Context.MODE_PRIVATE));
+    }
+
+    BluetoothConnectionTimeouts(SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+    }
+
+    /// @param latency milliseconds from connectGatt until the link came up.
+    synchronized void recordSuccess(String address, long latency) {
+        record(address, latency, false);
+        record(kAllTerminals, latency, false);
+    }
+
+    /// @param timeout milliseconds after which a timer cut the attempt off, recorded as a latency sample so a
+    /// learned timeout that is too short grows, or 0 when the attempt failed for another reason.
+    synchronized void recordFailure(String address, int timeout) {
+        long latency = (timeout > 0) ? timeout : -1;
+        record(address, latency, true);
+        record(kAllTerminals, latency, true);
+    }
+
+    /// Learned timeout in milliseconds for a direct connect to address, or 0 if not enough is known yet.
+    synchronized int connectionTimeout(String address) {
+        int[] latencies = latencies(address);
+        if (latencies.length < kMinimumSampleCount) {
+            latencies = latencies(kAllTerminals);
+        }
+        if (latencies.length < kMinimumSampleCount) {
+            return 0;
+        }
+        Arrays.sort(latencies);
+        int index = Math.min(latencies.length - 1, (int) Math.ceil(kPercentile * latencies.length) - 1);
+        int timeout = (int) (latencies[index] * kTimeoutMargin);
+        return Math.max(kMinimumTimeout, Math.min(kMaximumTimeout, timeout));
+    }
+
+    /// Timeout for retrying a direct connect that timed out after timeout milliseconds: double that, and 0 (the
+    /// default) for the last retry or once doubling reaches the default.
+    static int retryTimeout(int timeout, boolean isLastRetry) {
+        long doubled = 2L * timeout;
+        if (isLastRetry || timeout <= 0 || doubled >= kMaximumTimeout) {
+            return 0;
+        }
+        return (int) doubled;
+    }
+
+    /// Retries allowed after a failed connect.  Short learned timeouts make retries cheap, so terminals that
+    /// fail more often get more of them.
+    synchronized int retryBudget(String address) {
+        if (0 == connectionTimeout(address)) {
+            return kLegacyRetryBudget;
+        }
+        String key = key(address);
+        int attempts = sharedPreferences.getInt("attempts." + key, 0);
+        int failures = sharedPreferences.getInt("failures." + key, 0);
+        if (attempts < kMinimumSampleCount) {
+            key = key(kAllTerminals);
+            attempts = sharedPreferences.getInt("attempts." + key, 0);
+            failures = sharedPreferences.getInt("failures." + key, 0);
+        }
+        if (0 == attempts) {
+            return kLegacyRetryBudget;
+        }
+        double failureRate = (double) failures / attempts;
+        if (failureRate > 0.25) {
+            return kMaximumRetryBudget;
+        } else if (failureRate > 0.05) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /// latency below 0 for none.
+    private void record(String address, long latency, boolean isFailure) {
+        if (null == sharedPreferences || null == address) {
+            return;
+        }
+        String key = key(address);
+        int attempts = sharedPreferences.getInt("attempts." + key, 0) + 1;
+        int failures = sharedPreferences.getInt("failures." + key, 0) + (isFailure ? 1 : 0);
+        if (attempts > kAttemptHistoryLimit) {
+            attempts /= 2;
+            failures /= 2;
+        }
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putInt("attempts." + key, attempts);
+        editor.putInt("failures." + key, failures);
+        if (latency >= 0) {
+            int[] latencies = latencies(address);
+            int start = Math.max(0, latencies.length - (kSampleCount - 1));
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = start; i < latencies.length; i++) {
+                stringBuilder.append(latencies[i]).append(',');
+            }
+            stringBuilder.append(latency);
+            editor.putString("latencies." + key, stringBuilder.toString());
+        }
+        editor.apply();
+    }
+
+    private int[] latencies(String address) {
+        if (null == sharedPreferences || null == address) {
+            return new int[0];
+        }
+        String value = sharedPreferences.getString("latencies." + key(address), null);
+        if (null == value || value.isEmpty()) {
+            return new int[0];
+        }
+        String[] components = value.split(",");
+        int[] latencies = new int[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                latencies[i] = Integer.parseInt(components[i]);
+            }
+        } catch (NumberFormatException e) {
+            return new int[0];
+        }
+        return latencies;
+    }
+
+    private static String key(String address) {
+        return Build.MODEL + "." + address;
+    }
+}
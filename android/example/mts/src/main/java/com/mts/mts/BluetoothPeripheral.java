@@ -26,7 +26,6 @@
 
 package com.mts.mts;
 
-import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothGatt;
 import android.bluetooth.BluetoothGattCallback;
@@ -43,9 +42,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.SystemClock;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -55,7 +51,6 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-import static android.bluetooth.BluetoothDevice.TRANSPORT_LE;
 import static android.bluetooth.BluetoothGattCharacteristic.PROPERTY_INDICATE;
 import static android.bluetooth.BluetoothGattCharacteristic.PROPERTY_NOTIFY;
 import static android.bluetooth.BluetoothGattCharacteristic.PROPERTY_READ;
@@ -285,6 +280,12 @@ public class BluetoothPeripheral {
     // Most other phone time out after 30 seconds
     private static final int TIMEOUT_THRESHOLD_DEFAULT = 25000;
 
+    // Time without queued commands before adaptive connection priority drops to the idle priority
+    private static final long DEFAULT_IDLE_CONNECTION_PRIORITY_DELAY_IN_MS = 2000L;
+
+    // No connection priority has been requested on this connection yet
+    private static final int CONNECTION_PRIORITY_UNKNOWN = -1;
+
     // When a bond is lost, the bluetooth stack needs some time to update its internal state
     private static final long DELAY_AFTER_BOND_LOST = 1000L;
 
@@ -296,13 +297,14 @@ public class BluetoothPeripheral {
     private final Handler callbackHandler;
     public final BluetoothDevice device;
     private final InternalCallback listener;
+    private final BluetoothTransport transport;
     private BluetoothPeripheralCallback peripheralCallback;
     private final Queue<Runnable> commandQueue;
     private boolean commandQueueBusy;
     private boolean isRetrying;
     private boolean bondLost = false;
     private boolean manuallyBonding = false;
-    private volatile BluetoothGatt bluetoothGatt;
+    private volatile BluetoothTransport.Connection bluetoothGatt;
     private int state;
     private int nrTries;
     private byte[] currentWriteBytes;
@@ -311,6 +313,18 @@ public class BluetoothPeripheral {
     private Runnable timeoutRunnable;
     private Runnable discoverServicesRunnable;
     private long connectTimestamp;
+    private long connectionLatency;
+    private long connectRequestedAt;
+    private long linkUpAt;
+    private long servicesDiscoveredAt;
+    private int connectionTimeout;
+    private boolean isAutoConnecting;
+    private boolean isAdaptiveConnectionPriority;
+    private int idleConnectionPriority = BluetoothGatt.CONNECTION_PRIORITY_BALANCED;
+    private long idleConnectionPriorityDelay = DEFAULT_IDLE_CONNECTION_PRIORITY_DELAY_IN_MS;
+    private int currentConnectionPriority = CONNECTION_PRIORITY_UNKNOWN;
+    private boolean isPreferredPhyRequested;
+    private Runnable idleConnectionPriorityRunnable;
     private String cachedName;
 
     /**
@@ -327,6 +341,8 @@ public class BluetoothPeripheral {
             if (status == GATT_SUCCESS) {
                 switch (newState) {
                     case BluetoothProfile.STATE_CONNECTED:
+                        connectionLatency = timePassed;
+                        linkUpAt = SystemClock.elapsedRealtime();
                         successfullyConnected(device.getBondState(), timePassed);
                         break;
                     case BluetoothProfile.STATE_DISCONNECTED:
@@ -354,7 +370,8 @@ public class BluetoothPeripheral {
                 return;
             }
 
-            final List<BluetoothGattService> services = gatt.getServices();
+            servicesDiscoveredAt = SystemClock.elapsedRealtime();
+            final List<BluetoothGattService> services = getServices();
             //Timber.i("discovered %d services for '%s'", services.size(), getName());
 
             if (listener != null) {
@@ -373,7 +390,7 @@ public class BluetoothPeripheral {
         public void onDescriptorWrite(BluetoothGatt gatt, final BluetoothGattDescriptor descriptor, final int status) {
             final BluetoothGattCharacteristic parentCharacteristic = descriptor.getCharacteristic();
             if (status != GATT_SUCCESS) {
-                //Timber.e("failed to write <%s> to descriptor of characteristic: <%s> for device: '%s', ", bytes2String(currentWriteBytes), parentCharacteristic.getUuid(), getAddress());
+                //Timber.e("failed to write <%s> to descriptor of characteristic: <%s> for device: '%s', ", MTSHex.lazy(currentWriteBytes), parentCharacteristic.getUuid(), getAddress());
             }
 
             // Check if this was the Client Configuration Descriptor
@@ -477,7 +494,7 @@ public class BluetoothPeripheral {
                     //Timber.i("write needs bonding, bonding in progress");
                     return;
                 } else {
-                    //Timber.e("writing <%s> to characteristic <%s> failed, status %s", bytes2String(currentWriteBytes), characteristic.getUuid(), statusToString(status));
+                    //Timber.e("writing <%s> to characteristic <%s> failed, status %s", MTSHex.lazy(currentWriteBytes), characteristic.getUuid(), statusToString(status));
                 }
             }
 
@@ -735,8 +752,9 @@ public class BluetoothPeripheral {
      * @param context  Android application environment.
      * @param device   Wrapped Android bluetooth device.
      * @param listener Callback to {@link BluetoothCentral}.
+     * @param transport Radio used for the GATT connection.
      */
-    BluetoothPeripheral(Context context, BluetoothDevice device, InternalCallback listener, BluetoothPeripheralCallback peripheralCallback, Handler callbackHandler) {
+    BluetoothPeripheral(Context context, BluetoothDevice device, InternalCallback listener, BluetoothPeripheralCallback peripheralCallback, Handler callbackHandler, BluetoothTransport transport) {
         if (context == null || device == null || listener == null) {
             //Timber.e("cannot create BluetoothPeripheral because of null values");
         }
@@ -744,6 +762,7 @@ public class BluetoothPeripheral {
         this.device = device;
         this.peripheralCallback = peripheralCallback;
         this.listener = listener;
+        this.transport = transport;
         this.callbackHandler = (callbackHandler != null) ? callbackHandler : new Handler(Looper.getMainLooper());
         this.commandQueue = new ConcurrentLinkedQueue<>();
         this.state = BluetoothProfile.STATE_DISCONNECTED;
@@ -760,6 +779,7 @@ public class BluetoothPeripheral {
     void connect() {
         // Make sure we are disconnected before we start making a connection
         if (state == BluetoothProfile.STATE_DISCONNECTED) {
+            resetConnectionTimestamps();
             mainHandler.postDelayed(new Runnable() {
                 @Override
                 public void run() {
@@ -767,7 +787,8 @@ public class BluetoothPeripheral {
                     //Timber.i("connect to '%s' (%s) using TRANSPORT_LE", getName(), getAddress());
                     registerBondingBroadcastReceivers();
                     state = BluetoothProfile.STATE_CONNECTING;
-                    bluetoothGatt = connectGattHelper(device, false, bluetoothGattCallback);
+                    isAutoConnecting = false;
+                    bluetoothGatt = transport.connectGatt(context, device, false, bluetoothGattCallback);
                     connectTimestamp = SystemClock.elapsedRealtime();
                     startConnectionTimer(BluetoothPeripheral.this);
                 }
@@ -785,6 +806,7 @@ public class BluetoothPeripheral {
         // Note that this will only work for devices that are known! After turning BT on/off Android doesn't know the device anymore!
         // https://stackoverflow.com/questions/43476369/android-save-ble-device-to-reconnect-after-app-close
         if (state == BluetoothProfile.STATE_DISCONNECTED) {
+            resetConnectionTimestamps();
             mainHandler.post(new Runnable() {
                 @Override
                 public void run() {
@@ -792,7 +814,8 @@ public class BluetoothPeripheral {
                     //Timber.i("autoConnect to '%s' (%s) using TRANSPORT_LE", getName(), getAddress());
                     registerBondingBroadcastReceivers();
                     state = BluetoothProfile.STATE_CONNECTING;
-                    bluetoothGatt = connectGattHelper(device, true, bluetoothGattCallback);
+                    isAutoConnecting = true;
+                    bluetoothGatt = transport.connectGatt(context, device, true, bluetoothGattCallback);
                     connectTimestamp = SystemClock.elapsedRealtime();
                 }
             });
@@ -801,6 +824,75 @@ public class BluetoothPeripheral {
         }
     }
 
+    /**
+     * Set the timeout for the next direct connect, 0 restores the default of CONNECTION_TIMEOUT_IN_MS.
+     * A connect attempt that hits a non-default timeout is reported as a connection failure with
+     * GATT_CONN_TIMEOUT, so it can be retried.
+     *
+     * @param timeout timeout in milliseconds
+     */
+    void setConnectionTimeout(int timeout) {
+        connectionTimeout = timeout;
+    }
+
+    /**
+     * Get the timeout of direct connects, the one set with {@link #setConnectionTimeout(int)} or the default.
+     *
+     * @return timeout in milliseconds
+     */
+    int getConnectionTimeout() {
+        return connectionTimeout > 0 ? connectionTimeout : CONNECTION_TIMEOUT_IN_MS;
+    }
+
+    /**
+     * Get the time from the start of the most recent connect attempt until the link came up.
+     *
+     * @return latency in milliseconds
+     */
+    long getConnectionLatency() {
+        return connectionLatency;
+    }
+
+    private void resetConnectionTimestamps() {
+        connectRequestedAt = SystemClock.elapsedRealtime();
+        linkUpAt = 0;
+        servicesDiscoveredAt = 0;
+    }
+
+    /**
+     * Get the SystemClock.elapsedRealtime() at which the most recent connect attempt was requested.
+     *
+     * @return timestamp in milliseconds, 0 if never requested
+     */
+    long getConnectRequestedAt() {
+        return connectRequestedAt;
+    }
+
+    /**
+     * Get the SystemClock.elapsedRealtime() at which the link came up for the most recent connect attempt.
+     *
+     * @return timestamp in milliseconds, 0 if not (yet) connected
+     */
+    long getLinkUpAt() {
+        return linkUpAt;
+    }
+
+    /**
+     * Get the SystemClock.elapsedRealtime() at which services were discovered for the most recent connect attempt.
+     *
+     * @return timestamp in milliseconds, 0 if not (yet) discovered
+     */
+    long getServicesDiscoveredAt() {
+        return servicesDiscoveredAt;
+    }
+
+    /**
+     * @return true if the most recent connect attempt used autoConnect
+     */
+    boolean isAutoConnecting() {
+        return isAutoConnecting;
+    }
+
     private void registerBondingBroadcastReceivers() {
         context.registerReceiver(bondStateReceiver, new IntentFilter(BluetoothDevice.ACTION_BOND_STATE_CHANGED));
         context.registerReceiver(pairingRequestBroadcastReceiver, new IntentFilter(BluetoothDevice.ACTION_PAIRING_REQUEST));
@@ -864,9 +956,10 @@ public class BluetoothPeripheral {
                         //Timber.e("could not set connection priority");
                     } else {
                         //Timber.d("requesting connection priority %d", priority);
+                        currentConnectionPriority = priority;
                     }
-                    completedCommand();
                 }
+                completedCommand();
             }
         });
 
@@ -878,6 +971,111 @@ public class BluetoothPeripheral {
         return result;
     }
 
+    /**
+     * Set the preferred PHY for this connection. Only available on Android 8 (Oreo) and higher.
+     *
+     * <p>The request completes immediately, the stack applies it when the peripheral agrees.
+     *
+     * @param txPhy      preferred transmitter PHY, a combination of BluetoothDevice.PHY_LE_*_MASK values
+     * @param rxPhy      preferred receiver PHY, a combination of BluetoothDevice.PHY_LE_*_MASK values
+     * @param phyOptions coding to use for LE Coded PHY, usually BluetoothDevice.PHY_OPTION_NO_PREFERRED
+     * @return true if the command was enqueued, false otherwise
+     */
+    public boolean setPreferredPhy(final int txPhy, final int rxPhy, final int phyOptions) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            //Timber.e("setPreferredPhy requires Android 8 or higher");
+            return false;
+        }
+
+        boolean result = commandQueue.add(new Runnable() {
+            @Override
+            public void run() {
+                if (isConnected()) {
+                    bluetoothGatt.setPreferredPhy(txPhy, rxPhy, phyOptions);
+                }
+                completedCommand();
+            }
+        });
+
+        if (result) {
+            nextCommand();
+        } else {
+            //Timber.e("could not enqueue set preferred phy command");
+        }
+        return result;
+    }
+
+    /**
+     * Let the peripheral manage its own connection priority: CONNECTION_PRIORITY_HIGH (and 2M PHY where the phone
+     * supports it) while GATT commands are queued, then idlePriority after the queue has been empty for idleDelay.
+     *
+     * @param enabled      true to enable, false to leave the connection priority as last requested
+     * @param idlePriority CONNECTION_PRIORITY_BALANCED or CONNECTION_PRIORITY_LOW_POWER
+     * @param idleDelay    milliseconds without queued commands before switching to idlePriority
+     */
+    public void setAdaptiveConnectionPriority(boolean enabled, int idlePriority, long idleDelay) {
+        isAdaptiveConnectionPriority = enabled;
+        idleConnectionPriority = idlePriority;
+        idleConnectionPriorityDelay = idleDelay;
+        if (!enabled) {
+            cancelIdleConnectionPriority();
+        }
+    }
+
+    private void boostConnectionPriority() {
+        if (!isAdaptiveConnectionPriority) {
+            return;
+        }
+        cancelIdleConnectionPriority();
+        if (!isPreferredPhyRequested && isLe2MPhySupported()) {
+            isPreferredPhyRequested = true;
+            setPreferredPhy(BluetoothDevice.PHY_LE_2M_MASK, BluetoothDevice.PHY_LE_2M_MASK, BluetoothDevice.PHY_OPTION_NO_PREFERRED);
+        }
+        if (currentConnectionPriority != BluetoothGatt.CONNECTION_PRIORITY_HIGH) {
+            // Assume the request succeeds so a burst of commands only enqueues it once
+            currentConnectionPriority = BluetoothGatt.CONNECTION_PRIORITY_HIGH;
+            requestConnectionPriority(BluetoothGatt.CONNECTION_PRIORITY_HIGH);
+        }
+    }
+
+    private void scheduleIdleConnectionPriority() {
+        if (!isAdaptiveConnectionPriority || idleConnectionPriorityRunnable != null || currentConnectionPriority == idleConnectionPriority) {
+            return;
+        }
+        idleConnectionPriorityRunnable = new Runnable() {
+            @Override
+            public void run() {
+                idleConnectionPriorityRunnable = null;
+                if (commandQueue.isEmpty() && currentConnectionPriority != idleConnectionPriority) {
+                    requestConnectionPriority(idleConnectionPriority);
+                }
+            }
+        };
+        mainHandler.postDelayed(idleConnectionPriorityRunnable, idleConnectionPriorityDelay);
+    }
+
+    private final Runnable scheduleIdleConnectionPriorityRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // A command may have been queued since the post
+            if (commandQueue.isEmpty()) {
+                scheduleIdleConnectionPriority();
+            }
+        }
+    };
+
+    private void cancelIdleConnectionPriority() {
+        mainHandler.removeCallbacks(scheduleIdleConnectionPriorityRunnable);
+        if (idleConnectionPriorityRunnable != null) {
+            mainHandler.removeCallbacks(idleConnectionPriorityRunnable);
+            idleConnectionPriorityRunnable = null;
+        }
+    }
+
+    private boolean isLe2MPhySupported() {
+        return transport.isLe2MPhySupported();
+    }
+
     /**
      * Version of createBond with transport parameter.
      * May use in the future if needed as I never encountered an issue
@@ -957,6 +1155,26 @@ public class BluetoothPeripheral {
         }
     }
 
+    /**
+     * Close the connection without waiting for the stack to confirm the disconnect.
+     *
+     * <p>Used when a regular disconnect did not complete in time. Closing the gatt object releases the app's
+     * hold on the link, {@link BluetoothCentralCallback#onDisconnectedPeripheral(BluetoothPeripheral, int)} is
+     * called with GATT_CONN_TERMINATE_LOCAL_HOST.
+     */
+    void forceDisconnect() {
+        if (bluetoothGatt == null) {
+            return;
+        }
+        cancelConnectionTimer();
+        if (discoverServicesRunnable != null) {
+            mainHandler.removeCallbacks(discoverServicesRunnable);
+            discoverServicesRunnable = null;
+        }
+        state = BluetoothProfile.STATE_DISCONNECTED;
+        completeDisconnect(true, GATT_CONN_TERMINATE_LOCAL_HOST);
+    }
+
     void disconnectWhenBluetoothOff() {
         bluetoothGatt = null;
         completeDisconnect(true, GATT_SUCCESS);
@@ -972,6 +1190,9 @@ public class BluetoothPeripheral {
         }
         commandQueue.clear();
         commandQueueBusy = false;
+        cancelIdleConnectionPriority();
+        currentConnectionPriority = CONNECTION_PRIORITY_UNKNOWN;
+        isPreferredPhyRequested = false;
         try {
             context.unregisterReceiver(bondStateReceiver);
             context.unregisterReceiver(pairingRequestBroadcastReceiver);
@@ -1129,6 +1350,8 @@ public class BluetoothPeripheral {
             return false;
         }
 
+        boostConnectionPriority();
+
         // Enqueue the read command now that all checks have been passed
         boolean result = commandQueue.add(new Runnable() {
             @Override
@@ -1169,6 +1392,21 @@ public class BluetoothPeripheral {
      * @return true if a write operation was succesfully enqueued, otherwise false
      */
     public boolean writeCharacteristic(final BluetoothGattCharacteristic characteristic, final byte[] value, final int writeType) {
+        return writeCharacteristic(characteristic, value, (value == null) ? 0 : value.length, writeType);
+    }
+
+    /**
+     * Write the first length bytes of value to a characteristic using the specified write type.
+     *
+     * <p>The bytes are copied before this returns, so value may be a reused buffer.
+     *
+     * @param characteristic the characteristic to write to
+     * @param value          the byte array holding the value to write
+     * @param length         the number of bytes of value to write
+     * @param writeType      the write type to use when writing. Must be WRITE_TYPE_DEFAULT, WRITE_TYPE_NO_RESPONSE or WRITE_TYPE_SIGNED
+     * @return true if a write operation was succesfully enqueued, otherwise false
+     */
+    public boolean writeCharacteristic(final BluetoothGattCharacteristic characteristic, final byte[] value, final int length, final int writeType) {
         // Check if gatt object is valid
         if (bluetoothGatt == null) {
             //Timber.e("gatt is 'null', ignoring read request");
@@ -1187,8 +1425,14 @@ public class BluetoothPeripheral {
             return false;
         }
 
+        // Check if length is valid
+        if (length < 0 || length > value.length) {
+            //Timber.e("length %d is outside the value, ignoring write request", length);
+            return false;
+        }
+
         // Copy the value to avoid race conditions
-        final byte[] bytesToWrite = copyOf(value);
+        final byte[] bytesToWrite = copyOf(value, length);
 
         // Check if this characteristic actually supports this writeType
         int writeProperty;
@@ -1211,6 +1455,8 @@ public class BluetoothPeripheral {
             return false;
         }
 
+        boostConnectionPriority();
+
         // Enqueue the write command now that all checks have been passed
         boolean result = commandQueue.add(new Runnable() {
             @Override
@@ -1223,7 +1469,7 @@ public class BluetoothPeripheral {
                         //Timber.e("writeCharacteristic failed for characteristic: %s", characteristic.getUuid());
                         completedCommand();
                     } else {
-                        //Timber.d("writing <%s> to characteristic <%s>", bytes2String(bytesToWrite), characteristic.getUuid());
+                        //Timber.d("writing <%s> to characteristic <%s>", MTSHex.lazy(bytesToWrite), characteristic.getUuid());
                         nrTries++;
                     }
                 } else {
@@ -1260,6 +1506,8 @@ public class BluetoothPeripheral {
             return false;
         }
 
+        boostConnectionPriority();
+
         // Enqueue the read command now that all checks have been passed
         boolean result = commandQueue.add(new Runnable() {
             @Override
@@ -1316,6 +1564,8 @@ public class BluetoothPeripheral {
         // Copy the value to avoid race conditions
         final byte[] bytesToWrite = copyOf(value);
 
+        boostConnectionPriority();
+
         // Enqueue the write command now that all checks have been passed
         boolean result = commandQueue.add(new Runnable() {
             @Override
@@ -1327,7 +1577,7 @@ public class BluetoothPeripheral {
                         //Timber.e("writeDescriptor failed for descriptor: %s", descriptor.getUuid());
                         completedCommand();
                     } else {
-                        //Timber.d("writing <%s> to descriptor <%s>", bytes2String(bytesToWrite), descriptor.getUuid());
+                        //Timber.d("writing <%s> to descriptor <%s>", MTSHex.lazy(bytesToWrite), descriptor.getUuid());
                         nrTries++;
                     }
                 } else {
@@ -1386,6 +1636,8 @@ public class BluetoothPeripheral {
         }
         final byte[] finalValue = enable ? value : BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE;
 
+        boostConnectionPriority();
+
         // Queue Runnable to turn on/off the notification now that all checks have been passed
         boolean result = commandQueue.add(new Runnable() {
             @Override
@@ -1440,16 +1692,8 @@ public class BluetoothPeripheral {
      * @return true if the method was executed, false if not executed
      */
     public boolean clearServicesCache() {
-        boolean result = false;
-        try {
-            Method refreshMethod = bluetoothGatt.getClass().getMethod("refresh");
-            if (refreshMethod != null) {
-                result = (boolean) refreshMethod.invoke(bluetoothGatt);
-            }
-        } catch (Exception e) {
-            //Timber.e("could not invoke refresh method");
-        }
-        return result;
+        BluetoothTransport.Connection connection = bluetoothGatt;
+        return connection != null && connection.refresh();
     }
 
     /**
@@ -1528,6 +1772,10 @@ public class BluetoothPeripheral {
         isRetrying = false;
         commandQueue.poll();
         commandQueueBusy = false;
+        if (commandQueue.isEmpty()) {
+            // Called on the binder thread, the idle timer is only touched on the main thread like boostConnectionPriority()
+            mainHandler.post(scheduleIdleConnectionPriorityRunnable);
+        }
         nextCommand();
     }
 
@@ -1693,20 +1941,6 @@ public class BluetoothPeripheral {
         }
     }
 
-    /**
-     * Converts byte array to hex string
-     *
-     * @param bytes the byte array to convert
-     * @return String representing the byte array as a HEX string
-     */
-    private static String bytes2String(final byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b & 0xff));
-        }
-        return sb.toString();
-    }
-
     interface InternalCallback {
 
         /**
@@ -1736,148 +1970,29 @@ public class BluetoothPeripheral {
 
     /////////////////
 
-    private BluetoothGatt connectGattHelper(BluetoothDevice remoteDevice, boolean autoConnect, BluetoothGattCallback bluetoothGattCallback) {
-
-        if (remoteDevice == null) {
-            return null;
-        }
-
-        /*
-          This bug workaround was taken from the Polidea RxAndroidBle
-          Issue that caused a race condition mentioned below was fixed in 7.0.0_r1
-          https://android.googlesource.com/platform/frameworks/base/+/android-7.0.0_r1/core/java/android/bluetooth/BluetoothGatt.java#649
-          compared to
-          https://android.googlesource.com/platform/frameworks/base/+/android-6.0.1_r72/core/java/android/bluetooth/BluetoothGatt.java#739
-          issue: https://android.googlesource.com/platform/frameworks/base/+/d35167adcaa40cb54df8e392379dfdfe98bcdba2%5E%21/#F0
-          */
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N || !autoConnect) {
-            return connectGattCompat(bluetoothGattCallback, remoteDevice, autoConnect);
-        }
-
-        try {
-            Object iBluetoothGatt = getIBluetoothGatt(getIBluetoothManager());
-
-            if (iBluetoothGatt == null) {
-                //Timber.e("could not get iBluetoothGatt object");
-                return connectGattCompat(bluetoothGattCallback, remoteDevice, true);
-            }
-
-            BluetoothGatt bluetoothGatt = createBluetoothGatt(iBluetoothGatt, remoteDevice);
-
-            if (bluetoothGatt == null) {
-                //Timber.e("could not create BluetoothGatt object");
-                return connectGattCompat(bluetoothGattCallback, remoteDevice, true);
-            }
-
-            boolean connectedSuccessfully = connectUsingReflection(remoteDevice, bluetoothGatt, bluetoothGattCallback, true);
-
-            if (!connectedSuccessfully) {
-                //Timber.i("connection using reflection failed, closing gatt");
-                bluetoothGatt.close();
-            }
-
-            return bluetoothGatt;
-        } catch (NoSuchMethodException
-                | IllegalAccessException
-                | IllegalArgumentException
-                | InvocationTargetException
-                | InstantiationException
-                | NoSuchFieldException exception) {
-            //Timber.e("error during reflection");
-            return connectGattCompat(bluetoothGattCallback, remoteDevice, true);
-        }
-    }
-
-    private BluetoothGatt connectGattCompat(BluetoothGattCallback bluetoothGattCallback, BluetoothDevice device, boolean autoConnect) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            return device.connectGatt(context, autoConnect, bluetoothGattCallback, TRANSPORT_LE);
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            // Try to call connectGatt with TRANSPORT_LE parameter using reflection
-            try {
-                Method connectGattMethod = device.getClass().getMethod("connectGatt", Context.class, boolean.class, BluetoothGattCallback.class, int.class);
-                try {
-                    return (BluetoothGatt) connectGattMethod.invoke(device, context, autoConnect, bluetoothGattCallback, TRANSPORT_LE);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                }
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-            }
-        }
-        // Fallback on connectGatt without TRANSPORT_LE parameter
-        return device.connectGatt(context, autoConnect, bluetoothGattCallback);
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private boolean connectUsingReflection(BluetoothDevice device, BluetoothGatt bluetoothGatt, BluetoothGattCallback bluetoothGattCallback, boolean autoConnect)
-            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, NoSuchFieldException {
-        setAutoConnectValue(bluetoothGatt, autoConnect);
-        Method connectMethod = bluetoothGatt.getClass().getDeclaredMethod("connect", Boolean.class, BluetoothGattCallback.class);
-        connectMethod.setAccessible(true);
-        return (Boolean) (connectMethod.invoke(bluetoothGatt, true, bluetoothGattCallback));
-    }
-
-    private BluetoothGatt createBluetoothGatt(Object iBluetoothGatt, BluetoothDevice remoteDevice)
-            throws IllegalAccessException, InvocationTargetException, InstantiationException {
-        Constructor bluetoothGattConstructor = BluetoothGatt.class.getDeclaredConstructors()[0];
-        bluetoothGattConstructor.setAccessible(true);
-        if (bluetoothGattConstructor.getParameterTypes().length == 4) {
-            return (BluetoothGatt) (bluetoothGattConstructor.newInstance(context, iBluetoothGatt, remoteDevice, TRANSPORT_LE));
-        } else {
-            return (BluetoothGatt) (bluetoothGattConstructor.newInstance(context, iBluetoothGatt, remoteDevice));
-        }
-    }
-
-    private Object getIBluetoothGatt(Object iBluetoothManager)
-            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-
-        if (iBluetoothManager == null) {
-            return null;
-        }
-
-        Method getBluetoothGattMethod = getMethodFromClass(iBluetoothManager.getClass(), "getBluetoothGatt");
-        return getBluetoothGattMethod.invoke(iBluetoothManager);
-    }
-
-    private Object getIBluetoothManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-
-        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-
-        if (bluetoothAdapter == null) {
-            return null;
-        }
-
-        Method getBluetoothManagerMethod = getMethodFromClass(bluetoothAdapter.getClass(), "getBluetoothManager");
-        return getBluetoothManagerMethod.invoke(bluetoothAdapter);
-    }
-
-    private Method getMethodFromClass(Class<?> cls, String methodName) throws NoSuchMethodException {
-        Method method = cls.getDeclaredMethod(methodName);
-        method.setAccessible(true);
-        return method;
-    }
-
-    private void setAutoConnectValue(BluetoothGatt bluetoothGatt, boolean autoConnect) throws NoSuchFieldException, IllegalAccessException {
-        Field autoConnectField = bluetoothGatt.getClass().getDeclaredField("mAutoConnect");
-        autoConnectField.setAccessible(true);
-        autoConnectField.setBoolean(bluetoothGatt, autoConnect);
-    }
-
     private void startConnectionTimer(final BluetoothPeripheral peripheral) {
         cancelConnectionTimer();
         timeoutRunnable = new Runnable() {
             @Override
             public void run() {
                 //Timber.e("connection timout, disconnecting '%s'", peripheral.getName());
-                disconnect();
-                completeDisconnect(true, GATT_CONN_TIMEOUT);
                 timeoutRunnable = null;
+                if (connectionTimeout <= 0) {
+                    disconnect();
+                    completeDisconnect(true, GATT_CONN_TIMEOUT);
+                    return;
+                }
+                // Learned timeout: give up on this attempt and let the central decide on a retry.
+                disconnect();
+                completeDisconnect(false, GATT_CONN_TIMEOUT);
+                state = BluetoothProfile.STATE_DISCONNECTED;
+                if (listener != null) {
+                    listener.connectFailed(BluetoothPeripheral.this, GATT_CONN_TIMEOUT);
+                }
             }
         };
 
-        mainHandler.postDelayed(timeoutRunnable, CONNECTION_TIMEOUT_IN_MS);
+        mainHandler.postDelayed(timeoutRunnable, connectionTimeout > 0 ? connectionTimeout : CONNECTION_TIMEOUT_IN_MS);
     }
 
     private void cancelConnectionTimer() {
@@ -1889,18 +2004,22 @@ public class BluetoothPeripheral {
 
     private int getTimoutThreshold() {
         String manufacturer = Build.MANUFACTURER;
-        if (manufacturer.equals("samsung")) {
-            return TIMEOUT_THRESHOLD_SAMSUNG;
-        } else {
-            return TIMEOUT_THRESHOLD_DEFAULT;
+        int threshold = manufacturer.equals("samsung") ? TIMEOUT_THRESHOLD_SAMSUNG : TIMEOUT_THRESHOLD_DEFAULT;
+        if (connectionTimeout > 0) {
+            // An attempt that ran past the learned timeout is a timeout, whatever the stack reports.
+            return Math.min(threshold, connectionTimeout);
         }
+        return threshold;
     }
 
     private byte[] copyOf(byte[] source) {
         if (source == null) return new byte[0];
-        final int sourceLength = source.length;
-        final byte[] copy = new byte[sourceLength];
-        System.arraycopy(source, 0, copy, 0, sourceLength);
+        return copyOf(source, source.length);
+    }
+
+    private byte[] copyOf(byte[] source, int length) {
+        final byte[] copy = new byte[length];
+        System.arraycopy(source, 0, copy, 0, length);
         return copy;
     }
 }
@@ -0,0 +1,70 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.le.ScanResult;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Single producer, single consumer ring of ScanResults.  The scan callback thread offers, one processing
+/// thread polls.  Slots are pre-allocated and indices only grow, so neither side locks or allocates.
+/// When the ring is full new results are dropped; advertisements repeat, the next one gets through.
+class BluetoothScanResultRing {
+
+    private final ScanResult[] slots;
+    private final int mask;
+    // Next slot to read, written only by the consumer.
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written only by the producer.
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long droppedCount;
+
+    /// @param capacity rounded up to a power of two.
+    BluetoothScanResultRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new ScanResult[size];
+        mask = size - 1;
+    }
+
+    /// Producer only.  Returns false if the ring is full and result was dropped.
+    boolean offer(ScanResult result) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() == slots.length) {
+            droppedCount++;
+            return false;
+        }
+        slots[(int) currentTail & mask] = result;
+        // Ordered store publishes the slot write before the new tail.
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /// Consumer only.  Returns null if the ring is empty.
+    ScanResult poll() {
+        long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+        int index = (int) currentHead & mask;
+        ScanResult result = slots[index];
+        slots[index] = null;
+        head.lazySet(currentHead + 1);
+        return result;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /// Consumer only.  Discards everything currently in the ring.
+    void clear() {
+        while (null != poll()) {
+            // Drop.
+        }
+    }
+
+    long droppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,101 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/// The radio below BluetoothCentral and BluetoothPeripheral: scanning, device lookup and GATT connections.  The
+/// default is the device's Bluetooth adapter, see AndroidBluetoothTransport.  Another implementation can be passed
+/// to MTSService.setBluetoothTransport(...) before initialize(...), e.g. the simulated radio in the mts-jvm module.
+///
+/// Results are delivered through the Android callback types.  Callbacks are passed a null BluetoothGatt when the
+/// transport is not Android's, BluetoothPeripheral only uses the Connection it was returned.
+public interface BluetoothTransport {
+
+    /// Receives the adapter's BluetoothAdapter.STATE_TURNING_ON, STATE_ON, STATE_TURNING_OFF and STATE_OFF changes on
+    /// the main thread.
+    interface AdapterStateCallback {
+        void onAdapterStateChanged(int state);
+    }
+
+    /// False when the device has no Bluetooth adapter.
+    boolean isSupported();
+
+    /// True when the adapter is on.
+    boolean isEnabled();
+
+    /// Delivers adapter state changes to callback until unregisterAdapterStateCallback(...).  context may be null
+    /// where the transport does not need one.
+    void registerAdapterStateCallback(Context context, AdapterStateCallback callback);
+
+    void unregisterAdapterStateCallback(Context context, AdapterStateCallback callback);
+
+    /// Starts classic discovery, which BluetoothCentral.startPairingPopupHack() runs briefly.  Returns false when it
+    /// could not be started.
+    boolean startDiscovery();
+
+    void cancelDiscovery();
+
+    boolean isLe2MPhySupported();
+
+    /// Returns false when no scanner is available, e.g. while the adapter is turning off.
+    boolean startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback);
+
+    void stopScan(ScanCallback callback);
+
+    BluetoothDevice getRemoteDevice(String address);
+
+    Set<BluetoothDevice> getBondedDevices();
+
+    /// Connects over LE, returns null when the connection could not be started.  Connection state changes and
+    /// GATT results arrive on callback.
+    Connection connectGatt(Context context, BluetoothDevice device, boolean autoConnect, BluetoothGattCallback callback);
+
+    /// One GATT connection, the operations BluetoothPeripheral issues from its command queue.  Each returns false
+    /// when the operation could not be started, as BluetoothGatt does.
+    interface Connection {
+        void disconnect();
+
+        void close();
+
+        boolean discoverServices();
+
+        List<BluetoothGattService> getServices();
+
+        BluetoothGattService getService(UUID uuid);
+
+        boolean readCharacteristic(BluetoothGattCharacteristic characteristic);
+
+        boolean writeCharacteristic(BluetoothGattCharacteristic characteristic);
+
+        boolean readDescriptor(BluetoothGattDescriptor descriptor);
+
+        boolean writeDescriptor(BluetoothGattDescriptor descriptor);
+
+        boolean setCharacteristicNotification(BluetoothGattCharacteristic characteristic, boolean enable);
+
+        boolean readRemoteRssi();
+
+        boolean requestMtu(int mtu);
+
+        boolean requestConnectionPriority(int connectionPriority);
+
+        void setPreferredPhy(int txPhy, int rxPhy, int phyOptions);
+
+        /// Clears the stack's services cache, false when not supported.
+        boolean refresh();
+    }
+}
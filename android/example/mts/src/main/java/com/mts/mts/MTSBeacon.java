@@ -14,7 +14,6 @@ import android.util.SparseArray;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import static android.content.ContentValues.TAG;
@@ -39,6 +38,18 @@ public class MTSBeacon {
     private Context context;
     // Used by the MTSManager to handle RSSI threshold disconnect evaluation for this beacon
     public Boolean isCharacteristicDiscoveryComplete = false;
+    // Bits of the characteristics the connect event requires that service discovery has not found yet.  They only
+    // need to be present, the event does not wait for any read.
+    int undiscoveredCharacteristics;
+    // Bits of MTSService.priorityCharacteristics not yet read on this connection, for MTSConnectionMetrics.
+    int unreadPriorityCharacteristics;
+    // ATT MTU negotiated on the most recent connection, 0 until known.
+    int mtu;
+    // SystemClock.elapsedRealtime() of the most recent disconnect, used for warm standby expiry.
+    long disconnectedAt;
+    // Progress of MTSService.disconnect(...) for this beacon and the deadline for its current step.
+    MTSService.UserDisconnectState userDisconnectState = MTSService.UserDisconnectState.idle;
+    Runnable userDisconnectDeadline;
 
     MTSBeacon(BluetoothPeripheral peripheral, ScanResult scanResult, Context c) {
         this.peripheral = peripheral;
@@ -98,10 +109,11 @@ public class MTSBeacon {
         int key = manufacturerSpecificData.keyAt(0);
         byte[] manufacturerSpecificDataBytes = manufacturerSpecificData.valueAt(0);
         int shiftedKey = key >> Byte.SIZE;
-        String keyByteString =  String.format("%02X", shiftedKey);
-        byte[] truncated = Arrays.copyOf(manufacturerSpecificDataBytes, manufacturerSpecificDataBytes.length-1);
-        String payloadString =  bytesToHex(truncated);
-        mtsIdentifier = keyByteString + payloadString;
+        int payloadLength = Math.max(0, manufacturerSpecificDataBytes.length - 1);
+        StringBuilder identifier = new StringBuilder(2 + payloadLength * 2);
+        MTSHex.appendTo(identifier, shiftedKey, true);
+        MTSHex.appendTo(identifier, manufacturerSpecificDataBytes, 0, payloadLength, true);
+        mtsIdentifier = identifier.toString();
     }
 
     public void updateOnConnectedRSSIReceipt(int r) {
@@ -117,15 +129,10 @@ public class MTSBeacon {
         return (int)filtered;
     }
 
-    final protected static char[] hexArray = "0123456789ABCDEF".toCharArray();
+    /// Use MTSHex.toHex(...).
+    @Deprecated
     public static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for ( int j = 0; j < bytes.length; j++ ) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = hexArray[v >>> 4];
-            hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-        }
-        return new String(hexChars);
+        return MTSHex.toHex(bytes);
     }
 
     // AutoDisconnectCountdown - RSSI threshold + interval triggers disconnect.
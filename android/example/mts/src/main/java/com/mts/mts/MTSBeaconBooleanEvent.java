@@ -0,0 +1,26 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.io.Serializable;
+
+/// MTSBeaconEvent with a boolean value: didWriteCardDataToBluetooth and gmiLinkActive.
+public class MTSBeaconBooleanEvent extends MTSBeaconEvent {
+    public final boolean booleanValue;
+
+    public MTSBeaconBooleanEvent(MTSService.MTSEventType eventType, boolean booleanValue, MTSBeacon mtsBeacon) {
+        this(eventType, booleanValue, mtsBeacon, true);
+    }
+
+    /// Leaves value null unless isLegacyValueFilled, getValue() boxes on demand.
+    MTSBeaconBooleanEvent(MTSService.MTSEventType eventType, boolean booleanValue, MTSBeacon mtsBeacon, boolean isLegacyValueFilled) {
+        super(eventType, isLegacyValueFilled ? Boolean.valueOf(booleanValue) : null, mtsBeacon);
+        this.booleanValue = booleanValue;
+    }
+
+    @Override
+    public Serializable getValue() {
+        return Boolean.valueOf(booleanValue);
+    }
+}
@@ -0,0 +1,26 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.io.Serializable;
+
+/// MTSBeaconEvent with a byte value: txAttenuationLevel.
+public class MTSBeaconByteEvent extends MTSBeaconEvent {
+    public final byte byteValue;
+
+    public MTSBeaconByteEvent(MTSService.MTSEventType eventType, byte byteValue, MTSBeacon mtsBeacon) {
+        this(eventType, byteValue, mtsBeacon, true);
+    }
+
+    /// Leaves value null unless isLegacyValueFilled, getValue() boxes on demand.
+    MTSBeaconByteEvent(MTSService.MTSEventType eventType, byte byteValue, MTSBeacon mtsBeacon, boolean isLegacyValueFilled) {
+        super(eventType, isLegacyValueFilled ? Byte.valueOf(byteValue) : null, mtsBeacon);
+        this.byteValue = byteValue;
+    }
+
+    @Override
+    public Serializable getValue() {
+        return Byte.valueOf(byteValue);
+    }
+}
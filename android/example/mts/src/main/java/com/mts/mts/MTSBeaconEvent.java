@@ -3,8 +3,14 @@ package com.mts.mts;
 import java.io.Serializable;
 import java.util.UUID;
 
+/// Posted through EventBus for each MTSBeaconListener callback.  The adapter posts the typed subclasses
+/// (MTSBeaconStringEvent, MTSBeaconIntEvent, MTSBeaconBooleanEvent, MTSBeaconByteEvent); read their
+/// primitive fields rather than casting value.
 public class MTSBeaconEvent {
     public final MTSService.MTSEventType eventType;
+    /// Boxed copy of the typed value, kept for subscribers written against the untyped event.  The typed
+    /// subclasses leave it null after MTSService.setEventBusLegacyValuesEnabled(false), getValue() always works.
+    @Deprecated
     public final Serializable value;
     public final MTSBeacon mtsBeacon;
 //    public final byte[] bytes;
@@ -15,4 +21,10 @@ public class MTSBeaconEvent {
 //        this.bytes = bytes;
         this.mtsBeacon = mtsBeacon;
     }
+
+    /// value, boxed on demand by the typed subclasses.
+    @SuppressWarnings("deprecation")
+    public Serializable getValue() {
+        return value;
+    }
 }
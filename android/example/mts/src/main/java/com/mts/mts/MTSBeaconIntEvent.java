@@ -0,0 +1,35 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.io.Serializable;
+
+/// MTSBeaconEvent with an int value: assetNumber, denomination (cents) and updateOnConnectedRSSIReceipt.
+public class MTSBeaconIntEvent extends MTSBeaconEvent {
+    public final int intValue;
+
+    public MTSBeaconIntEvent(MTSService.MTSEventType eventType, int intValue, MTSBeacon mtsBeacon) {
+        this(eventType, intValue, mtsBeacon, true);
+    }
+
+    /// Leaves value null unless isLegacyValueFilled, getValue() boxes on demand.
+    MTSBeaconIntEvent(MTSService.MTSEventType eventType, int intValue, MTSBeacon mtsBeacon, boolean isLegacyValueFilled) {
+        super(eventType, isLegacyValueFilled ? legacyValue(eventType, intValue) : null, mtsBeacon);
+        this.intValue = intValue;
+    }
+
+    @Override
+    public Serializable getValue() {
+        Serializable value = super.getValue();
+        return (null != value) ? value : legacyValue(eventType, intValue);
+    }
+
+    // updateOnConnectedRSSIReceipt has always carried its value as a String.
+    private static Serializable legacyValue(MTSService.MTSEventType eventType, int intValue) {
+        if (MTSService.MTSEventType.updateOnConnectedRSSIReceipt == eventType) {
+            return String.valueOf(intValue);
+        }
+        return Integer.valueOf(intValue);
+    }
+}
@@ -0,0 +1,30 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.util.List;
+
+/// Changes to MTSService.detectedBeacons() and connected RSSI readings since the previous update.
+/// A beacon appears at most once in added, removed and updated; a beacon added and removed within the
+/// same interval is not reported.  Connected RSSI carries the latest reading per beacon in parallel arrays.
+public class MTSBeaconListUpdate {
+    public final List<MTSBeacon> added;
+    public final List<MTSBeacon> removed;
+    /// Beacons with a new advertisement, rssi and filteredRSSI are current.
+    public final List<MTSBeacon> updated;
+    public final MTSBeacon[] connectedRSSIBeacons;
+    public final int[] connectedRSSIValues;
+
+    MTSBeaconListUpdate(List<MTSBeacon> added, List<MTSBeacon> removed, List<MTSBeacon> updated, MTSBeacon[] connectedRSSIBeacons, int[] connectedRSSIValues) {
+        this.added = added;
+        this.removed = removed;
+        this.updated = updated;
+        this.connectedRSSIBeacons = connectedRSSIBeacons;
+        this.connectedRSSIValues = connectedRSSIValues;
+    }
+
+    public boolean isBeaconListChanged() {
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+}
@@ -0,0 +1,11 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Receives coalesced MTSBeaconListUpdates, at most once per display frame or per
+/// MTSService.beaconListUpdateInterval.  Register with MTSService.addBeaconListUpdateListener(...).
+public abstract class MTSBeaconListUpdateListener {
+
+    public void onBeaconListUpdate(MTSBeaconListUpdate update) {}
+}
@@ -0,0 +1,31 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Receives decoded characteristic values and connected RSSI updates, one method per MTSService.MTSEventType.
+/// Override only the methods of interest.  Register with MTSService.addBeaconListener(...).
+public abstract class MTSBeaconListener {
+
+    public void didReceiveTerminalKind(MTSBeacon mtsBeacon, String terminalKind) {}
+
+    /// cardData is null when the characteristic had no value.
+    public void didReceiveCardData(MTSBeacon mtsBeacon, String cardData) {}
+
+    public void didWriteCardDataToBluetooth(MTSBeacon mtsBeacon, boolean wasSuccess) {}
+
+    public void updateOnConnectedRSSIReceipt(MTSBeacon mtsBeacon, int rssi) {}
+
+    public void didReceiveSasSerialNumber(MTSBeacon mtsBeacon, String sasSerialNumber) {}
+
+    public void didReceiveLocation(MTSBeacon mtsBeacon, String location) {}
+
+    public void didReceiveAssetNumber(MTSBeacon mtsBeacon, int assetNumber) {}
+
+    /// denomination is in cents.
+    public void didReceiveDenomination(MTSBeacon mtsBeacon, int denomination) {}
+
+    public void didReceiveGmiLinkActive(MTSBeacon mtsBeacon, boolean isGmiLinkActive) {}
+
+    public void didReceiveTxAttenuationLevel(MTSBeacon mtsBeacon, byte txAttenuationLevel) {}
+}
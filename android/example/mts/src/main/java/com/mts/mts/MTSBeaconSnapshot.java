@@ -0,0 +1,52 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/// Immutable view of an MTSService beacon collection at one point in time.  A new snapshot with a higher
+/// version is published whenever membership or order changes; a held snapshot never changes, so it can be
+/// read from any thread without locking.  The MTSBeacon objects themselves keep updating (rssi etc.).
+public final class MTSBeaconSnapshot {
+    public final long version;
+    public final List<MTSBeacon> beacons;
+
+    static final MTSBeaconSnapshot empty = new MTSBeaconSnapshot(0, Collections.<MTSBeacon>emptyList());
+
+    private MTSBeaconSnapshot(long version, List<MTSBeacon> beacons) {
+        this.version = version;
+        this.beacons = beacons;
+    }
+
+    /// Returns this snapshot if beacons has the same members in the same order, otherwise a copy of beacons
+    /// with the next version.
+    MTSBeaconSnapshot next(List<MTSBeacon> beacons) {
+        if (hasSameBeacons(beacons)) {
+            return this;
+        }
+        return new MTSBeaconSnapshot(version + 1, Collections.unmodifiableList(new ArrayList<MTSBeacon>(beacons)));
+    }
+
+    public int size() {
+        return beacons.size();
+    }
+
+    public boolean isEmpty() {
+        return beacons.isEmpty();
+    }
+
+    private boolean hasSameBeacons(List<MTSBeacon> other) {
+        if (other.size() != beacons.size()) {
+            return false;
+        }
+        for (int i = 0; i < other.size(); i++) {
+            if (other.get(i) != beacons.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// MTSBeaconEvent with a String value: terminalKind, cardData, sasSerialNumber and location.
+public class MTSBeaconStringEvent extends MTSBeaconEvent {
+    public final String stringValue;
+
+    public MTSBeaconStringEvent(MTSService.MTSEventType eventType, String stringValue, MTSBeacon mtsBeacon) {
+        super(eventType, stringValue, mtsBeacon);
+        this.stringValue = stringValue;
+    }
+}
@@ -0,0 +1,179 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.os.ParcelUuid;
+
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.UUID;
+
+/// Layout of one MTS characteristic value: type, byte order, accepted length and null termination, described once
+/// and used for both directions.  isValid(...) checks the length before any decode, decoders read in place through
+/// a BluetoothBytesParser reused per schema, and the encode(..., destination) forms write into a caller supplied
+/// array.  Decoding is expected from the MTSService callback thread only.
+final class MTSCharacteristicSchema {
+
+    enum Type {
+        utf8,   // Whole value is the string.
+        utf8s,  // Null terminated string in a fixed size field, the terminator and any padding are not part of the value.
+        uint8,
+        uint32,
+        bool    // uint8, 0x01 is true.
+    }
+
+    // Largest attribute value ATT allows.
+    static final int kMaximumAttributeLength = 512;
+
+    private static final Charset kUtf8 = Charset.forName("UTF-8");
+
+    final ParcelUuid parcelUuid;
+    final UUID uuid;
+    final Type type;
+    final int minimumLength;
+    final int maximumLength;
+    // Longest value isValid(...) accepts, maximumLength except for utf8s.
+    final int maximumAcceptedLength;
+    final ByteOrder byteOrder;
+    private final BluetoothBytesParser parser;
+
+    private MTSCharacteristicSchema(ParcelUuid uuid, Type type, int minimumLength, int maximumLength, ByteOrder byteOrder) {
+        this.parcelUuid = uuid;
+        this.uuid = uuid.getUuid();
+        this.type = type;
+        this.minimumLength = minimumLength;
+        this.maximumLength = maximumLength;
+        this.maximumAcceptedLength = (Type.utf8s == type) ? kMaximumAttributeLength : maximumLength;
+        this.byteOrder = byteOrder;
+        this.parser = new BluetoothBytesParser(byteOrder);
+    }
+
+    static MTSCharacteristicSchema utf8(ParcelUuid uuid, int maximumLength) {
+        return new MTSCharacteristicSchema(uuid, Type.utf8, 0, maximumLength, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /// @param fieldLength bytes in the field including the null terminator, e.g. 41 for utf8s[41].  Shorter values
+    ///                    are accepted, as a peripheral may send only the string and its terminator.  Longer ones
+    ///                    are accepted and decoded whole, as they were before the schema; encode(...) still writes
+    ///                    at most fieldLength bytes.
+    static MTSCharacteristicSchema utf8s(ParcelUuid uuid, int fieldLength) {
+        return new MTSCharacteristicSchema(uuid, Type.utf8s, 1, fieldLength, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static MTSCharacteristicSchema uint8(ParcelUuid uuid) {
+        return new MTSCharacteristicSchema(uuid, Type.uint8, 1, 1, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static MTSCharacteristicSchema uint32(ParcelUuid uuid, ByteOrder byteOrder) {
+        return new MTSCharacteristicSchema(uuid, Type.uint32, 4, 4, byteOrder);
+    }
+
+    static MTSCharacteristicSchema bool(ParcelUuid uuid) {
+        return new MTSCharacteristicSchema(uuid, Type.bool, 1, 1, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    boolean isValid(byte[] value) {
+        return null != value && value.length >= minimumLength && value.length <= maximumAcceptedLength;
+    }
+
+    /// For utf8 and utf8s.  Call isValid(...) first.
+    String decodeString(byte[] value) {
+        if (Type.utf8 == type) {
+            return new String(value, kUtf8);
+        }
+        parser.setValue(value, 0, value.length);
+        return parser.getUtf8String(value.length);
+    }
+
+    /// Appends the string to destination without allocating, returns the number of chars appended.  A utf8 value
+    /// is cut at a 0 byte here as well.
+    int decodeString(byte[] value, StringBuilder destination) {
+        parser.setValue(value, 0, value.length);
+        return parser.getUtf8String(value.length, destination);
+    }
+
+    /// For uint8 and uint32, uint32 is returned as a Java int as before.  Call isValid(...) first.
+    int decodeInt(byte[] value) {
+        parser.setValue(value, 0, value.length);
+        return (Type.uint32 == type) ? parser.getSInt32() : parser.getUInt8();
+    }
+
+    /// For bool.  Call isValid(...) first.
+    boolean decodeBoolean(byte[] value) {
+        return 0x01 == value[0];
+    }
+
+    /// For bool.  Call isValid(...) first.
+    byte decodeByte(byte[] value) {
+        return value[0];
+    }
+
+    /// Writes value into destination, returns the number of bytes written.  utf8s values are cut at a character
+    /// boundary to leave room for the terminator, which is always written.
+    int encode(String value, byte[] destination) {
+        return encode(value, 0, value.length(), destination);
+    }
+
+    /// Encodes the chars from start to end of value, so callers can truncate without a substring.
+    int encode(CharSequence value, int start, int end, byte[] destination) {
+        int capacity = Math.min(destination.length, maximumLength) - ((Type.utf8s == type) ? 1 : 0);
+        int length = 0;
+        for (int i = start; i < end; ) {
+            char c = value.charAt(i);
+            int codePoint = c;
+            int charCount = 1;
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+                charCount = 2;
+            } else if (Character.isSurrogate(c)) {
+                codePoint = 0xFFFD; // Unpaired surrogate.
+            }
+            int size = (codePoint < 0x80) ? 1 : (codePoint < 0x800) ? 2 : (codePoint < 0x10000) ? 3 : 4;
+            if (length + size > capacity) {
+                break;
+            }
+            if (1 == size) {
+                destination[length] = (byte) codePoint;
+            } else if (2 == size) {
+                destination[length] = (byte) (0xC0 | (codePoint >> 6));
+                destination[length + 1] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (3 == size) {
+                destination[length] = (byte) (0xE0 | (codePoint >> 12));
+                destination[length + 1] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                destination[length + 2] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                destination[length] = (byte) (0xF0 | (codePoint >> 18));
+                destination[length + 1] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                destination[length + 2] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                destination[length + 3] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            length += size;
+            i += charCount;
+        }
+        if (Type.utf8s == type) {
+            destination[length++] = 0;
+        }
+        return length;
+    }
+
+    /// Writes value into destination for uint8, bool and uint32, returns the number of bytes written.
+    int encode(int value, byte[] destination) {
+        if (Type.uint32 != type) {
+            destination[0] = (byte) value;
+            return 1;
+        }
+        if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
+            destination[0] = (byte) value;
+            destination[1] = (byte) (value >> 8);
+            destination[2] = (byte) (value >> 16);
+            destination[3] = (byte) (value >> 24);
+        } else {
+            destination[0] = (byte) (value >> 24);
+            destination[1] = (byte) (value >> 16);
+            destination[2] = (byte) (value >> 8);
+            destination[3] = (byte) value;
+        }
+        return 4;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Receives MTSService.BluetoothConnectionEvent occurrences.  Register with MTSService.addConnectionListener(...).
+public abstract class MTSConnectionListener {
+
+    /// mtsBeacon is null for BluetoothConnectionEvent.disabled.
+    public void onConnectionEvent(MTSService.BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {}
+}
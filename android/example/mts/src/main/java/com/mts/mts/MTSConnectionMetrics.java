@@ -0,0 +1,113 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.os.Build;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/// Histograms of how long each connection phase takes, measured in milliseconds from the connect request.
+/// Buckets are powers of two: bucket 0 holds 0 ms, bucket i holds [2^(i-1), 2^i) ms and the last bucket
+/// holds everything from 2^(kBucketCount-2) ms up.  Obtain from MTSService.connectionMetrics().
+public class MTSConnectionMetrics {
+
+    public enum Phase {
+        linkUp,                       // onConnectionStateChange(STATE_CONNECTED)
+        servicesDiscovered,           // onServicesDiscovered
+        mtuNegotiated,                // onMtuChanged, absent when the MTU request is skipped
+        connectEventPosted,           // BluetoothConnectionEvent.connect posted
+        requiredCharacteristicsRead   // cardData and terminalKind values received
+    }
+
+    public static final int kBucketCount = 18;
+
+    private final long[][] buckets = new long[Phase.values().length][kBucketCount];
+    private final long[] sums = new long[Phase.values().length];
+    private final long[] maximums = new long[Phase.values().length];
+
+    MTSConnectionMetrics() {
+    }
+
+    synchronized void record(Phase phase, long milliseconds) {
+        if (milliseconds < 0) {
+            return;
+        }
+        int index = phase.ordinal();
+        buckets[index][bucket(milliseconds)]++;
+        sums[index] += milliseconds;
+        maximums[index] = Math.max(maximums[index], milliseconds);
+    }
+
+    /// Phone model the metrics were collected on.
+    public String model() {
+        return Build.MODEL;
+    }
+
+    public synchronized long[] histogram(Phase phase) {
+        return Arrays.copyOf(buckets[phase.ordinal()], kBucketCount);
+    }
+
+    public synchronized long count(Phase phase) {
+        long count = 0;
+        for (long bucketCount : buckets[phase.ordinal()]) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    public synchronized long mean(Phase phase) {
+        long count = count(phase);
+        return 0 == count ? 0 : sums[phase.ordinal()] / count;
+    }
+
+    public synchronized long maximum(Phase phase) {
+        return maximums[phase.ordinal()];
+    }
+
+    /// Upper bound of the bucket holding the given percentile (0.0 - 1.0), 0 if nothing was recorded.
+    public synchronized long percentile(Phase phase, double percentile) {
+        long count = count(phase);
+        if (0 == count) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, percentile)) * count);
+        long cumulative = 0;
+        long[] phaseBuckets = buckets[phase.ordinal()];
+        for (int i = 0; i < kBucketCount; i++) {
+            cumulative += phaseBuckets[i];
+            if (cumulative >= rank && 0 != phaseBuckets[i]) {
+                return Math.min(bucketUpperBound(i), maximums[phase.ordinal()]);
+            }
+        }
+        return maximums[phase.ordinal()];
+    }
+
+    public synchronized void reset() {
+        for (long[] phaseBuckets : buckets) {
+            Arrays.fill(phaseBuckets, 0);
+        }
+        Arrays.fill(sums, 0);
+        Arrays.fill(maximums, 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder stringBuilder = new StringBuilder("MTSConnectionMetrics " + model());
+        for (Phase phase : Phase.values()) {
+            stringBuilder.append(String.format(Locale.US, "\n%s: n=%d mean=%dms p50<=%dms p95<=%dms max=%dms",
+                    phase, count(phase), mean(phase), percentile(phase, 0.5), percentile(phase, 0.95), maximum(phase)));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static int bucket(long milliseconds) {
+        int bucket = 64 - Long.numberOfLeadingZeros(milliseconds);
+        return Math.min(bucket, kBucketCount - 1);
+    }
+
+    private static long bucketUpperBound(int bucket) {
+        return (0 == bucket) ? 0 : (1L << bucket) - 1;
+    }
+}
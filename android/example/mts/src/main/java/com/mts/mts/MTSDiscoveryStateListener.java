@@ -0,0 +1,10 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Receives MTSService.BluetoothDiscoveryState changes.  Register with MTSService.addDiscoveryStateListener(...).
+public abstract class MTSDiscoveryStateListener {
+
+    public void onDiscoveryStateChanged(MTSService.BluetoothDiscoveryState oldState, MTSService.BluetoothDiscoveryState newState) {}
+}
@@ -0,0 +1,93 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import org.greenrobot.eventbus.EventBus;
+
+/// Re-posts listener callbacks as the original EventBus events (MTSBluetoothDiscoveryStateEvent,
+/// MTSBluetoothConnectionEvent, the typed MTSBeaconEvent subclasses) for apps subscribed through EventBus.getDefault().
+/// Attached by default; see MTSService.setEventBusEnabled(...).
+class MTSEventBusAdapter {
+
+    // Fill the deprecated MTSBeaconEvent.value of the typed events, see MTSService.setEventBusLegacyValuesEnabled(...).
+    boolean isLegacyValueFilled = true;
+
+    private final MTSDiscoveryStateListener discoveryStateListener = new MTSDiscoveryStateListener() {
+        @Override
+        public void onDiscoveryStateChanged(MTSService.BluetoothDiscoveryState oldState, MTSService.BluetoothDiscoveryState newState) {
+            EventBus.getDefault().post(new MTSBluetoothDiscoveryStateEvent(oldState, newState));
+        }
+    };
+
+    private final MTSConnectionListener connectionListener = new MTSConnectionListener() {
+        @Override
+        public void onConnectionEvent(MTSService.BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {
+            EventBus.getDefault().post(new MTSBluetoothConnectionEvent(connectionEvent, mtsBeacon));
+        }
+    };
+
+    private final MTSBeaconListener beaconListener = new MTSBeaconListener() {
+        @Override
+        public void didReceiveTerminalKind(MTSBeacon mtsBeacon, String terminalKind) {
+            EventBus.getDefault().post(new MTSBeaconStringEvent(MTSService.MTSEventType.didReceiveTerminalKind, terminalKind, mtsBeacon));
+        }
+
+        @Override
+        public void didReceiveCardData(MTSBeacon mtsBeacon, String cardData) {
+            EventBus.getDefault().post(new MTSBeaconStringEvent(MTSService.MTSEventType.didReceiveCardData, cardData, mtsBeacon));
+        }
+
+        @Override
+        public void didWriteCardDataToBluetooth(MTSBeacon mtsBeacon, boolean wasSuccess) {
+            EventBus.getDefault().post(new MTSBeaconBooleanEvent(MTSService.MTSEventType.didWriteCardDataToBluetooth, wasSuccess, mtsBeacon, isLegacyValueFilled));
+        }
+
+        @Override
+        public void updateOnConnectedRSSIReceipt(MTSBeacon mtsBeacon, int rssi) {
+            EventBus.getDefault().post(new MTSBeaconIntEvent(MTSService.MTSEventType.updateOnConnectedRSSIReceipt, rssi, mtsBeacon, isLegacyValueFilled));
+        }
+
+        @Override
+        public void didReceiveSasSerialNumber(MTSBeacon mtsBeacon, String sasSerialNumber) {
+            EventBus.getDefault().post(new MTSBeaconStringEvent(MTSService.MTSEventType.didReceiveSasSerialNumber, sasSerialNumber, mtsBeacon));
+        }
+
+        @Override
+        public void didReceiveLocation(MTSBeacon mtsBeacon, String location) {
+            EventBus.getDefault().post(new MTSBeaconStringEvent(MTSService.MTSEventType.didReceiveLocation, location, mtsBeacon));
+        }
+
+        @Override
+        public void didReceiveAssetNumber(MTSBeacon mtsBeacon, int assetNumber) {
+            EventBus.getDefault().post(new MTSBeaconIntEvent(MTSService.MTSEventType.didReceiveAssetNumber, assetNumber, mtsBeacon, isLegacyValueFilled));
+        }
+
+        @Override
+        public void didReceiveDenomination(MTSBeacon mtsBeacon, int denomination) {
+            EventBus.getDefault().post(new MTSBeaconIntEvent(MTSService.MTSEventType.didReceiveDenomination, denomination, mtsBeacon, isLegacyValueFilled));
+        }
+
+        @Override
+        public void didReceiveGmiLinkActive(MTSBeacon mtsBeacon, boolean isGmiLinkActive) {
+            EventBus.getDefault().post(new MTSBeaconBooleanEvent(MTSService.MTSEventType.didReceiveGmiLinkActive, isGmiLinkActive, mtsBeacon, isLegacyValueFilled));
+        }
+
+        @Override
+        public void didReceiveTxAttenuationLevel(MTSBeacon mtsBeacon, byte txAttenuationLevel) {
+            EventBus.getDefault().post(new MTSBeaconByteEvent(MTSService.MTSEventType.didReceiveTxAttenuationLevel, txAttenuationLevel, mtsBeacon, isLegacyValueFilled));
+        }
+    };
+
+    void attach(MTSEventDispatcher eventDispatcher) {
+        eventDispatcher.addDiscoveryStateListener(discoveryStateListener);
+        eventDispatcher.addConnectionListener(connectionListener);
+        eventDispatcher.addBeaconListener(beaconListener);
+    }
+
+    void detach(MTSEventDispatcher eventDispatcher) {
+        eventDispatcher.removeDiscoveryStateListener(discoveryStateListener);
+        eventDispatcher.removeConnectionListener(connectionListener);
+        eventDispatcher.removeBeaconListener(beaconListener);
+    }
+}
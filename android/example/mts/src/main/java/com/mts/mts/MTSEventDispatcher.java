@@ -0,0 +1,111 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// Delivers MTSService events to registered listeners with direct calls on the posting thread.
+/// Listener lists are copy-on-write: registration is rare, dispatch is frequent and allocation free.
+class MTSEventDispatcher {
+
+    private final CopyOnWriteArrayList<MTSDiscoveryStateListener> discoveryStateListeners = new CopyOnWriteArrayList<MTSDiscoveryStateListener>();
+    private final CopyOnWriteArrayList<MTSConnectionListener> connectionListeners = new CopyOnWriteArrayList<MTSConnectionListener>();
+    private final CopyOnWriteArrayList<MTSBeaconListener> beaconListeners = new CopyOnWriteArrayList<MTSBeaconListener>();
+
+    void addDiscoveryStateListener(MTSDiscoveryStateListener listener) {
+        discoveryStateListeners.addIfAbsent(listener);
+    }
+
+    void removeDiscoveryStateListener(MTSDiscoveryStateListener listener) {
+        discoveryStateListeners.remove(listener);
+    }
+
+    void addConnectionListener(MTSConnectionListener listener) {
+        connectionListeners.addIfAbsent(listener);
+    }
+
+    void removeConnectionListener(MTSConnectionListener listener) {
+        connectionListeners.remove(listener);
+    }
+
+    void addBeaconListener(MTSBeaconListener listener) {
+        beaconListeners.addIfAbsent(listener);
+    }
+
+    void removeBeaconListener(MTSBeaconListener listener) {
+        beaconListeners.remove(listener);
+    }
+
+    void discoveryStateChanged(MTSService.BluetoothDiscoveryState oldState, MTSService.BluetoothDiscoveryState newState) {
+        for (MTSDiscoveryStateListener listener : discoveryStateListeners) {
+            listener.onDiscoveryStateChanged(oldState, newState);
+        }
+    }
+
+    void connectionEventOccurred(MTSService.BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {
+        for (MTSConnectionListener listener : connectionListeners) {
+            listener.onConnectionEvent(connectionEvent, mtsBeacon);
+        }
+    }
+
+    void didReceiveTerminalKind(MTSBeacon mtsBeacon, String terminalKind) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveTerminalKind(mtsBeacon, terminalKind);
+        }
+    }
+
+    void didReceiveCardData(MTSBeacon mtsBeacon, String cardData) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveCardData(mtsBeacon, cardData);
+        }
+    }
+
+    void didWriteCardDataToBluetooth(MTSBeacon mtsBeacon, boolean wasSuccess) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didWriteCardDataToBluetooth(mtsBeacon, wasSuccess);
+        }
+    }
+
+    void updateOnConnectedRSSIReceipt(MTSBeacon mtsBeacon, int rssi) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.updateOnConnectedRSSIReceipt(mtsBeacon, rssi);
+        }
+    }
+
+    void didReceiveSasSerialNumber(MTSBeacon mtsBeacon, String sasSerialNumber) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveSasSerialNumber(mtsBeacon, sasSerialNumber);
+        }
+    }
+
+    void didReceiveLocation(MTSBeacon mtsBeacon, String location) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveLocation(mtsBeacon, location);
+        }
+    }
+
+    void didReceiveAssetNumber(MTSBeacon mtsBeacon, int assetNumber) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveAssetNumber(mtsBeacon, assetNumber);
+        }
+    }
+
+    void didReceiveDenomination(MTSBeacon mtsBeacon, int denomination) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveDenomination(mtsBeacon, denomination);
+        }
+    }
+
+    void didReceiveGmiLinkActive(MTSBeacon mtsBeacon, boolean isGmiLinkActive) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveGmiLinkActive(mtsBeacon, isGmiLinkActive);
+        }
+    }
+
+    void didReceiveTxAttenuationLevel(MTSBeacon mtsBeacon, byte txAttenuationLevel) {
+        for (MTSBeaconListener listener : beaconListeners) {
+            listener.didReceiveTxAttenuationLevel(mtsBeacon, txAttenuationLevel);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Hex encoding and decoding for logging and identifiers, shared by the library.  Encoding looks each byte up in a
+/// table of digit pairs, and decoding looks each char up in a table of nibbles.  The appendTo(...) and
+/// write(...) forms add to a caller supplied StringBuilder or char[] without allocating, and lazy(...) defers
+/// formatting until the result's toString() runs, for loggers that only format enabled messages.
+public final class MTSHex {
+
+    // Two chars per byte value: kUpperCasePairs[2 * b] and kUpperCasePairs[2 * b + 1].
+    private static final char[] kUpperCasePairs = pairs("0123456789ABCDEF");
+    private static final char[] kLowerCasePairs = pairs("0123456789abcdef");
+    // Nibble value per ASCII char, -1 for chars that are not hex digits.
+    private static final byte[] kNibbles = nibbles();
+
+    private MTSHex() {
+    }
+
+    private static char[] pairs(String digits) {
+        char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[2 * b] = digits.charAt(b >>> 4);
+            pairs[2 * b + 1] = digits.charAt(b & 0x0F);
+        }
+        return pairs;
+    }
+
+    private static byte[] nibbles() {
+        byte[] nibbles = new byte[128];
+        for (int c = 0; c < nibbles.length; c++) {
+            nibbles[c] = (byte) Character.digit(c, 16);
+        }
+        return nibbles;
+    }
+
+    /// Upper case, e.g. "00A050".
+    public static String toHex(byte[] bytes) {
+        return toHex(bytes, 0, bytes.length, true);
+    }
+
+    public static String toHex(byte[] bytes, int offset, int length) {
+        return toHex(bytes, offset, length, true);
+    }
+
+    public static String toHex(byte[] bytes, int offset, int length, boolean upperCase) {
+        char[] chars = new char[length * 2];
+        write(bytes, offset, length, chars, 0, upperCase);
+        return new String(chars);
+    }
+
+    /// Writes 2 * length chars to destination from destinationOffset, returns the number of chars written.
+    public static int write(byte[] bytes, int offset, int length, char[] destination, int destinationOffset, boolean upperCase) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + " length " + length + " for " + bytes.length + " bytes");
+        }
+        char[] pairs = upperCase ? kUpperCasePairs : kLowerCasePairs;
+        int d = destinationOffset;
+        for (int i = offset; i < offset + length; i++) {
+            int pair = (bytes[i] & 0xFF) << 1;
+            destination[d++] = pairs[pair];
+            destination[d++] = pairs[pair + 1];
+        }
+        return d - destinationOffset;
+    }
+
+    public static StringBuilder appendTo(StringBuilder destination, byte[] bytes) {
+        return appendTo(destination, bytes, 0, bytes.length, true);
+    }
+
+    public static StringBuilder appendTo(StringBuilder destination, byte[] bytes, int offset, int length, boolean upperCase) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + " length " + length + " for " + bytes.length + " bytes");
+        }
+        char[] pairs = upperCase ? kUpperCasePairs : kLowerCasePairs;
+        destination.ensureCapacity(destination.length() + length * 2);
+        for (int i = offset; i < offset + length; i++) {
+            int pair = (bytes[i] & 0xFF) << 1;
+            destination.append(pairs[pair]).append(pairs[pair + 1]);
+        }
+        return destination;
+    }
+
+    /// Appends the two digits of a single byte, e.g. for a company identifier byte.
+    public static StringBuilder appendTo(StringBuilder destination, int b, boolean upperCase) {
+        char[] pairs = upperCase ? kUpperCasePairs : kLowerCasePairs;
+        int pair = (b & 0xFF) << 1;
+        return destination.append(pairs[pair]).append(pairs[pair + 1]);
+    }
+
+    /// Accepts either case.  Throws IllegalArgumentException for an odd length or a char that is not a hex digit.
+    public static byte[] fromHex(CharSequence hex) {
+        if (0 != (hex.length() & 1)) {
+            throw new IllegalArgumentException("Hex string has odd length " + hex.length());
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        fromHex(hex, 0, hex.length(), bytes, 0);
+        return bytes;
+    }
+
+    /// Decodes the chars from start to end of hex into destination from offset, returns the number of bytes written.
+    public static int fromHex(CharSequence hex, int start, int end, byte[] destination, int offset) {
+        if (0 != ((end - start) & 1)) {
+            throw new IllegalArgumentException("Hex string has odd length " + (end - start));
+        }
+        int d = offset;
+        for (int i = start; i < end; i += 2) {
+            destination[d++] = (byte) ((nibble(hex, i) << 4) | nibble(hex, i + 1));
+        }
+        return d - offset;
+    }
+
+    private static int nibble(CharSequence hex, int index) {
+        char c = hex.charAt(index);
+        int nibble = (c < kNibbles.length) ? kNibbles[c] : -1;
+        if (nibble < 0) {
+            throw new IllegalArgumentException("Not a hex digit '" + c + "' at index " + index);
+        }
+        return nibble;
+    }
+
+    /// Formats when toString() is called, not before: pass it as an argument to a logger that formats only
+    /// enabled messages, e.g. Timber.v("value <%s>", MTSHex.lazy(value)).  The bytes are not copied, so the
+    /// result reflects the array at the time it is formatted.
+    public static Object lazy(byte[] bytes) {
+        return lazy(bytes, 0, (null == bytes) ? 0 : bytes.length, true);
+    }
+
+    public static Object lazy(final byte[] bytes, final int offset, final int length, final boolean upperCase) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return (null == bytes) ? "-" : toHex(bytes, offset, length, upperCase);
+            }
+        };
+    }
+}
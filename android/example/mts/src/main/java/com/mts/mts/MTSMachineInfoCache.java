@@ -0,0 +1,303 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/// Disk backed LRU cache of the static machine info values (sasSerialNumber, location, assetNumber,
+/// denomination) keyed by MTSBeacon.mtsIdentifier, so a reconnect can report them without GATT reads.
+/// Used from the MTSService callback thread.  The file is read and written on a worker thread: lookups miss until
+/// the read finishes rather than wait for it, and the updates of one connect are written together.
+class MTSMachineInfoCache {
+
+    static final int kSasSerialNumberField = 1;
+    static final int kLocationField = 1 << 1;
+    static final int kAssetNumberField = 1 << 2;
+    static final int kDenominationField = 1 << 3;
+
+    // Bump when the file layout or the meaning of a cached value changes, older files are discarded.
+    private static final int kFormatVersion = 1;
+    // A connect updates each field in turn, the file is written once for all of them.
+    private static final long kWriteDelay = 1000;
+
+    static class MachineInfo {
+        int fields;
+        String sasSerialNumber;
+        String location;
+        int assetNumber;
+        int denomination;
+        long validatedAt; // System.currentTimeMillis(), survives reboots unlike elapsedRealtime.
+
+        boolean has(int field) {
+            return 0 != (fields & field);
+        }
+
+        MachineInfo copy() {
+            MachineInfo entry = new MachineInfo();
+            entry.fields = fields;
+            entry.sasSerialNumber = sasSerialNumber;
+            entry.location = location;
+            entry.assetNumber = assetNumber;
+            entry.denomination = denomination;
+            entry.validatedAt = validatedAt;
+            return entry;
+        }
+    }
+
+    private final File file;
+    private final long timeToLive;
+    private final long revalidateAfter;
+    // Guarded by this, the worker thread merges the file into it and copies it for writes.
+    private final LinkedHashMap<String, MachineInfo> entries;
+    // Daemon, so a pending write does not keep a JVM alive.  On Android the process outlives the service anyway.
+    private final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "MTSMachineInfoCache");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    // Cleared by clear(), so entries read from an outdated file are not merged.
+    private boolean isLoadPending = true;
+    private ScheduledFuture<?> pendingWrite;
+    private final Runnable writeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            ArrayList<String> identifiers;
+            ArrayList<MachineInfo> snapshot;
+            synchronized (MTSMachineInfoCache.this) {
+                pendingWrite = null;
+                identifiers = new ArrayList<String>(entries.size());
+                snapshot = new ArrayList<MachineInfo>(entries.size());
+                for (Map.Entry<String, MachineInfo> entry : entries.entrySet()) {
+                    identifiers.add(entry.getKey());
+                    snapshot.add(entry.getValue().copy());
+                }
+            }
+            write(identifiers, snapshot);
+        }
+    };
+
+    /// @param capacity        maximum number of terminals kept, least recently used are evicted first.
+    /// @param timeToLive      milliseconds after which an entry is discarded and not reported at all.
+    /// @param revalidateAfter milliseconds after which an entry is still reported but read again in the background.
+    MTSMachineInfoCache(File file, final int capacity, long timeToLive, long revalidateAfter) {
+        this.file = file;
+        this.timeToLive = timeToLive;
+        this.revalidateAfter = revalidateAfter;
+        this.entries = new LinkedHashMap<String, MachineInfo>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MachineInfo> eldest) {
+                return size() > capacity;
+            }
+        };
+        writeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                merge(load());
+            }
+        });
+    }
+
+    /// Returns the entry for mtsIdentifier, or null if there is none, it has expired or the file is still being read.
+    synchronized MachineInfo get(String mtsIdentifier) {
+        if (null == mtsIdentifier) {
+            return null;
+        }
+        MachineInfo entry = entries.get(mtsIdentifier);
+        if (null == entry) {
+            return null;
+        }
+        if (age(entry) > timeToLive) {
+            entries.remove(mtsIdentifier);
+            scheduleWrite();
+            return null;
+        }
+        return entry;
+    }
+
+    boolean needsRevalidation(MachineInfo entry) {
+        return age(entry) > revalidateAfter;
+    }
+
+    synchronized void putSasSerialNumber(String mtsIdentifier, String sasSerialNumber) {
+        MachineInfo entry = entryForUpdate(mtsIdentifier);
+        if (null == entry) { return; }
+        entry.sasSerialNumber = sasSerialNumber;
+        markUpdated(entry, kSasSerialNumberField);
+    }
+
+    synchronized void putLocation(String mtsIdentifier, String location) {
+        MachineInfo entry = entryForUpdate(mtsIdentifier);
+        if (null == entry) { return; }
+        entry.location = location;
+        markUpdated(entry, kLocationField);
+    }
+
+    synchronized void putAssetNumber(String mtsIdentifier, int assetNumber) {
+        MachineInfo entry = entryForUpdate(mtsIdentifier);
+        if (null == entry) { return; }
+        entry.assetNumber = assetNumber;
+        markUpdated(entry, kAssetNumberField);
+    }
+
+    synchronized void putDenomination(String mtsIdentifier, int denomination) {
+        MachineInfo entry = entryForUpdate(mtsIdentifier);
+        if (null == entry) { return; }
+        entry.denomination = denomination;
+        markUpdated(entry, kDenominationField);
+    }
+
+    synchronized void clear() {
+        isLoadPending = false;
+        entries.clear();
+        scheduleWrite();
+    }
+
+    private long age(MachineInfo entry) {
+        return System.currentTimeMillis() - entry.validatedAt;
+    }
+
+    private MachineInfo entryForUpdate(String mtsIdentifier) {
+        if (null == mtsIdentifier) {
+            return null;
+        }
+        MachineInfo entry = entries.get(mtsIdentifier);
+        if (null == entry) {
+            entry = new MachineInfo();
+            entries.put(mtsIdentifier, entry);
+        }
+        return entry;
+    }
+
+    private void markUpdated(MachineInfo entry, int field) {
+        entry.fields |= field;
+        entry.validatedAt = System.currentTimeMillis();
+        scheduleWrite();
+    }
+
+    // Runs on writeExecutor.  Entries updated while the file was read are newer, they are kept and stay the most
+    // recently used.
+    private synchronized void merge(LinkedHashMap<String, MachineInfo> loadedEntries) {
+        if (!isLoadPending) {
+            return;
+        }
+        isLoadPending = false;
+        if (entries.isEmpty()) {
+            entries.putAll(loadedEntries);
+            return;
+        }
+        LinkedHashMap<String, MachineInfo> updatedEntries = new LinkedHashMap<String, MachineInfo>(entries);
+        entries.clear();
+        for (Map.Entry<String, MachineInfo> entry : loadedEntries.entrySet()) {
+            if (!updatedEntries.containsKey(entry.getKey())) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+        entries.putAll(updatedEntries);
+    }
+
+    // Runs on writeExecutor.
+    private LinkedHashMap<String, MachineInfo> load() {
+        LinkedHashMap<String, MachineInfo> loadedEntries = new LinkedHashMap<String, MachineInfo>();
+        if (null == file || !file.exists()) {
+            return loadedEntries;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (kFormatVersion != input.readInt()) {
+                Log.v("", "MTSMachineInfoCache discarding file with a different format version.");
+                return loadedEntries;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String mtsIdentifier = input.readUTF();
+                MachineInfo entry = new MachineInfo();
+                entry.validatedAt = input.readLong();
+                entry.fields = input.readInt();
+                if (entry.has(kSasSerialNumberField)) { entry.sasSerialNumber = input.readUTF(); }
+                if (entry.has(kLocationField)) { entry.location = input.readUTF(); }
+                if (entry.has(kAssetNumberField)) { entry.assetNumber = input.readInt(); }
+                if (entry.has(kDenominationField)) { entry.denomination = input.readInt(); }
+                // Stored least recently used first, so insertion rebuilds the access order.
+                loadedEntries.put(mtsIdentifier, entry);
+            }
+        } catch (IOException e) {
+            Log.v("", "MTSMachineInfoCache failed to load: " + e);
+            loadedEntries.clear();
+        } finally {
+            closeQuietly(input);
+        }
+        return loadedEntries;
+    }
+
+    // Called holding the lock.  Updates until the write runs are included in it; it runs after the load, which was
+    // queued first, so the file's entries have been merged by then.
+    private void scheduleWrite() {
+        if (null == file || null != pendingWrite) {
+            return;
+        }
+        pendingWrite = writeExecutor.schedule(writeRunnable, kWriteDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private void write(ArrayList<String> identifiers, ArrayList<MachineInfo> snapshot) {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+            output.writeInt(kFormatVersion);
+            output.writeInt(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                MachineInfo entry = snapshot.get(i);
+                output.writeUTF(identifiers.get(i));
+                output.writeLong(entry.validatedAt);
+                output.writeInt(entry.fields);
+                if (entry.has(kSasSerialNumberField)) { output.writeUTF(entry.sasSerialNumber); }
+                if (entry.has(kLocationField)) { output.writeUTF(entry.location); }
+                if (entry.has(kAssetNumberField)) { output.writeInt(entry.assetNumber); }
+                if (entry.has(kDenominationField)) { output.writeInt(entry.denomination); }
+            }
+            output.close();
+            output = null;
+            if (!temporaryFile.renameTo(file)) {
+                Log.v("", "MTSMachineInfoCache failed to replace " + file);
+            }
+        } catch (IOException e) {
+            Log.v("", "MTSMachineInfoCache failed to write: " + e);
+        } finally {
+            closeQuietly(output);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (null == closeable) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing further to do, the next write replaces the file.
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Source of a stream of items, after the Reactive Streams Publisher (java.util.concurrent.Flow needs API 30).
+/// Items are delivered on the main thread, only as requested through MTSSubscription.request(...).
+public interface MTSPublisher<T> {
+
+    enum OverflowPolicy {
+        dropNewest,   // a full buffer discards incoming items
+        dropOldest,   // a full buffer discards its oldest item to make room
+        latest        // only the most recent item is kept, whatever the buffer size
+    }
+
+    /// Subscribes with a buffer of kDefaultBufferSize items and OverflowPolicy.dropOldest.
+    void subscribe(MTSSubscriber<? super T> subscriber);
+
+    /// @param bufferSize items held for the subscriber while it has no outstanding demand.
+    void subscribe(MTSSubscriber<? super T> subscriber, int bufferSize, OverflowPolicy overflowPolicy);
+
+    int kDefaultBufferSize = 64;
+}
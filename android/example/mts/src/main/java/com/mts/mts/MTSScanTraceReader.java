@@ -0,0 +1,182 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/// Reads the samples of a trace written by MTSScanTraceRecorder, in order, from a read-only memory mapping of the
+/// file.  See MTSScanTraceRecorder for the format.
+public class MTSScanTraceReader {
+
+    public static class Sample {
+        /// Counts sessions from 0, each recording appended to the file is one.
+        public int session;
+        /// System.currentTimeMillis() when the session's recording started.
+        public long sessionStartedAt;
+        /// Milliseconds from the start of the session.
+        public long time;
+        public String address;
+        /// The device name when the address was first seen in the session, null if it had none.
+        public String name;
+        public int rssi;
+        /// -1 when the advertisement had no manufacturer specific data.
+        public int manufacturerId;
+        /// null when the advertisement had no manufacturer specific data.  Shared by the samples repeating it.
+        public byte[] manufacturerData;
+    }
+
+    private static final class Address {
+        final String address;
+        final String name;
+        int manufacturerId = -1;
+        byte[] manufacturerData;
+
+        Address(String address, String name) {
+            this.address = address;
+            this.name = name;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final ArrayList<Address> addresses = new ArrayList<Address>();
+    private int session = -1;
+    private long sessionStartedAt;
+    private long time;
+
+    /// Throws IOException when the file does not start with a session header of this format version.
+    public MTSScanTraceReader(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (!buffer.hasRemaining() || MTSScanTraceRecorder.kSessionTag != readVarint()) {
+            throw new IOException("Not a scan trace: " + file);
+        }
+        readSessionHeader();
+    }
+
+    /// The next sample, or null at the end of the trace.  A truncated last record ends the trace.  Throws
+    /// IOException for a session header of another format version or a sample that refers to an unknown address.
+    public Sample next() throws IOException {
+        int start = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                long tag = readVarint();
+                if (0 != (tag & 1)) {
+                    readSessionHeader();
+                    start = buffer.position();
+                    continue;
+                }
+                return readSample(tag >>> 1);
+            }
+        } catch (BufferUnderflowException e) {
+            // Leave the position at the truncated record, next() keeps returning null.
+            buffer.position(start);
+            buffer.limit(start);
+        }
+        return null;
+    }
+
+    private void readSessionHeader() throws IOException {
+        int magic = buffer.getInt();
+        int version = buffer.get();
+        if (MTSScanTraceRecorder.kMagic != magic || MTSScanTraceRecorder.kFormatVersion != version) {
+            throw new IOException("Unsupported scan trace session, magic " + Integer.toHexString(magic) + " version " + version);
+        }
+        sessionStartedAt = buffer.getLong();
+        session++;
+        time = 0;
+        addresses.clear();
+    }
+
+    private Sample readSample(long delta) throws IOException {
+        long addressTag = readVarint();
+        int addressId = (int) (addressTag >>> 1);
+        boolean isRepeatedPayload = 0 != (addressTag & 1);
+        Address address;
+        if (addressId == addresses.size()) {
+            address = readAddress();
+        } else if (addressId < addresses.size()) {
+            address = addresses.get(addressId);
+        } else {
+            throw new IOException("Scan trace sample refers to undefined address id " + addressId);
+        }
+        int rssi = buffer.get();
+        int manufacturerId = address.manufacturerId;
+        byte[] manufacturerData = address.manufacturerData;
+        if (!isRepeatedPayload) {
+            int length = (int) readVarint();
+            if (0 == length) {
+                manufacturerId = -1;
+                manufacturerData = null;
+            } else {
+                manufacturerId = buffer.getShort() & 0xFFFF;
+                manufacturerData = new byte[length - 1];
+                buffer.get(manufacturerData);
+            }
+        }
+
+        // Only commit once the whole record was read.
+        if (addressId == addresses.size()) {
+            addresses.add(address);
+        }
+        address.manufacturerId = manufacturerId;
+        address.manufacturerData = manufacturerData;
+        time += delta;
+
+        Sample sample = new Sample();
+        sample.session = session;
+        sample.sessionStartedAt = sessionStartedAt;
+        sample.time = time;
+        sample.address = address.address;
+        sample.name = address.name;
+        sample.rssi = rssi;
+        sample.manufacturerId = manufacturerId;
+        sample.manufacturerData = manufacturerData;
+        return sample;
+    }
+
+    private Address readAddress() {
+        byte[] addressBytes = new byte[6];
+        buffer.get(addressBytes);
+        StringBuilder address = new StringBuilder(17);
+        for (int i = 0; i < addressBytes.length; i++) {
+            if (0 < i) {
+                address.append(':');
+            }
+            MTSHex.appendTo(address, addressBytes[i], true);
+        }
+        String name = null;
+        int nameLength = (int) readVarint();
+        if (0 < nameLength) {
+            byte[] nameBytes = new byte[nameLength - 1];
+            buffer.get(nameBytes);
+            name = new String(nameBytes, MTSScanTraceRecorder.kUtf8);
+        }
+        return new Address(address.toString(), name);
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/// Appends scan results to a compact binary trace, for reproducing field sessions later with MTSScanTraceReader or
+/// the replayer in the mts-jvm module.  Samples are encoded into an in-memory buffer on the calling thread, and the
+/// buffer is written to the file channel on a worker thread when it is full and every kFlushInterval, so a sample
+/// costs a few bytes of copying and a crash loses at most about a second of samples.
+///
+/// Each recording appends a session: a session header, then samples.  Integers are unsigned LEB128 varints unless
+/// noted.  A record starts with a varint tag, odd for a session header and even for a sample:
+///
+///   session header   tag 1, int32 kMagic, int8 kFormatVersion, int64 System.currentTimeMillis() at start
+///   sample           tag (milliseconds since the previous sample, or since the session started) << 1,
+///                    varint (address id << 1 | 1 when the manufacturer id and data equal this address's previous
+///                    ones),
+///                    the definition when the address id is new: 6 address bytes, varint name length + 1
+///                    (0 for no name) and the UTF-8 name,
+///                    int8 RSSI,
+///                    unless the payload is repeated: varint manufacturer data length + 1 (0 for none), then
+///                    int16 manufacturer id and the manufacturer data.
+///
+/// Address ids count up from 0 within a session.  Fixed width fields are little endian.  A process that dies
+/// mid-write leaves a truncated last record, which readers treat as the end of the trace.
+public class MTSScanTraceRecorder implements Closeable {
+
+    static final int kMagic = 0x5453544D; // "MTST" when written little endian.
+    static final int kFormatVersion = 1;
+    static final int kSessionTag = 1;
+    static final Charset kUtf8 = Charset.forName("UTF-8");
+
+    private static final int kBufferSize = 16 * 1024;
+    // Tag, address id, address, RSSI and the length varints, everything but the name and the manufacturer data.
+    private static final int kMaximumFixedSampleSize = 5 + 5 + 6 + 5 + 1 + 5 + 2;
+    private static final long kFlushInterval = 1000;
+
+    // The manufacturer specific data last recorded for an address.
+    private static final class Payload {
+        int manufacturerId = -1;
+        byte[] manufacturerData;
+    }
+
+    private final FileChannel channel;
+    private final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final ScheduledFuture<?> periodicFlush;
+    private final HashMap<String, Integer> addressIds = new HashMap<String, Integer>();
+    private final ArrayList<Payload> lastPayloads = new ArrayList<Payload>();
+    private final byte[] addressBytes = new byte[6];
+    private ByteBuffer buffer = newBuffer();
+    private long lastSampleAt;
+    private long sampleCount = 0;
+    private boolean isClosed = false;
+
+    /// Opens file for appending, creating it if needed, and starts a session.
+    public MTSScanTraceRecorder(File file) throws IOException {
+        channel = new FileOutputStream(file, true).getChannel();
+        lastSampleAt = SystemClock.elapsedRealtime();
+        writeVarint(kSessionTag);
+        buffer.putInt(kMagic);
+        buffer.put((byte) kFormatVersion);
+        buffer.putLong(System.currentTimeMillis());
+        periodicFlush = writeExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, kFlushInterval, kFlushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static ByteBuffer newBuffer() {
+        return ByteBuffer.allocate(kBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /// Records the first manufacturer specific data of the scan record, which is what MTSBeacon reads.
+    public void record(ScanResult scanResult) {
+        int manufacturerId = -1;
+        byte[] manufacturerData = null;
+        ScanRecord scanRecord = scanResult.getScanRecord();
+        SparseArray<byte[]> manufacturerSpecificData = (null == scanRecord) ? null : scanRecord.getManufacturerSpecificData();
+        if (null != manufacturerSpecificData && 0 < manufacturerSpecificData.size()) {
+            manufacturerId = manufacturerSpecificData.keyAt(0);
+            manufacturerData = manufacturerSpecificData.valueAt(0);
+        }
+        record(SystemClock.elapsedRealtime(), scanResult.getDevice().getAddress(), scanResult.getDevice().getName(),
+                scanResult.getRssi(), manufacturerId, manufacturerData);
+    }
+
+    /// manufacturerData null for none.  Returns false when the sample was not recorded: the recorder is closed or
+    /// the address is not of the form 00:A0:50:12:34:56.
+    public synchronized boolean record(long elapsedRealtime, String address, String name, int rssi, int manufacturerId, byte[] manufacturerData) {
+        if (isClosed || !parseAddress(address, addressBytes)) {
+            return false;
+        }
+        Integer addressId = addressIds.get(address);
+        boolean isNewAddress = (null == addressId);
+        if (isNewAddress) {
+            addressId = addressIds.size();
+        }
+        if (null == manufacturerData) {
+            manufacturerId = -1;
+        } else {
+            // As written and read back.
+            manufacturerId &= 0xFFFF;
+        }
+        byte[] nameBytes = (isNewAddress && null != name) ? name.getBytes(kUtf8) : null;
+        Payload lastPayload = isNewAddress ? null : lastPayloads.get(addressId);
+        boolean isRepeatedPayload = null != lastPayload && lastPayload.manufacturerId == manufacturerId
+                && Arrays.equals(lastPayload.manufacturerData, manufacturerData);
+
+        int size = kMaximumFixedSampleSize + ((null == nameBytes) ? 0 : nameBytes.length)
+                + ((null == manufacturerData) ? 0 : manufacturerData.length);
+        ensureRemaining(size);
+
+        long delta = Math.max(0, elapsedRealtime - lastSampleAt);
+        lastSampleAt = Math.max(lastSampleAt, elapsedRealtime);
+        writeVarint(delta << 1);
+        writeVarint(((long) addressId << 1) | (isRepeatedPayload ? 1 : 0));
+        if (isNewAddress) {
+            buffer.put(addressBytes);
+            if (null == nameBytes) {
+                writeVarint(0);
+            } else {
+                writeVarint(nameBytes.length + 1);
+                buffer.put(nameBytes);
+            }
+            addressIds.put(address, addressId);
+            lastPayload = new Payload();
+            lastPayloads.add(lastPayload);
+        }
+        buffer.put((byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, rssi)));
+        if (!isRepeatedPayload) {
+            if (null == manufacturerData) {
+                writeVarint(0);
+            } else {
+                writeVarint(manufacturerData.length + 1);
+                buffer.putShort((short) manufacturerId);
+                buffer.put(manufacturerData);
+            }
+            lastPayload.manufacturerId = manufacturerId;
+            lastPayload.manufacturerData = (null == manufacturerData) ? null : manufacturerData.clone();
+        }
+        sampleCount++;
+        return true;
+    }
+
+    public synchronized long sampleCount() {
+        return sampleCount;
+    }
+
+    /// Hands the buffered samples to the writer thread.
+    public synchronized void flush() {
+        if (0 == buffer.position()) {
+            return;
+        }
+        final ByteBuffer full = buffer;
+        full.flip();
+        buffer = newBuffer();
+        writeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (full.hasRemaining()) {
+                        channel.write(full);
+                    }
+                } catch (IOException e) {
+                    Log.v("", "MTSScanTraceRecorder failed to write: " + e);
+                }
+            }
+        });
+    }
+
+    /// Writes what is buffered and closes the file on the writer thread, without waiting for it.
+    @Override
+    public synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+        periodicFlush.cancel(false);
+        flush();
+        isClosed = true;
+        writeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    Log.v("", "MTSScanTraceRecorder failed to close: " + e);
+                }
+            }
+        });
+        writeExecutor.shutdown();
+    }
+
+    /// Waits up to timeout milliseconds for the writes close() started, e.g. before reading the file back.  Returns
+    /// false if they are still running.
+    public boolean awaitClosed(long timeout) throws InterruptedException {
+        return writeExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void ensureRemaining(int size) {
+        if (buffer.remaining() >= size) {
+            return;
+        }
+        flush();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private void writeVarint(long value) {
+        while (0 != (value & ~0x7FL)) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static boolean parseAddress(String address, byte[] destination) {
+        if (null == address || 17 != address.length()) {
+            return false;
+        }
+        try {
+            for (int i = 0; i < 6; i++) {
+                MTSHex.fromHex(address, 3 * i, 3 * i + 2, destination, i);
+            }
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -8,6 +8,7 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattService;
 import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -18,20 +19,21 @@ import android.os.ParcelUuid;
 import android.os.SystemClock;
 import android.util.Log;
 
-import org.greenrobot.eventbus.EventBus;
-
-import java.io.Serializable;
-import java.nio.ByteBuffer;
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteOrder;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.ListIterator;
 import java.util.UUID;
 import java.util.stream.Stream;
 
+import static android.bluetooth.BluetoothGatt.CONNECTION_PRIORITY_BALANCED;
 import static android.bluetooth.BluetoothGatt.CONNECTION_PRIORITY_HIGH;
 import static android.bluetooth.BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT;
 import static com.mts.mts.BluetoothPeripheral.GATT_SUCCESS;
@@ -64,6 +66,27 @@ public class MTSService extends Service {
         didReceiveTxAttenuationLevel
     }
 
+    // When the characteristics which are not needed for the connect event are read.
+    // eager: reads for all characteristics are queued before the connect event, prior behavior.  The event does not
+    //        wait for them to complete, but anything queued in response to it waits behind them.
+    // background: cardData and terminalKind are read first, the rest are queued after the connect event.
+    // onDemand: only cardData and terminalKind are read, the rest load on the first request*(...) call.
+    public enum CharacteristicHydrationPolicy {
+        eager,
+        background,
+        onDemand
+    }
+
+    // Steps of a user disconnect.  Each step has a deadline, after which the next step is taken regardless,
+    // so a disconnected state is reached within the sum of the step deadlines.
+    enum UserDisconnectState {
+        idle,
+        writingIntent,          // userDisconnected = 1 written, awaiting onCharacteristicWrite
+        confirmingIntent,       // userDisconnected read back, gives the terminal time to act on the write
+        cancellingConnection,   // cancelConnection() called, awaiting onDisconnectedPeripheral
+        forcingDisconnect       // gatt closed locally
+    }
+
     public enum TxAttenuationLevel {
         zero  (0),
         one   (1),
@@ -77,14 +100,48 @@ public class MTSService extends Service {
 
     public MTSService() {
         super();
+        setEventBusEnabled(true);
+        registerCharacteristicHandlers();
+        eventDispatcher.addConnectionListener(new MTSConnectionListener() {
+            @Override
+            public void onConnectionEvent(BluetoothConnectionEvent connectionEvent, MTSBeacon mtsBeacon) {
+                if (connectionEventStream.hasSubscribers()) {
+                    connectionEventStream.publish(new MTSBluetoothConnectionEvent(connectionEvent, mtsBeacon));
+                }
+            }
+        });
     }
     public BluetoothDiscoveryState bluetoothDiscoveryState = BluetoothDiscoveryState.notReady;
-    public ArrayList<MTSBeacon> connectedMTSBeacons = new ArrayList<MTSBeacon>();
-    public ArrayList<MTSBeacon> detectedBeacons = new ArrayList<MTSBeacon>();
+    // Mutated on the main thread only.  Other readers use the published snapshots, see detectedBeacons().
+    private ArrayList<MTSBeacon> connectedMTSBeacons = new ArrayList<MTSBeacon>();
+    private ArrayList<MTSBeacon> detectedBeacons = new ArrayList<MTSBeacon>();
+    private volatile MTSBeaconSnapshot connectedMTSBeaconsSnapshot = MTSBeaconSnapshot.empty;
+    private volatile MTSBeaconSnapshot detectedBeaconsSnapshot = MTSBeaconSnapshot.empty;
+    // Rebuilt with connectedMTSBeaconsSnapshot, so GATT callbacks find their beacon without a scan.
+    private final HashMap<BluetoothPeripheral, MTSBeacon> connectedMTSBeaconsByPeripheral = new HashMap<BluetoothPeripheral, MTSBeacon>();
+    // Characteristic UUID to the handler decoding its value, see registerCharacteristicHandlers().
+    private final HashMap<UUID, CharacteristicHandler> characteristicHandlers = new HashMap<UUID, CharacteristicHandler>();
+    // Milliseconds between MTSBeaconListUpdates, 0 for once per display frame.
+    public long beaconListUpdateInterval = 0;
 
     private final static String TAG = "MTSService";
 
     public int cardDataCharacterCountMax = 195; // 195 + automatic null termination, so 196 total accepted by the peripheral.
+    public CharacteristicHydrationPolicy characteristicHydrationPolicy = CharacteristicHydrationPolicy.background;
+    public boolean isMachineInfoCacheEnabled = true;
+    // Warm standby: recently disconnected beacons are kept with their peripheral handle so reconnect(...)
+    // can connect directly, without waiting for an advertisement.  0 capacity disables.
+    public int warmStandbyCapacity = 4;
+    public long warmStandbyInterval = 10 * 60 * 1000;
+    // Scan while connecting: scanning continues at a reduced duty cycle during connection setup, detectedBeacons
+    // is kept, and up to maxConcurrentConnectionAttempts connections may be in setup at once.
+    public boolean isScanWhileConnectingEnabled = false;
+    public int maxConcurrentConnectionAttempts = 2;
+    // Adaptive connection priority: HIGH (and 2M PHY where supported) while GATT commands are queued, then
+    // idleConnectionPriority after idleConnectionPriorityDelay ms idle.  When disabled the link stays at HIGH.
+    public boolean isAdaptiveConnectionPriorityEnabled = true;
+    public int idleConnectionPriority = CONNECTION_PRIORITY_BALANCED;
+    public long idleConnectionPriorityDelay = 2000;
     private int kRSSIUnavailableValue = 127;
     public  UUID mtsServiceUUID = null;
     private UUID machineInfoServiceUUID = UUID.fromString("C83FE52E-0AB5-49D9-9817-98982B4C48A3");
@@ -99,8 +156,43 @@ public class MTSService extends Service {
     private ParcelUuid gmiLinkActiveCharacteristicUUID = ParcelUuid.fromString("023B4A4A-579C-495F-A61E-D3BBBFD63C4A"); // bool, read/notify, cardreader's link state for it's GMI interface as active (0x01) or inactive (0x00).
     private ParcelUuid txAttenLevelCharacteristicUUID = ParcelUuid.fromString("51D25B72-68BB-4022-9F71-0CC3DD23A032"); // uint8, read/write, change the attenuation on the device transmitter.  Allowable range is `0x00` = no attenuation through `0x03` = max attenuation (approx. -18dB).
 
+    // Value layouts, see MTSCharacteristicSchema.  Values that don't fit are logged and dropped before decoding.
+    private final MTSCharacteristicSchema cardDataSchema = MTSCharacteristicSchema.utf8s(cardDataCharacteristicUUID, 196);
+    private final MTSCharacteristicSchema terminalKindSchema = MTSCharacteristicSchema.utf8(terminalKindCharacteristicUUID, MTSCharacteristicSchema.kMaximumAttributeLength);
+    private final MTSCharacteristicSchema userDisconnectedSchema = MTSCharacteristicSchema.bool(userDisconnectedCharacteristicUUID);
+    private final MTSCharacteristicSchema sasSerialNumberSchema = MTSCharacteristicSchema.utf8s(sasSerialNumberCharacteristicUUID, 41);
+    private final MTSCharacteristicSchema locationSchema = MTSCharacteristicSchema.utf8s(locationCharacteristicUUID, 41);
+    private final MTSCharacteristicSchema assetNumberSchema = MTSCharacteristicSchema.uint32(assetNumberCharacteristicUUID, ByteOrder.LITTLE_ENDIAN);
+    private final MTSCharacteristicSchema denominationSchema = MTSCharacteristicSchema.uint32(denominationCharacteristicUUID, ByteOrder.LITTLE_ENDIAN);
+    private final MTSCharacteristicSchema gmiLinkActiveSchema = MTSCharacteristicSchema.bool(gmiLinkActiveCharacteristicUUID);
+    private final MTSCharacteristicSchema txAttenLevelSchema = MTSCharacteristicSchema.uint8(txAttenLevelCharacteristicUUID);
+
     private BluetoothCentral central;
+    // null for the device's Bluetooth adapter, see setBluetoothTransport(...).
+    private BluetoothTransport bluetoothTransport;
     private Context context;
+    private MTSMachineInfoCache machineInfoCache;
+    private MTSScanTraceRecorder scanTraceRecorder;
+    private final BluetoothBufferPool writeBufferPool = new BluetoothBufferPool(4);
+    private MTSEventDispatcher eventDispatcher = new MTSEventDispatcher();
+    private MTSEventBusAdapter eventBusAdapter = new MTSEventBusAdapter();
+    private MTSUpdateCoalescer updateCoalescer;
+    private MTSStream<MTSBeacon> discoveryStream = new MTSStream<MTSBeacon>();
+    private MTSStream<MTSBluetoothConnectionEvent> connectionEventStream = new MTSStream<MTSBluetoothConnectionEvent>();
+    private boolean isEventBusEnabled = false;
+    private MTSConnectionMetrics connectionMetrics = new MTSConnectionMetrics();
+    private LinkedHashMap<String, MTSBeacon> warmStandbyBeacons = new LinkedHashMap<String, MTSBeacon>(8, 0.75f, true);
+    private int scanMode = ScanSettings.SCAN_MODE_LOW_LATENCY;
+    private Handler userDisconnectHandler = new Handler();
+    private static long kUserDisconnectWriteDeadline = 1000;
+    private static long kUserDisconnectConfirmDeadline = 750;
+    private static long kUserDisconnectCancelDeadline = 1500;
+    private static int kDefaultMtu = 23;
+    private static int kRequestedMtu = 256;
+    private static String kMachineInfoCacheFileName = "com.mts.machineInfoCache";
+    private static int    kMachineInfoCacheCapacity = 64;
+    private static long   kMachineInfoCacheTimeToLive = 30L * 24 * 60 * 60 * 1000;
+    private static long   kMachineInfoCacheRevalidateAfter = 24L * 60 * 60 * 1000;
 
     // Properties persisted to SharedPreferences
     private static String kSharedPreferenceKey = "com.mts.service";
@@ -213,10 +305,172 @@ public class MTSService extends Service {
     public boolean initialize(Context context, UUID serviceUUID) {
         this.context = context;
         this.mtsServiceUUID = serviceUUID;
-        central = new BluetoothCentral(context, bluetoothCentralCallback, new Handler());
+        central = new BluetoothCentral(context, bluetoothCentralCallback, new Handler(), bluetoothTransport);
+        machineInfoCache = new MTSMachineInfoCache(
+                new File(context.getFilesDir(), kMachineInfoCacheFileName),
+                kMachineInfoCacheCapacity,
+                kMachineInfoCacheTimeToLive,
+                kMachineInfoCacheRevalidateAfter);
         return true;
     }
 
+    /// Radio to scan and connect with, call before initialize(...).  The default is the device's Bluetooth adapter,
+    /// the mts-jvm module has a simulated one for load tests.
+    public void setBluetoothTransport(BluetoothTransport bluetoothTransport) {
+        this.bluetoothTransport = bluetoothTransport;
+    }
+
+    // Listeners are called directly on the main thread, in registration order.
+    public void addDiscoveryStateListener(MTSDiscoveryStateListener listener) {
+        eventDispatcher.addDiscoveryStateListener(listener);
+    }
+
+    public void removeDiscoveryStateListener(MTSDiscoveryStateListener listener) {
+        eventDispatcher.removeDiscoveryStateListener(listener);
+    }
+
+    public void addConnectionListener(MTSConnectionListener listener) {
+        eventDispatcher.addConnectionListener(listener);
+    }
+
+    public void removeConnectionListener(MTSConnectionListener listener) {
+        eventDispatcher.removeConnectionListener(listener);
+    }
+
+    public void addBeaconListener(MTSBeaconListener listener) {
+        eventDispatcher.addBeaconListener(listener);
+    }
+
+    public void removeBeaconListener(MTSBeaconListener listener) {
+        eventDispatcher.removeBeaconListener(listener);
+    }
+
+    /// Detected beacons, sorted by descending rssi as of the most recent advertisement.
+    public MTSBeaconSnapshot detectedBeacons() {
+        return detectedBeaconsSnapshot;
+    }
+
+    /// Beacons connected or connecting.
+    public MTSBeaconSnapshot connectedMTSBeacons() {
+        return connectedMTSBeaconsSnapshot;
+    }
+
+    public void clearDetectedBeacons() {
+        clearDiscoveredBeacons();
+    }
+
+    private void publishDetectedBeacons() {
+        detectedBeaconsSnapshot = detectedBeaconsSnapshot.next(detectedBeacons);
+    }
+
+    private void publishConnectedMTSBeacons() {
+        MTSBeaconSnapshot snapshot = connectedMTSBeaconsSnapshot.next(connectedMTSBeacons);
+        if (snapshot == connectedMTSBeaconsSnapshot) {
+            return;
+        }
+        connectedMTSBeaconsSnapshot = snapshot;
+        connectedMTSBeaconsByPeripheral.clear();
+        for (MTSBeacon beacon : connectedMTSBeacons) {
+            connectedMTSBeaconsByPeripheral.put(beacon.peripheral, beacon);
+        }
+    }
+
+    /// Every advertisement from a detected beacon, after detectedBeacons has been updated with it.
+    public MTSPublisher<MTSBeacon> discoveredBeacons() {
+        return discoveryStream;
+    }
+
+    public MTSPublisher<MTSBluetoothConnectionEvent> connectionEvents() {
+        return connectionEventStream;
+    }
+
+    public void addBeaconListUpdateListener(MTSBeaconListUpdateListener listener) {
+        updateCoalescer().addListener(listener);
+    }
+
+    public void removeBeaconListUpdateListener(MTSBeaconListUpdateListener listener) {
+        updateCoalescer().removeListener(listener);
+    }
+
+    // Created on first use so its Handler binds to the main thread, not the thread constructing the service.
+    private MTSUpdateCoalescer updateCoalescer() {
+        if (null == updateCoalescer) {
+            updateCoalescer = new MTSUpdateCoalescer();
+        }
+        updateCoalescer.setInterval(beaconListUpdateInterval);
+        return updateCoalescer;
+    }
+
+    /// When enabled (the default) every event is also posted to EventBus.getDefault() as MTSBeaconEvent,
+    /// MTSBluetoothConnectionEvent or MTSBluetoothDiscoveryStateEvent.  Apps using only listeners can disable it.
+    public void setEventBusEnabled(boolean enabled) {
+        if (enabled == isEventBusEnabled) {
+            return;
+        }
+        isEventBusEnabled = enabled;
+        if (enabled) {
+            eventBusAdapter.attach(eventDispatcher);
+        } else {
+            eventBusAdapter.detach(eventDispatcher);
+        }
+    }
+
+    public boolean isEventBusEnabled() {
+        return isEventBusEnabled;
+    }
+
+    /// When enabled the int, boolean and byte events posted to EventBus also fill the deprecated
+    /// MTSBeaconEvent.value, as they always have.  Enabled by default; subscribers that read getValue() or the
+    /// typed fields can disable it to save boxing every connected RSSI read.
+    public void setEventBusLegacyValuesEnabled(boolean enabled) {
+        eventBusAdapter.isLegacyValueFilled = enabled;
+    }
+
+    /// Per phase connection latency histograms since initialize() or the last connectionMetrics().reset().
+    public MTSConnectionMetrics connectionMetrics() {
+        return connectionMetrics;
+    }
+
+    /// Appends every scan result received from now on to file, see MTSScanTraceRecorder, until
+    /// stopScanTraceRecording().  Returns false when the file could not be opened.  The mts-jvm module replays
+    /// traces into MTSService for reproducing field sessions.
+    public boolean startScanTraceRecording(File file) {
+        stopScanTraceRecording();
+        try {
+            scanTraceRecorder = new MTSScanTraceRecorder(file);
+        } catch (IOException e) {
+            Log.v(TAG, "startScanTraceRecording failed to open " + file + ": " + e);
+            return false;
+        }
+        return true;
+    }
+
+    public void stopScanTraceRecording() {
+        if (null != scanTraceRecorder) {
+            scanTraceRecorder.close();
+            scanTraceRecorder = null;
+        }
+    }
+
+    /// The recorder startScanTraceRecording(...) opened, null when not recording.
+    MTSScanTraceRecorder scanTraceRecorder() {
+        return scanTraceRecorder;
+    }
+
+    private void recordConnectionPhase(MTSConnectionMetrics.Phase phase, BluetoothPeripheral peripheral, long timestamp) {
+        long connectRequestedAt = peripheral.getConnectRequestedAt();
+        if (0 == connectRequestedAt || 0 == timestamp) {
+            return;
+        }
+        connectionMetrics.record(phase, timestamp - connectRequestedAt);
+    }
+
+    public void clearMachineInfoCache() {
+        if (null != machineInfoCache) {
+            machineInfoCache.clear();
+        }
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -225,13 +479,13 @@ public class MTSService extends Service {
     @Override
     public void onDestroy() {
         stopScanning();
+        stopScanTraceRecording();
         super.onDestroy();
     }
 
 
     // Bluetooth
 
-    ArrayList<ParcelUuid> requiredCharacteristics;
     ArrayList<ParcelUuid> allCharacteristics = new ArrayList<ParcelUuid>(Arrays.asList(
             cardDataCharacteristicUUID,
             terminalKindCharacteristicUUID,
@@ -244,30 +498,148 @@ public class MTSService extends Service {
             txAttenLevelCharacteristicUUID
         ));
 
-    private void handleCharacteristicDiscovery(BluetoothGattCharacteristic characteristic, BluetoothPeripheral peripheral) {
-        markCharacteristicDiscovered(characteristic);
-        isCharacteristicDiscoveryDone(peripheral);
+    // Read ahead of everything else after service discovery, these back the connect event.
+    ArrayList<ParcelUuid> priorityCharacteristics = new ArrayList<ParcelUuid>(Arrays.asList(
+            cardDataCharacteristicUUID,
+            terminalKindCharacteristicUUID
+        ));
+
+    private boolean isPriorityCharacteristic(BluetoothGattCharacteristic characteristic) {
+        for (ParcelUuid parcelUuid : priorityCharacteristics) {
+            if (parcelUuid.getUuid().equals(characteristic.getUuid())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int machineInfoCacheField(UUID characteristicUUID) {
+        if (sasSerialNumberCharacteristicUUID.getUuid().equals(characteristicUUID)) {
+            return MTSMachineInfoCache.kSasSerialNumberField;
+        } else if (locationCharacteristicUUID.getUuid().equals(characteristicUUID)) {
+            return MTSMachineInfoCache.kLocationField;
+        } else if (assetNumberCharacteristicUUID.getUuid().equals(characteristicUUID)) {
+            return MTSMachineInfoCache.kAssetNumberField;
+        } else if (denominationCharacteristicUUID.getUuid().equals(characteristicUUID)) {
+            return MTSMachineInfoCache.kDenominationField;
+        }
+        return 0;
+    }
+
+    private MTSMachineInfoCache.MachineInfo cachedMachineInfo(MTSBeacon mtsBeacon) {
+        if (!isMachineInfoCacheEnabled || null == machineInfoCache || null == mtsBeacon) {
+            return null;
+        }
+        return machineInfoCache.get(mtsBeacon.mtsIdentifier);
     }
 
-    private void markCharacteristicDiscovered(BluetoothGattCharacteristic characteristic) {
-        ParcelUuid parcelUuid = new ParcelUuid(characteristic.getUuid());
-        requiredCharacteristics.remove(parcelUuid);
+    private void removeCachedMachineInfoReads(ArrayList<BluetoothGattCharacteristic> characteristics, MTSMachineInfoCache.MachineInfo entry) {
+        ListIterator<BluetoothGattCharacteristic> listIterator = characteristics.listIterator();
+        while (listIterator.hasNext()) {
+            int field = machineInfoCacheField(listIterator.next().getUuid());
+            if (0 != field && entry.has(field)) {
+                listIterator.remove();
+            }
+        }
     }
 
-    private void isCharacteristicDiscoveryDone(BluetoothPeripheral peripheral) {
-        if (0 == requiredCharacteristics.size() && BluetoothDiscoveryState.scanning == bluetoothDiscoveryState) {
-            MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
-            if (null != mtsBeacon) {
-                bluetoothConnectionEventOccurred(BluetoothConnectionEvent.connect, mtsBeacon);
-            } else {
-                Log.v("", "Characteristic discovery is complete, but no matching MTSBeacon in connectedMTSBeacons.");
+    private void postCachedMachineInfo(MTSMachineInfoCache.MachineInfo entry, MTSBeacon mtsBeacon) {
+        if (null == entry || null == mtsBeacon) {
+            return;
+        }
+        if (entry.has(MTSMachineInfoCache.kSasSerialNumberField)) {
+            eventDispatcher.didReceiveSasSerialNumber(mtsBeacon, entry.sasSerialNumber);
+        }
+        if (entry.has(MTSMachineInfoCache.kLocationField)) {
+            eventDispatcher.didReceiveLocation(mtsBeacon, entry.location);
+        }
+        if (entry.has(MTSMachineInfoCache.kAssetNumberField)) {
+            eventDispatcher.didReceiveAssetNumber(mtsBeacon, entry.assetNumber);
+        }
+        if (entry.has(MTSMachineInfoCache.kDenominationField)) {
+            eventDispatcher.didReceiveDenomination(mtsBeacon, entry.denomination);
+        }
+    }
+
+    private boolean isMachineInfoCacheWritable(MTSBeacon mtsBeacon) {
+        return isMachineInfoCacheEnabled && null != machineInfoCache && null != mtsBeacon && null != mtsBeacon.mtsIdentifier;
+    }
+
+    private void readCharacteristics(ArrayList<BluetoothGattCharacteristic> characteristics, BluetoothPeripheral peripheral) {
+        for (BluetoothGattCharacteristic characteristic : characteristics) {
+            peripheral.readCharacteristic(characteristic);
+        }
+    }
+
+    // Discovery progress is tracked per beacon as a bitmask over allCharacteristics, so several
+    // beacons can be connecting at once without sharing state.
+    private int characteristicBit(UUID characteristicUUID) {
+        for (int i = 0; i < allCharacteristics.size(); i++) {
+            if (allCharacteristics.get(i).getUuid().equals(characteristicUUID)) {
+                return 1 << i;
             }
-        } else {
-            Log.v("","requiredCharacteristics.size(): " + requiredCharacteristics.size() + " list: " + requiredCharacteristics.toString());
-            if (requiredCharacteristics.size() <= 2) {
-                Log.v("","requiredCharacteristics: " + requiredCharacteristics.toString());
+        }
+        return 0;
+    }
+
+    private int requiredCharacteristicsMask() {
+        // If a deployment includes only beacons which support machineInfoServiceUUID, return
+        // the mask of allCharacteristics rather than the partial set here.
+        // N.B. requiring txAttenuationLevel breaks compatibility with some Resorts fw instances.
+        return characteristicBit(cardDataCharacteristicUUID.getUuid())
+                | characteristicBit(terminalKindCharacteristicUUID.getUuid())
+                | characteristicBit(userDisconnectedCharacteristicUUID.getUuid());
+    }
+
+    private int priorityCharacteristicsMask() {
+        int mask = 0;
+        for (ParcelUuid characteristicUUID : priorityCharacteristics) {
+            mask |= characteristicBit(characteristicUUID.getUuid());
+        }
+        return mask;
+    }
+
+    private void markPriorityCharacteristicRead(UUID characteristicUUID, MTSBeacon mtsBeacon, BluetoothPeripheral peripheral) {
+        if (0 == mtsBeacon.unreadPriorityCharacteristics) {
+            return;
+        }
+        mtsBeacon.unreadPriorityCharacteristics &= ~characteristicBit(characteristicUUID);
+        if (0 == mtsBeacon.unreadPriorityCharacteristics) {
+            recordConnectionPhase(MTSConnectionMetrics.Phase.requiredCharacteristicsRead, peripheral, SystemClock.elapsedRealtime());
+        }
+    }
+
+    private String characteristicMaskDescription(int mask) {
+        ArrayList<ParcelUuid> characteristics = new ArrayList<ParcelUuid>();
+        for (int i = 0; i < allCharacteristics.size(); i++) {
+            if (0 != (mask & (1 << i))) {
+                characteristics.add(allCharacteristics.get(i));
             }
         }
+        return characteristics.toString();
+    }
+
+    private void markCharacteristicDiscovered(BluetoothGattCharacteristic characteristic, MTSBeacon mtsBeacon) {
+        mtsBeacon.undiscoveredCharacteristics &= ~characteristicBit(characteristic.getUuid());
+    }
+
+    private void isCharacteristicDiscoveryDone(BluetoothPeripheral peripheral) {
+        MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+        if (null == mtsBeacon) {
+            Log.v("", "Characteristic discovery is complete, but no matching MTSBeacon in connectedMTSBeacons.");
+            return;
+        }
+        if (mtsBeacon.isCharacteristicDiscoveryComplete) {
+            return;
+        }
+        if (0 == mtsBeacon.undiscoveredCharacteristics && BluetoothDiscoveryState.notReady != bluetoothDiscoveryState) {
+            mtsBeacon.isCharacteristicDiscoveryComplete = true;
+            updateScanDutyCycle();
+            bluetoothConnectionEventOccurred(BluetoothConnectionEvent.connect, mtsBeacon);
+            recordConnectionPhase(MTSConnectionMetrics.Phase.connectEventPosted, peripheral, SystemClock.elapsedRealtime());
+        } else {
+            Log.v("","undiscoveredCharacteristics for " + mtsBeacon.address + ": " + characteristicMaskDescription(mtsBeacon.undiscoveredCharacteristics));
+        }
     }
 
     // Callback for peripherals
@@ -275,17 +647,57 @@ public class MTSService extends Service {
         @Override
         public void onServicesDiscovered(BluetoothPeripheral peripheral) {
             Log.v("","onServicesDiscovered");
-            peripheral.requestConnectionPriority(CONNECTION_PRIORITY_HIGH);
+            if (isAdaptiveConnectionPriorityEnabled) {
+                // The reads queued below raise the priority for hydration.
+                peripheral.setAdaptiveConnectionPriority(true, idleConnectionPriority, idleConnectionPriorityDelay);
+            } else {
+                peripheral.requestConnectionPriority(CONNECTION_PRIORITY_HIGH);
+            }
+
+            // Mark discovery for every characteristic first, but hold the connect event until the
+            // priority reads are queued so they are not stuck behind the machine info reads.
+            MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+            ArrayList<BluetoothGattCharacteristic> deferredReads = new ArrayList<BluetoothGattCharacteristic>();
             for (BluetoothGattService service : peripheral.getServices()) {
                 for (BluetoothGattCharacteristic characteristic : service.getCharacteristics()) {
-                    handleCharacteristicDiscovery(characteristic, peripheral);
+                    if (null != mtsBeacon) {
+                        markCharacteristicDiscovered(characteristic, mtsBeacon);
+                    }
                     // Skip the initial read of userDisconnectedCharacteristic.  The didUpdate for
                     // this is evaluated as a response to a disconnect request.
-                    if (!userDisconnectedCharacteristicUUID.getUuid().equals(characteristic.getUuid())) {
+                    if (userDisconnectedCharacteristicUUID.getUuid().equals(characteristic.getUuid())) {
+                        continue;
+                    }
+                    if (isPriorityCharacteristic(characteristic)) {
                         peripheral.readCharacteristic(characteristic);
+                    } else {
+                        deferredReads.add(characteristic);
                     }
                 }
             }
+
+            // Values cached from a prior session are reported right after the connect event. Reads for
+            // them are skipped unless the entry is due for revalidation, which then happens in the background.
+            MTSMachineInfoCache.MachineInfo cachedMachineInfo = cachedMachineInfo(mtsBeacon);
+            if (null != cachedMachineInfo && !machineInfoCache.needsRevalidation(cachedMachineInfo)) {
+                removeCachedMachineInfoReads(deferredReads, cachedMachineInfo);
+            }
+
+            if (CharacteristicHydrationPolicy.eager == characteristicHydrationPolicy) {
+                readCharacteristics(deferredReads, peripheral);
+                isCharacteristicDiscoveryDone(peripheral);
+                postCachedMachineInfo(cachedMachineInfo, mtsBeacon);
+                return;
+            }
+
+            isCharacteristicDiscoveryDone(peripheral);
+            postCachedMachineInfo(cachedMachineInfo, mtsBeacon);
+
+            // The connect event is delivered synchronously to main thread subscribers, so anything
+            // they queue in response (e.g. writeCardDataToBluetooth) is ahead of these reads.
+            if (CharacteristicHydrationPolicy.background == characteristicHydrationPolicy) {
+                readCharacteristics(deferredReads, peripheral);
+            }
         }
 
         @Override
@@ -296,22 +708,22 @@ public class MTSService extends Service {
         public void onCharacteristicWrite(BluetoothPeripheral peripheral, byte[] value, BluetoothGattCharacteristic characteristic, int status) {
             UUID characteristicUUID = characteristic.getUuid();
             if (cardDataCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-                Log.v("","writeCardDataToBluetooth: event.wasSuccess(): " + (status == GATT_SUCCESS) + " for value: "  + bytesToHex(value));
+                if (isValueLoggingEnabled()) {
+                    Log.v(TAG, "writeCardDataToBluetooth: event.wasSuccess(): " + (status == GATT_SUCCESS) + " for value: "  + MTSHex.toHex(value));
+                }
                 MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
                 if (null == mtsBeacon) { return; }
-                MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                        MTSEventType.didWriteCardDataToBluetooth,
-                        status == GATT_SUCCESS,
-                        mtsBeacon
-
-                );
-                EventBus.getDefault().post(messageEvent);
+                eventDispatcher.didWriteCardDataToBluetooth(mtsBeacon, status == GATT_SUCCESS);
             } else if (userDisconnectedCharacteristicUUID.getUuid().equals(characteristicUUID)) {
+                final MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+                if (null == mtsBeacon || UserDisconnectState.writingIntent != mtsBeacon.userDisconnectState) {
+                    return;
+                }
                 if( status == GATT_SUCCESS) {
-                    final MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
-                    if (null != mtsBeacon) {
-                        readCharacteristic(userDisconnectedCharacteristicUUID, mtsBeacon);
-                    }
+                    changeUserDisconnectState(UserDisconnectState.confirmingIntent, mtsBeacon);
+                    readCharacteristic(userDisconnectedCharacteristicUUID, mtsBeacon);
+                } else {
+                    changeUserDisconnectState(UserDisconnectState.cancellingConnection, mtsBeacon);
                 }
             }
         }
@@ -325,6 +737,11 @@ public class MTSService extends Service {
         @Override
         public void onMtuChanged(BluetoothPeripheral peripheral, int mtu, int status) {
             super.onMtuChanged(peripheral, mtu, status);
+            MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+            if (GATT_SUCCESS == status && null != mtsBeacon) {
+                mtsBeacon.mtu = mtu;
+                recordConnectionPhase(MTSConnectionMetrics.Phase.mtuNegotiated, peripheral, SystemClock.elapsedRealtime());
+            }
         }
 
         @Override
@@ -339,15 +756,8 @@ public class MTSService extends Service {
                 evaluateVsAutoDisconnectThreshold(rssi, mtsBeacon);
 
                 // Broadcast the RSSI update
-                String connectedRSSIValue = "- - -";
-                connectedRSSIValue = String.valueOf(rssi);
-
-                MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                        MTSEventType.updateOnConnectedRSSIReceipt,
-                        connectedRSSIValue,
-                        mtsBeacon
-                );
-                EventBus.getDefault().post(messageEvent);
+                eventDispatcher.updateOnConnectedRSSIReceipt(mtsBeacon, rssi);
+                updateCoalescer().connectedRSSIChanged(mtsBeacon, rssi);
             } else {
                 Log.v("","onReadRemoteRssi failed with status: " + status);
             }
@@ -367,20 +777,39 @@ public class MTSService extends Service {
             //Why: completion of the characteristic discovery process is when
             //the beacon is ready for interaction.  Defer these until then.
 
-            // If a deployment includes only beacons which support machineInfoServiceUUID, assign
-            // allCharacteristics rather than the partial set here.
-            requiredCharacteristics = new ArrayList<ParcelUuid>(Arrays.asList(
-                    cardDataCharacteristicUUID,
-                    terminalKindCharacteristicUUID,
-                    userDisconnectedCharacteristicUUID
-                    // N.B. requiring txAttenuationLevel breaks compatibility with some Resorts fw instances.
-            ));
-            peripheral.requestMtu(256);
+            MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+            if (null != mtsBeacon) {
+                mtsBeacon.undiscoveredCharacteristics = requiredCharacteristicsMask();
+                mtsBeacon.unreadPriorityCharacteristics = priorityCharacteristicsMask();
+                mtsBeacon.isCharacteristicDiscoveryComplete = false;
+            } else {
+                Log.v("","onConnectedPeripheral called for beacon absent from connectedMTSBeacons.");
+            }
+            recordConnectionPhase(MTSConnectionMetrics.Phase.linkUp, peripheral, peripheral.getLinkUpAt());
+            recordConnectionPhase(MTSConnectionMetrics.Phase.servicesDiscovered, peripheral, peripheral.getServicesDiscoveredAt());
+
+            // MTU is per connection, but a terminal that stayed at the default last time will again, so
+            // skip that round trip on a warm reconnect.
+            if (null == mtsBeacon || kDefaultMtu != mtsBeacon.mtu) {
+                peripheral.requestMtu(kRequestedMtu);
+            }
         }
 
         @Override
         public void onConnectionFailed(BluetoothPeripheral peripheral, final int status) {
             //Timber.e("connection '%s' failed with status %d", peripheral.getName(), status);
+            // Failed attempts never reach onDisconnectedPeripheral, release the beacon here instead.
+            Log.v("","onConnectionFailed "+peripheral.getName()+" with status: "+status);
+            MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
+            if (null == mtsBeacon) {
+                return;
+            }
+            connectedMTSBeacons.remove(mtsBeacon);
+            publishConnectedMTSBeacons();
+            mtsBeacon.isCharacteristicDiscoveryComplete = false;
+            resetUserDisconnectState(mtsBeacon);
+            updateScanDutyCycle();
+            bluetoothConnectionEventOccurred(BluetoothConnectionEvent.disconnect, mtsBeacon);
         }
 
         @Override
@@ -389,6 +818,11 @@ public class MTSService extends Service {
             MTSBeacon mtsBeacon = connectedMTSBeaconFromPeripheral(peripheral);
             if (null != mtsBeacon) {
                 connectedMTSBeacons.remove(mtsBeacon);
+                publishConnectedMTSBeacons();
+                mtsBeacon.isCharacteristicDiscoveryComplete = false;
+                resetUserDisconnectState(mtsBeacon);
+                addWarmStandbyBeacon(mtsBeacon);
+                updateScanDutyCycle();
             } else {
                 Log.v("","onDisconnectedPeripheral called for beacon already absent from connectedMTSBeacons.");
             }
@@ -397,6 +831,9 @@ public class MTSService extends Service {
 
         @Override
         public void onDiscoveredPeripheral(BluetoothPeripheral peripheral, ScanResult scanResult) {
+            if (null != scanTraceRecorder) {
+                scanTraceRecorder.record(scanResult);
+            }
             stopScanRestartTimer();
 
             if (BluetoothDiscoveryState.scanning != bluetoothDiscoveryState) {
@@ -412,6 +849,10 @@ public class MTSService extends Service {
             }
 
             MTSBeacon beacon = new MTSBeacon(peripheral, scanResult, MTSService.this);
+            MTSBeacon warmBeacon = warmStandbyBeacon(peripheral.getAddress());
+            if (null != warmBeacon) {
+                beacon.mtu = warmBeacon.mtu;
+            }
             addOrUpdateBeacon(beacon, scanResult);
             evaluateVsAutoConnectThreshold();
         }
@@ -428,11 +869,11 @@ public class MTSService extends Service {
     };
 
     private void updateDiscoveryStateBasedOnAdapterState() {
-        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        if (null == bluetoothAdapter) {
+        BluetoothTransport transport = (null != bluetoothTransport) ? bluetoothTransport : new AndroidBluetoothTransport();
+        if (!transport.isSupported()) {
             return;
         }
-        if (BluetoothAdapter.STATE_ON == bluetoothAdapter.getState()) {
+        if (transport.isEnabled()) {
             changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
         } else {
             changeBluetoothDiscoveryState(BluetoothDiscoveryState.notReady);
@@ -440,18 +881,124 @@ public class MTSService extends Service {
     }
 
     private void clearBeaconState() {
+        reportBeaconsRemoved(detectedBeacons);
         detectedBeacons = new ArrayList<MTSBeacon>();
+        warmStandbyBeacons.clear();
         connectedMTSBeacons = new ArrayList<MTSBeacon>();
+        publishDetectedBeacons();
+        publishConnectedMTSBeacons();
         bluetoothConnectionEventOccurred(BluetoothConnectionEvent.disabled, null);
     }
 
     private MTSBeacon connectedMTSBeaconFromPeripheral(BluetoothPeripheral peripheral) {
-        for (MTSBeacon beacon : connectedMTSBeacons) {
-            if (peripheral.equals(beacon.peripheral)) {
-                return beacon;
-            }
+        return connectedMTSBeaconsByPeripheral.get(peripheral);
+    }
+
+    /// Decodes a characteristic value and reports it for mtsBeacon.  Registered per characteristic UUID,
+    /// see registerCharacteristicHandlers().  onValue is only called for values schema.isValid(...) accepts.
+    abstract static class CharacteristicHandler {
+        final MTSCharacteristicSchema schema;
+
+        CharacteristicHandler(MTSCharacteristicSchema schema) {
+            this.schema = schema;
         }
-        return null;
+
+        abstract void onValue(MTSBeacon mtsBeacon, byte[] value);
+    }
+
+    void registerCharacteristicHandler(CharacteristicHandler handler) {
+        characteristicHandlers.put(handler.schema.uuid, handler);
+    }
+
+    private void registerCharacteristicHandlers() {
+        registerCharacteristicHandler(new CharacteristicHandler(terminalKindSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                String terminalKind = schema.decodeString(value);
+                Log.v(TAG, "terminalKind: " + terminalKind);
+                eventDispatcher.didReceiveTerminalKind(mtsBeacon, terminalKind);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(cardDataSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                String cardData = schema.decodeString(value);
+                if (isValueLoggingEnabled()) {
+                    Log.v(TAG, "handleOnCharacteristicChanged cardDataCharacteristicUUID cardDataString: " + cardData + " hex: " + MTSHex.toHex(value));
+                }
+                eventDispatcher.didReceiveCardData(mtsBeacon, cardData);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(userDisconnectedSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                // Even with BLEssed queueing, Android doesn't handling an immediate disconnect after writing,
+                // the intent characteristic as iOS does.  Wait to allow the receiving device to receive.
+                System.out.println("handleOnCharacteristicChanged userDisconnectedCharacteristicUUID");
+                if (UserDisconnectState.cancellingConnection.compareTo(mtsBeacon.userDisconnectState) > 0) {
+                    changeUserDisconnectState(UserDisconnectState.cancellingConnection, mtsBeacon);
+                }
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(sasSerialNumberSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                String sasSerialNumber = schema.decodeString(value);
+                Log.v(TAG, "sasSerialNumber: " + sasSerialNumber);
+                if (isMachineInfoCacheWritable(mtsBeacon)) {
+                    machineInfoCache.putSasSerialNumber(mtsBeacon.mtsIdentifier, sasSerialNumber);
+                }
+                eventDispatcher.didReceiveSasSerialNumber(mtsBeacon, sasSerialNumber);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(locationSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                String location = schema.decodeString(value);
+                Log.v(TAG, "location: " + location);
+                if (isMachineInfoCacheWritable(mtsBeacon)) {
+                    machineInfoCache.putLocation(mtsBeacon.mtsIdentifier, location);
+                }
+                eventDispatcher.didReceiveLocation(mtsBeacon, location);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(assetNumberSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                int assetNumber = schema.decodeInt(value);
+                Log.v(TAG, "assetNumber: " + assetNumber);
+                if (isMachineInfoCacheWritable(mtsBeacon)) {
+                    machineInfoCache.putAssetNumber(mtsBeacon.mtsIdentifier, assetNumber);
+                }
+                eventDispatcher.didReceiveAssetNumber(mtsBeacon, assetNumber);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(denominationSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                int denomination = schema.decodeInt(value);
+                if (isMachineInfoCacheWritable(mtsBeacon)) {
+                    machineInfoCache.putDenomination(mtsBeacon.mtsIdentifier, denomination);
+                }
+                eventDispatcher.didReceiveDenomination(mtsBeacon, denomination);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(gmiLinkActiveSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                boolean isGmiLinkActive = schema.decodeBoolean(value);
+                mtsBeacon.isGmiLinkActive = isGmiLinkActive;
+                Log.v(TAG, "isGmiLinkActive: " + isGmiLinkActive);
+                eventDispatcher.didReceiveGmiLinkActive(mtsBeacon, isGmiLinkActive);
+            }
+        });
+        registerCharacteristicHandler(new CharacteristicHandler(txAttenLevelSchema) {
+            @Override
+            void onValue(MTSBeacon mtsBeacon, byte[] value) {
+                byte txAttenuationLevel = schema.decodeByte(value);
+                eventDispatcher.didReceiveTxAttenuationLevel(mtsBeacon, txAttenuationLevel);
+            }
+        });
     }
 
     private void handleOnCharacteristicChanged(BluetoothPeripheral peripheral, BluetoothGattCharacteristic characteristic, byte[] value) {
@@ -463,121 +1010,23 @@ public class MTSService extends Service {
             return;
         }
 
-        byte[] characteristicBytes = characteristic.getValue();
-
-        if (null == characteristicBytes) {
-            Log.v(TAG, "handleOnCharacteristicChanged: null == characteristicValue");
+        if (null == value) {
+            Log.v(TAG, "handleOnCharacteristicChanged: null == value");
             return;
         }
 
         UUID characteristicUUID = characteristic.getUuid();
-        if (terminalKindCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            String terminalKind = "- - -";
-            terminalKind = new String(value, Charset.forName("UTF-8"));
-            Log.v(TAG, "terminalKind: " + terminalKind);
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                    MTSEventType.didReceiveTerminalKind,
-                    terminalKind,
-                    mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-        else if (cardDataCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            Serializable cardData;
-            if(null != value) {
-                cardData = new String(value, Charset.forName("UTF-8"));
-                System.out.println("handleOnCharacteristicChanged cardDataCharacteristicUUID cardDataString: " + cardData + " hex: " + bytesToHex(value));
-            } else {
-                cardData = null;
-                System.out.println("handleOnCharacteristicChanged cardDataCharacteristicUUID ");
-            }
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                    MTSEventType.didReceiveCardData,
-                    cardData,
-                    mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-        else if (userDisconnectedCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            // Even with BLEssed queueing, Android doesn't handling an immediate disconnect after writing,
-            // the intent characteristic as iOS does.  Wait to allow the receiving device to receive.
-            System.out.println("handleOnCharacteristicChanged userDisconnectedCharacteristicUUID");
-            disconnectIfNeeded(mtsBeacon);
-            bluetoothConnectionEventOccurred(BluetoothConnectionEvent.pendingUserDisconnect, mtsBeacon);
-        }
-        else if (sasSerialNumberCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            String sasSerialNumber = "- - -";
-            sasSerialNumber = new String(value, Charset.forName("UTF-8"));
-            Log.v(TAG, "sasSerialNumber: " + sasSerialNumber);
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                    MTSEventType.didReceiveSasSerialNumber,
-                    sasSerialNumber,
-                    mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-
-        else if (locationCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            String location = "- - -";
-            location = new String(value, Charset.forName("UTF-8"));
-            Log.v(TAG, "location: " + location);
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                MTSEventType.didReceiveLocation,
-                location,
-                mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-
-        else if (assetNumberCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            Integer assetNumber = 0;
-            ByteBuffer byteBuffer = ByteBuffer.wrap(value);
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            assetNumber = byteBuffer.getInt();
-            Log.v(TAG, "assetNumber: " + assetNumber);
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                MTSEventType.didReceiveAssetNumber,
-                assetNumber,
-                mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-
-        else if (denominationCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            Integer denomination = 0;
-            ByteBuffer byteBuffer = ByteBuffer.wrap(value);
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            denomination = byteBuffer.getInt();
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                    MTSEventType.didReceiveDenomination,
-                denomination,
-                mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-
-        else if (gmiLinkActiveCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            boolean isGmiLinkActive = false;
-            isGmiLinkActive = (value[0] == (byte)0x01);
-            mtsBeacon.isGmiLinkActive = isGmiLinkActive;
-            Log.v(TAG, "isGmiLinkActive: " + isGmiLinkActive);
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                MTSEventType.didReceiveGmiLinkActive,
-                isGmiLinkActive,
-                mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
-        }
-
-        else if (txAttenLevelCharacteristicUUID.getUuid().equals(characteristicUUID)) {
-            byte txAttenuationLevel = value[0];
-            MTSBeaconEvent messageEvent = new MTSBeaconEvent(
-                    MTSEventType.didReceiveTxAttenuationLevel,
-                    txAttenuationLevel,
-                    mtsBeacon
-            );
-            EventBus.getDefault().post(messageEvent);
+        markPriorityCharacteristicRead(characteristicUUID, mtsBeacon, peripheral);
+        CharacteristicHandler handler = characteristicHandlers.get(characteristicUUID);
+        if (null == handler) {
+            return;
+        }
+        if (!handler.schema.isValid(value)) {
+            Log.v(TAG, "handleOnCharacteristicChanged: dropping " + value.length + " byte value, outside " + handler.schema.type + " length "
+                    + handler.schema.minimumLength + "-" + handler.schema.maximumAcceptedLength + " for " + characteristicUUID);
+            return;
         }
+        handler.onValue(mtsBeacon, value);
     }
 
 
@@ -591,9 +1040,67 @@ public class MTSService extends Service {
         changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
     }
 
+    /// Tells the terminal the player disconnected, then disconnects.  Each step is bounded by a deadline, so the
+    /// beacon is disconnected within about 3.25 seconds even if the terminal does not respond.
     public void disconnect(MTSBeacon mtsBeacon) {
-        byte[] bytes = new byte[]{1} ;
-        writeCharacteristic(userDisconnectedCharacteristicUUID, bytes, WRITE_TYPE_DEFAULT, mtsBeacon);
+        if (null == mtsBeacon) {
+            return;
+        }
+        if (UserDisconnectState.idle != mtsBeacon.userDisconnectState) {
+            Log.v(TAG, "disconnect called while already at " + mtsBeacon.userDisconnectState + ", returning early.");
+            return;
+        }
+        changeUserDisconnectState(UserDisconnectState.writingIntent, mtsBeacon);
+        writeSchemaValue(userDisconnectedSchema, 1, mtsBeacon);
+    }
+
+    private void changeUserDisconnectState(UserDisconnectState newState, final MTSBeacon mtsBeacon) {
+        Log.v(TAG, "changeUserDisconnectState from: " + mtsBeacon.userDisconnectState + " to: " + newState);
+        mtsBeacon.userDisconnectState = newState;
+        if (null != mtsBeacon.userDisconnectDeadline) {
+            userDisconnectHandler.removeCallbacks(mtsBeacon.userDisconnectDeadline);
+            mtsBeacon.userDisconnectDeadline = null;
+        }
+
+        long deadline;
+        switch (newState) {
+            case writingIntent:
+                deadline = kUserDisconnectWriteDeadline;
+                break;
+            case confirmingIntent:
+                deadline = kUserDisconnectConfirmDeadline;
+                break;
+            case cancellingConnection:
+                deadline = kUserDisconnectCancelDeadline;
+                bluetoothConnectionEventOccurred(BluetoothConnectionEvent.pendingUserDisconnect, mtsBeacon);
+                disconnectIfNeeded(mtsBeacon);
+                break;
+            case forcingDisconnect:
+                mtsBeacon.peripheral.forceDisconnect();
+                return;
+            default:
+                return;
+        }
+
+        mtsBeacon.userDisconnectDeadline = new Runnable() {
+            public void run() {
+                mtsBeacon.userDisconnectDeadline = null;
+                Log.v(TAG, "user disconnect deadline passed at " + mtsBeacon.userDisconnectState);
+                if (UserDisconnectState.cancellingConnection == mtsBeacon.userDisconnectState) {
+                    changeUserDisconnectState(UserDisconnectState.forcingDisconnect, mtsBeacon);
+                } else {
+                    changeUserDisconnectState(UserDisconnectState.cancellingConnection, mtsBeacon);
+                }
+            }
+        };
+        userDisconnectHandler.postDelayed(mtsBeacon.userDisconnectDeadline, deadline);
+    }
+
+    private void resetUserDisconnectState(MTSBeacon mtsBeacon) {
+        if (null == mtsBeacon || UserDisconnectState.idle == mtsBeacon.userDisconnectState) {
+            return;
+        }
+        changeUserDisconnectState(UserDisconnectState.idle, mtsBeacon);
     }
 
     public void readCharacteristic(ParcelUuid characteristicUUID, MTSBeacon mtsBeacon) {
@@ -622,6 +1129,11 @@ public class MTSService extends Service {
     }
 
     public void writeCharacteristic(ParcelUuid characteristicUUID, final byte[] value, int writeType, MTSBeacon mtsBeacon) {
+        writeCharacteristic(characteristicUUID, value, (null == value) ? 0 : value.length, writeType, mtsBeacon);
+    }
+
+    /// Writes the first length bytes of value.  The bytes are copied before this returns, so value may be reused.
+    public void writeCharacteristic(ParcelUuid characteristicUUID, final byte[] value, int length, int writeType, MTSBeacon mtsBeacon) {
 
         if (null == mtsBeacon) {
             Log.v("","writeCharacteristic failed at if (null == mtsBeacon).");
@@ -638,8 +1150,10 @@ public class MTSService extends Service {
             return;
         }
 
-        mtsBeacon.peripheral.writeCharacteristic(characteristic, value, writeType);
-        Log.v("","writeCharacteristic complete for " + characteristicUUID.toString() + " with data: " + bytesToHex(value) );
+        mtsBeacon.peripheral.writeCharacteristic(characteristic, value, length, writeType);
+        if (isValueLoggingEnabled()) {
+            Log.v(TAG, "writeCharacteristic complete for " + characteristicUUID.toString() + " with data: " + MTSHex.toHex(value, 0, length));
+        }
     }
 
     public void requestTerminalKind(MTSBeacon mtsBeacon) {
@@ -650,55 +1164,99 @@ public class MTSService extends Service {
         readCharacteristic(cardDataCharacteristicUUID, mtsBeacon);
     }
 
-    public Boolean writeCardDataToBluetooth(String cardDataString, MTSBeacon mtsBeacon) {
+    // Machine info is not read after connect when characteristicHydrationPolicy is onDemand,
+    // these request the individual values; results arrive as the matching didReceive* event.
 
-        byte[] data = validatedCardData(cardDataString);
+    public void requestSasSerialNumber(MTSBeacon mtsBeacon) {
+        readCharacteristic(sasSerialNumberCharacteristicUUID, mtsBeacon);
+    }
+
+    public void requestLocation(MTSBeacon mtsBeacon) {
+        readCharacteristic(locationCharacteristicUUID, mtsBeacon);
+    }
 
-        System.out.println("writeCardDataToBluetooth data: " + bytesToHex(data));
+    public void requestAssetNumber(MTSBeacon mtsBeacon) {
+        readCharacteristic(assetNumberCharacteristicUUID, mtsBeacon);
+    }
+
+    public void requestDenomination(MTSBeacon mtsBeacon) {
+        readCharacteristic(denominationCharacteristicUUID, mtsBeacon);
+    }
+
+    public void requestGmiLinkActive(MTSBeacon mtsBeacon) {
+        readCharacteristic(gmiLinkActiveCharacteristicUUID, mtsBeacon);
+    }
 
-        if (null == data) {
-            System.out.println("writeCardDataToBluetooth failed at null == data.");
+    public void requestTxAttenuationLevel(MTSBeacon mtsBeacon) {
+        readCharacteristic(txAttenLevelCharacteristicUUID, mtsBeacon);
+    }
+
+    public Boolean writeCardDataToBluetooth(String cardDataString, MTSBeacon mtsBeacon) {
+
+        if (null == cardDataString) {
+            System.out.println("writeCardDataToBluetooth failed at null == cardDataString.");
             return false;
         }
 
-        writeCharacteristic(cardDataCharacteristicUUID, data, WRITE_TYPE_DEFAULT, mtsBeacon);
+        byte[] buffer = writeBufferPool.acquireForMtu(writeMtu(mtsBeacon), cardDataSchema.maximumLength);
+        int length = validatedCardData(cardDataString, buffer);
+        if (isValueLoggingEnabled()) {
+            Log.v(TAG, "writeCardDataToBluetooth data: " + MTSHex.toHex(buffer, 0, length));
+        }
+        writeCharacteristic(cardDataCharacteristicUUID, buffer, length, WRITE_TYPE_DEFAULT, mtsBeacon);
+        writeBufferPool.release(buffer);
 
         return true;
     }
 
     public void writeTxAttenuationLevel(TxAttenuationLevel level, MTSBeacon mtsBeacon) {
-        byte b = (byte)level.value;
-        byte[] bytes = new byte[]{b} ;
-        writeCharacteristic(txAttenLevelCharacteristicUUID, bytes, WRITE_TYPE_DEFAULT, mtsBeacon);
+        writeSchemaValue(txAttenLevelSchema, level.value, mtsBeacon);
     }
 
-    final private static char[] hexArray = "0123456789ABCDEF".toCharArray();
+    // Encodes into a pooled buffer; the peripheral's copy of the value is the only allocation.
+    private void writeSchemaValue(MTSCharacteristicSchema schema, int value, MTSBeacon mtsBeacon) {
+        byte[] buffer = writeBufferPool.acquireForMtu(writeMtu(mtsBeacon), schema.maximumLength);
+        int length = schema.encode(value, buffer);
+        writeCharacteristic(schema.parcelUuid, buffer, length, WRITE_TYPE_DEFAULT, mtsBeacon);
+        writeBufferPool.release(buffer);
+    }
+
+    private int writeMtu(MTSBeacon mtsBeacon) {
+        return (null == mtsBeacon || 0 == mtsBeacon.mtu) ? kDefaultMtu : mtsBeacon.mtu;
+    }
+
+    /// Use MTSHex.toHex(...).
+    @Deprecated
     public static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for ( int j = 0; j < bytes.length; j++ ) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = hexArray[v >>> 4];
-            hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-        }
-        return new String(hexChars);
+        return MTSHex.toHex(bytes);
     }
 
-    private byte[] validatedCardData(String cardDataString) {
-        System.out.println("validatedCardData cardDataString: " + cardDataString);
-        String truncatedCardDataString = cardDataString.substring(0, Math.min(cardDataString.length(), cardDataCharacterCountMax));
-        System.out.println("validatedCardData truncatedCardDataString: " + truncatedCardDataString);
-        byte[] cardDataBytes = truncatedCardDataString.getBytes(Charset.forName("UTF-8"));
-        System.out.println("validatedCardData cardDataBytes: " + bytesToHex(cardDataBytes));
-        byte[] nullBytes = new byte[] { 0x00 };
-        byte[] terminatedBytes = new byte[cardDataBytes.length + nullBytes.length];
-        System.arraycopy(cardDataBytes, 0, terminatedBytes, 0, cardDataBytes.length);
-        System.arraycopy(nullBytes, 0, terminatedBytes, cardDataBytes.length, nullBytes.length);
-        System.out.println("validatedCardData terminatedBytes: " + bytesToHex(terminatedBytes));
-        return terminatedBytes;
+    /// Use MTSHex.toHex(...).
+    @Deprecated
+    public static String bytesToHex(byte[] bytes, int length) {
+        return MTSHex.toHex(bytes, 0, length);
     }
 
+    // Hex dumps of characteristic values are built only when verbose logging is enabled for the MTSService tag,
+    // e.g. adb shell setprop log.tag.MTSService VERBOSE, as card data writes and notifications are frequent.
+    private static boolean isValueLoggingEnabled() {
+        return Log.isLoggable(TAG, Log.VERBOSE);
+    }
+
+    // Returns the length written to destination.  Package-private for the mts-jvm benchmarks.
+    int validatedCardData(String cardDataString, byte[] destination) {
+        if (isValueLoggingEnabled()) {
+            Log.v(TAG, "validatedCardData cardDataString: " + cardDataString);
+        }
+        // Truncated to cardDataCharacterCountMax in place, cardDataSchema adds the null termination and keeps
+        // the value within the 196 bytes the peripheral accepts.
+        int end = Math.min(cardDataString.length(), cardDataCharacterCountMax);
+        return cardDataSchema.encode(cardDataString, 0, end, destination);
+    }
+
+    /// Like detectedBeacons(), safe to call from any thread.
     public MTSBeacon selectedBeacon() {
-        for (MTSBeacon beacon : detectedBeacons) {
+        for (MTSBeacon beacon : detectedBeaconsSnapshot.beacons) {
             if (beacon.isSelected) {
                 return beacon;
             }
@@ -706,9 +1264,10 @@ public class MTSService extends Service {
         return null;
     }
 
+    /// Like detectedBeacons(), safe to call from any thread.
     public MTSBeacon highestRSSIBeacon() {
         MTSBeacon highestRSSIBeacon = null;
-        for (MTSBeacon beacon : detectedBeacons) {
+        for (MTSBeacon beacon : detectedBeaconsSnapshot.beacons) {
             if (null == highestRSSIBeacon) {
                 highestRSSIBeacon = beacon;
             }
@@ -719,6 +1278,19 @@ public class MTSService extends Service {
         return highestRSSIBeacon;
     }
 
+    private MTSBeacon highestRSSIUnconnectedBeacon() {
+        MTSBeacon highestRSSIBeacon = null;
+        for (MTSBeacon beacon : detectedBeacons) {
+            if (null != connectedMTSBeaconWithAddress(beacon.address)) {
+                continue;
+            }
+            if (null == highestRSSIBeacon || beacon.filteredRSSI > highestRSSIBeacon.filteredRSSI) {
+                highestRSSIBeacon = beacon;
+            }
+        }
+        return highestRSSIBeacon;
+    }
+
     void addOrUpdateBeacon(MTSBeacon discoveredBeacon, ScanResult scanResult) {
         MTSBeacon beacon;
 
@@ -726,20 +1298,25 @@ public class MTSService extends Service {
         int index = getIndexOfBeaconListUpdated(discoveredBeacon);
         if (-1 < index) {
             beacon = detectedBeacons.get(index);
+            updateCoalescer().beaconUpdated(beacon);
         } else {
             detectedBeacons.add(discoveredBeacon);
             beacon = discoveredBeacon;
+            updateCoalescer().beaconAdded(beacon);
         }
 
         // Common method to update both new and existing beacons with discovered values.
         beacon.updateOnDiscovery(scanResult);
+        if (discoveryStream.hasSubscribers()) {
+            discoveryStream.publish(beacon);
+        }
 
         Collections.sort(detectedBeacons, new Comparator<MTSBeacon>() {
             @Override public int compare(MTSBeacon a, MTSBeacon b) {
                 return (int)(b.rssi-a.rssi);
             }
         });
-
+        publishDetectedBeacons();
     }
 
     Handler scanTimeoutHandler = new Handler();
@@ -840,7 +1417,9 @@ public class MTSService extends Service {
     }
 
     private void clearDiscoveredBeacons() {
+        reportBeaconsRemoved(detectedBeacons);
         detectedBeacons = new ArrayList<MTSBeacon>();
+        publishDetectedBeacons();
     }
 
     private void clearAnyExpiredBeacons() {
@@ -851,8 +1430,16 @@ public class MTSService extends Service {
             long elapsed = current - beacon.lastDiscoveredAt;
             if (elapsed > kBeaconExpirationInterval) {
                 listIterator.remove();
+                updateCoalescer().beaconRemoved(beacon);
             }
         }
+        publishDetectedBeacons();
+    }
+
+    private void reportBeaconsRemoved(ArrayList<MTSBeacon> beacons) {
+        for (MTSBeacon beacon : beacons) {
+            updateCoalescer().beaconRemoved(beacon);
+        }
     }
 
     private int getIndexOfBeaconListUpdated(MTSBeacon BeaconListUpdated) {
@@ -866,10 +1453,15 @@ public class MTSService extends Service {
     }
 
     private void connect(MTSBeacon mtsBeacon) {
+        if (isScanWhileConnectingEnabled) {
+            connectWhileScanning(mtsBeacon);
+            return;
+        }
         if (connectedMTSBeacons.contains(mtsBeacon)) {
             Log.v("","called for existing member mtsBeacon, returning early.");
         } else {
             connectedMTSBeacons.add(mtsBeacon);
+            publishConnectedMTSBeacons();
         }
         stopScan();
         stopScanRestartTimer();
@@ -878,6 +1470,143 @@ public class MTSService extends Service {
         central.connectPeripheral(mtsBeacon.peripheral, peripheralCallback);
     }
 
+    /// Connects directly to a beacon from warmStandbyBeacons(), reusing its peripheral handle so no
+    /// advertisement is needed.  Returns false if the beacon is not (or no longer) in warm standby.
+    public boolean reconnect(MTSBeacon mtsBeacon) {
+        if (null == mtsBeacon || null == central) {
+            return false;
+        }
+        MTSBeacon warmBeacon = warmStandbyBeacon(mtsBeacon.address);
+        if (null == warmBeacon) {
+            Log.v(TAG, "reconnect called for beacon not in warm standby, returning early.");
+            return false;
+        }
+        warmStandbyBeacons.remove(warmBeacon.address);
+        connect(warmBeacon);
+        return true;
+    }
+
+    /// Recently disconnected beacons still eligible for reconnect(...), most recently used first.
+    public ArrayList<MTSBeacon> warmStandbyBeacons() {
+        removeExpiredWarmStandbyBeacons();
+        ArrayList<MTSBeacon> beacons = new ArrayList<MTSBeacon>(warmStandbyBeacons.values());
+        Collections.reverse(beacons);
+        return beacons;
+    }
+
+    private void addWarmStandbyBeacon(MTSBeacon mtsBeacon) {
+        if (warmStandbyCapacity <= 0 || null == mtsBeacon.address || null == mtsBeacon.peripheral) {
+            return;
+        }
+        mtsBeacon.disconnectedAt = SystemClock.elapsedRealtime();
+        warmStandbyBeacons.put(mtsBeacon.address, mtsBeacon);
+        Iterator<String> iterator = warmStandbyBeacons.keySet().iterator();
+        while (warmStandbyBeacons.size() > warmStandbyCapacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private MTSBeacon warmStandbyBeacon(String address) {
+        if (null == address) {
+            return null;
+        }
+        removeExpiredWarmStandbyBeacons();
+        return warmStandbyBeacons.get(address);
+    }
+
+    private void removeExpiredWarmStandbyBeacons() {
+        long current = SystemClock.elapsedRealtime();
+        Iterator<MTSBeacon> iterator = warmStandbyBeacons.values().iterator();
+        while (iterator.hasNext()) {
+            if (current - iterator.next().disconnectedAt > warmStandbyInterval) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void connectWhileScanning(MTSBeacon mtsBeacon) {
+        if (null != connectedMTSBeaconWithAddress(mtsBeacon.address)) {
+            Log.v("","connectWhileScanning called for existing member mtsBeacon, returning early.");
+            return;
+        }
+        if (pendingConnectionCount() >= maxConcurrentConnectionAttempts) {
+            Log.v("","connectWhileScanning returning early, " + maxConcurrentConnectionAttempts + " connection attempts already pending.");
+            return;
+        }
+        connectedMTSBeacons.add(mtsBeacon);
+        publishConnectedMTSBeacons();
+        updateScanDutyCycle();
+        central.connectPeripheral(mtsBeacon.peripheral, peripheralCallback);
+    }
+
+    private int pendingConnectionCount() {
+        int count = 0;
+        for (MTSBeacon beacon : connectedMTSBeacons) {
+            if (!beacon.isCharacteristicDiscoveryComplete) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private MTSBeacon connectedMTSBeaconWithAddress(String address) {
+        for (MTSBeacon beacon : connectedMTSBeacons) {
+            if (null != address && address.equals(beacon.address)) {
+                return beacon;
+            }
+        }
+        return null;
+    }
+
+    // Scan at low power while any connection is in setup, so the radio favours the connection events.
+    private void updateScanDutyCycle() {
+        int desiredScanMode = (isScanWhileConnectingEnabled && pendingConnectionCount() > 0)
+                ? ScanSettings.SCAN_MODE_LOW_POWER
+                : ScanSettings.SCAN_MODE_LOW_LATENCY;
+        if (null == central || desiredScanMode == scanMode) {
+            return;
+        }
+        scanMode = desiredScanMode;
+        central.setScanMode(scanMode);
+        restartScanForScanModeIfNeeded();
+    }
+
+    // Android stops delivering results to apps that start more than 5 scans in 30 s, so scan mode changes restart
+    // the scan at most once per kScanModeRestartInterval.  A change within the interval is applied when it ends,
+    // with whatever mode is current by then.
+    Handler scanModeRestartHandler = new Handler();
+    private static long kScanModeRestartInterval = 6000;
+    private long lastScanModeRestartAt = -kScanModeRestartInterval;
+    private boolean isScanModeRestartPending = false;
+    // The mode the running scan was started with.
+    private int startedScanMode = ScanSettings.SCAN_MODE_LOW_LATENCY;
+
+    private Runnable scanModeRestartRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isScanModeRestartPending = false;
+            restartScanForScanModeIfNeeded();
+        }
+    };
+
+    private void restartScanForScanModeIfNeeded() {
+        if (BluetoothDiscoveryState.scanning != bluetoothDiscoveryState || startedScanMode == scanMode || isScanModeRestartPending) {
+            return;
+        }
+        long current = SystemClock.elapsedRealtime();
+        long wait = lastScanModeRestartAt + kScanModeRestartInterval - current;
+        if (wait > 0) {
+            isScanModeRestartPending = true;
+            scanModeRestartHandler.postDelayed(scanModeRestartRunnable, wait);
+            return;
+        }
+        lastScanModeRestartAt = current;
+        // New settings take effect on the next scan start.
+        stopScan();
+        startScan();
+    }
+
     private void disconnectIfNeeded(MTSBeacon mtsBeacon) {
         Log.v(TAG, "disconnectIfNeeded");
         if (null != mtsBeacon) {
@@ -898,7 +1627,7 @@ public class MTSService extends Service {
 
     private void evaluateVsAutoConnectThreshold() {
 
-        MTSBeacon beacon = highestRSSIBeacon();
+        MTSBeacon beacon = isScanWhileConnectingEnabled ? highestRSSIUnconnectedBeacon() : highestRSSIBeacon();
         if (null == beacon) {
             System.out.println("evaluateVsAutoConnectThreshold null == beacon");
             return;
@@ -966,7 +1695,9 @@ public class MTSService extends Service {
         }
     };
 
+    // Restarts the read loop rather than adding another, each connect calls this.
     void startConnectedRSSIReads() {
+        connectedRSSIReadHandler.removeCallbacks(connectedRSSIReadRunnable);
         connectedRSSIReadHandler.postDelayed(connectedRSSIReadRunnable, 1 * 1000);
     }
 
@@ -980,6 +1711,7 @@ public class MTSService extends Service {
         }
         central.startPairingPopupHack();
         central.scanForPeripheralsWithServices(new UUID[]{mtsServiceUUID});
+        startedScanMode = scanMode;
     }
 
     private void stopScan() {
@@ -1021,15 +1753,11 @@ public class MTSService extends Service {
                 break;
         }
         Log.v("","changeBluetoothDiscoveryState, sending event...");
-        MTSBluetoothDiscoveryStateEvent messageEvent = new MTSBluetoothDiscoveryStateEvent(
-            oldState,
-            newState
-        );
-        EventBus.getDefault().post(messageEvent);
+        eventDispatcher.discoveryStateChanged(oldState, newState);
     }
 
-    // N.B. scanning is required to stop upon connect.  This is a change from prior behavior where disconnect would
-    // transition to scanning without user intervention.
+    // N.B. scanning is required to stop upon connect, unless isScanWhileConnectingEnabled.  This is a change from
+    // prior behavior where disconnect would transition to scanning without user intervention.
     private void bluetoothConnectionEventOccurred(BluetoothConnectionEvent bluetoothConnectionEvent, MTSBeacon mtsBeacon) {
         //TODO: mtsBeacon.autoDisconnectTimeoutHandler.removeCallbacks();
         if (0 == connectedMTSBeacons.size()) {
@@ -1037,11 +1765,15 @@ public class MTSService extends Service {
         }
         switch (bluetoothConnectionEvent) {
             case connect:
-                changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
+                if (!isScanWhileConnectingEnabled) {
+                    changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
+                }
                 startConnectedRSSIReads();
                 break;
             case pendingUserDisconnect:
-                changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
+                if (!isScanWhileConnectingEnabled) {
+                    changeBluetoothDiscoveryState(BluetoothDiscoveryState.inactive);
+                }
                 break;
             case disconnect:
 
@@ -1050,12 +1782,8 @@ public class MTSService extends Service {
                 changeBluetoothDiscoveryState(BluetoothDiscoveryState.notReady);
                 break;
         }
-        MTSBluetoothConnectionEvent messageEvent = new MTSBluetoothConnectionEvent(
-                bluetoothConnectionEvent,
-                mtsBeacon
-        );
         Log.v("","bluetoothConnectionEventOccurred, sending event...");
-        EventBus.getDefault().post(messageEvent);
+        eventDispatcher.connectionEventOccurred(bluetoothConnectionEvent, mtsBeacon);
     }
 
 }
@@ -0,0 +1,131 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// MTSPublisher used by MTSService.  publish(...) buffers the item per subscription according to its
+/// OverflowPolicy, a drain on the main thread then delivers as much as each subscriber has requested.
+class MTSStream<T> implements MTSPublisher<T> {
+
+    private final CopyOnWriteArrayList<StreamSubscription> subscriptions = new CopyOnWriteArrayList<StreamSubscription>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void subscribe(MTSSubscriber<? super T> subscriber) {
+        subscribe(subscriber, kDefaultBufferSize, OverflowPolicy.dropOldest);
+    }
+
+    @Override
+    public void subscribe(MTSSubscriber<? super T> subscriber, int bufferSize, OverflowPolicy overflowPolicy) {
+        StreamSubscription subscription = new StreamSubscription(subscriber, Math.max(1, bufferSize), overflowPolicy);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    void publish(T item) {
+        for (StreamSubscription subscription : subscriptions) {
+            subscription.enqueue(item);
+        }
+    }
+
+    private class StreamSubscription implements MTSSubscription, Runnable {
+        private final MTSSubscriber<? super T> subscriber;
+        private final int bufferSize;
+        private final OverflowPolicy overflowPolicy;
+        private final ArrayDeque<T> buffer;
+        private long demand;
+        private long droppedCount;
+        private boolean isDrainScheduled;
+        private boolean isCancelled;
+
+        StreamSubscription(MTSSubscriber<? super T> subscriber, int bufferSize, OverflowPolicy overflowPolicy) {
+            this.subscriber = subscriber;
+            this.bufferSize = (OverflowPolicy.latest == overflowPolicy) ? 1 : bufferSize;
+            this.overflowPolicy = overflowPolicy;
+            this.buffer = new ArrayDeque<T>(Math.min(this.bufferSize, kDefaultBufferSize));
+        }
+
+        synchronized void enqueue(T item) {
+            if (isCancelled) {
+                return;
+            }
+            if (buffer.size() >= bufferSize) {
+                droppedCount++;
+                if (OverflowPolicy.dropNewest == overflowPolicy) {
+                    scheduleDrain();
+                    return;
+                }
+                buffer.pollFirst();
+            }
+            buffer.addLast(item);
+            scheduleDrain();
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0 || isCancelled) {
+                return;
+            }
+            demand = (Long.MAX_VALUE - demand < n) ? Long.MAX_VALUE : demand + n;
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                isCancelled = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        // Called with the lock held.
+        private void scheduleDrain() {
+            if (isDrainScheduled) {
+                return;
+            }
+            if ((buffer.isEmpty() || 0 == demand) && 0 == droppedCount) {
+                return;
+            }
+            isDrainScheduled = true;
+            handler.post(this);
+        }
+
+        @Override
+        public void run() {
+            long dropped;
+            synchronized (this) {
+                isDrainScheduled = false;
+                dropped = droppedCount;
+                droppedCount = 0;
+            }
+            if (0 != dropped && !isCancelled) {
+                subscriber.onDropped(dropped);
+            }
+            // Deliver outside the lock so onNext(...) may call request(...) or cancel().
+            while (true) {
+                T item;
+                synchronized (this) {
+                    if (isCancelled || 0 == demand || buffer.isEmpty()) {
+                        return;
+                    }
+                    item = buffer.pollFirst();
+                    if (Long.MAX_VALUE != demand) {
+                        demand--;
+                    }
+                }
+                subscriber.onNext(item);
+            }
+        }
+    }
+}
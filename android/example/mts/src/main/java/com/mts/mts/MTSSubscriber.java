@@ -0,0 +1,16 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Receives items from an MTSPublisher.  No items arrive until demand is signalled with
+/// MTSSubscription.request(...), typically from onSubscribe(...) and again from onNext(...).
+public interface MTSSubscriber<T> {
+
+    void onSubscribe(MTSSubscription subscription);
+
+    void onNext(T item);
+
+    /// Called after the buffer overflowed, with the number of items dropped since the previous call.
+    void onDropped(long count);
+}
@@ -0,0 +1,14 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+/// Link between an MTSPublisher and one MTSSubscriber.  May be used from any thread.
+public interface MTSSubscription {
+
+    /// Adds n to the number of items the subscriber is ready to receive.  Long.MAX_VALUE means unbounded.
+    void request(long n);
+
+    /// Stops delivery and releases the buffer.
+    void cancel();
+}
@@ -0,0 +1,147 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.os.Handler;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// Collects beacon list changes and connected RSSI readings and delivers them as a single MTSBeaconListUpdate
+/// on the next display frame (interval 0) or after interval milliseconds.  Must be used from a Looper thread.
+class MTSUpdateCoalescer {
+
+    private final CopyOnWriteArrayList<MTSBeaconListUpdateListener> listeners = new CopyOnWriteArrayList<MTSBeaconListUpdateListener>();
+    private final Handler handler = new Handler();
+    private long interval = 0;
+    private boolean isFlushScheduled = false;
+
+    private final LinkedHashSet<MTSBeacon> added = new LinkedHashSet<MTSBeacon>();
+    private final LinkedHashSet<MTSBeacon> removed = new LinkedHashSet<MTSBeacon>();
+    private final LinkedHashSet<MTSBeacon> updated = new LinkedHashSet<MTSBeacon>();
+    private final ArrayList<MTSBeacon> rssiBeacons = new ArrayList<MTSBeacon>();
+    private int[] rssiValues = new int[4];
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush();
+        }
+    };
+
+    private final Runnable intervalRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    void addListener(MTSBeaconListUpdateListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(MTSBeaconListUpdateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /// @param interval milliseconds between updates, 0 for once per display frame.
+    void setInterval(long interval) {
+        this.interval = Math.max(0, interval);
+    }
+
+    void beaconAdded(MTSBeacon mtsBeacon) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!removed.remove(mtsBeacon)) {
+            added.add(mtsBeacon);
+        } else {
+            updated.add(mtsBeacon);
+        }
+        scheduleFlush();
+    }
+
+    void beaconRemoved(MTSBeacon mtsBeacon) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        updated.remove(mtsBeacon);
+        if (!added.remove(mtsBeacon)) {
+            removed.add(mtsBeacon);
+        }
+        scheduleFlush();
+    }
+
+    void beaconUpdated(MTSBeacon mtsBeacon) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        // Added beacons are reported with their latest values anyway, and removed ones are no longer in the list.
+        if (!added.contains(mtsBeacon) && !removed.contains(mtsBeacon)) {
+            updated.add(mtsBeacon);
+        }
+        scheduleFlush();
+    }
+
+    void connectedRSSIChanged(MTSBeacon mtsBeacon, int rssi) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        int index = rssiBeacons.indexOf(mtsBeacon);
+        if (-1 == index) {
+            index = rssiBeacons.size();
+            rssiBeacons.add(mtsBeacon);
+            if (index == rssiValues.length) {
+                rssiValues = Arrays.copyOf(rssiValues, index * 2);
+            }
+        }
+        rssiValues[index] = rssi;
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (isFlushScheduled) {
+            return;
+        }
+        isFlushScheduled = true;
+        if (0 == interval) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            handler.postDelayed(intervalRunnable, interval);
+        }
+    }
+
+    private void flush() {
+        isFlushScheduled = false;
+        if (added.isEmpty() && removed.isEmpty() && updated.isEmpty() && rssiBeacons.isEmpty()) {
+            return;
+        }
+        MTSBeaconListUpdate update = new MTSBeaconListUpdate(
+                snapshot(added),
+                snapshot(removed),
+                snapshot(updated),
+                rssiBeacons.toArray(new MTSBeacon[rssiBeacons.size()]),
+                Arrays.copyOf(rssiValues, rssiBeacons.size())
+        );
+        added.clear();
+        removed.clear();
+        updated.clear();
+        rssiBeacons.clear();
+        for (MTSBeaconListUpdateListener listener : listeners) {
+            listener.onBeaconListUpdate(update);
+        }
+    }
+
+    private static List<MTSBeacon> snapshot(LinkedHashSet<MTSBeacon> beacons) {
+        if (beacons.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<MTSBeacon>(beacons));
+    }
+}
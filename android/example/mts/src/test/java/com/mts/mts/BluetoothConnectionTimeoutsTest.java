@@ -0,0 +1,208 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BluetoothConnectionTimeoutsTest {
+    private static final String kAddress = "00:A0:50:00:00:01";
+    private static final String kOtherAddress = "00:A0:50:00:00:02";
+
+    private BluetoothConnectionTimeouts connectionTimeouts;
+
+    @Before
+    public void setUp() {
+        connectionTimeouts = new BluetoothConnectionTimeouts(new MemorySharedPreferences());
+    }
+
+    @Test
+    public void defaultUntilEnoughSamples() {
+        for (int i = 0; i < 4; i++) {
+            connectionTimeouts.recordSuccess(kOtherAddress, 1000);
+        }
+        assertEquals(0, connectionTimeouts.connectionTimeout(kAddress));
+        connectionTimeouts.recordSuccess(kOtherAddress, 1000);
+        assertEquals(3000, connectionTimeouts.connectionTimeout(kAddress));
+    }
+
+    @Test
+    public void failuresOtherThanTimeoutsAreNotSamples() {
+        for (int i = 0; i < 5; i++) {
+            connectionTimeouts.recordSuccess(kOtherAddress, 2000);
+        }
+        for (int i = 0; i < 10; i++) {
+            connectionTimeouts.recordFailure(kAddress, 0);
+        }
+        assertEquals(3000, connectionTimeouts.connectionTimeout(kAddress));
+    }
+
+    @Test
+    public void timeoutsRaiseTheLearnedTimeout() {
+        // Other terminals connect quickly, so this one starts with their short timeout.
+        for (int i = 0; i < 5; i++) {
+            connectionTimeouts.recordSuccess(kOtherAddress, 2000);
+        }
+        int timeout = connectionTimeouts.connectionTimeout(kAddress);
+        assertEquals(3000, timeout);
+
+        // This terminal keeps timing out at that timeout.
+        connectionTimeouts.recordFailure(kAddress, 3000);
+        assertTrue(connectionTimeouts.connectionTimeout(kAddress) > 3000);
+        for (int i = 1; i < 5; i++) {
+            connectionTimeouts.recordFailure(kAddress, 3000);
+        }
+        // Five samples of its own take over from the other terminals.
+        timeout = connectionTimeouts.connectionTimeout(kAddress);
+        assertEquals(4500, timeout);
+
+        // Timing out at each new timeout grows it up to the default.
+        int previousTimeout = timeout;
+        for (int i = 0; i < 20; i++) {
+            connectionTimeouts.recordFailure(kAddress, timeout);
+            timeout = connectionTimeouts.connectionTimeout(kAddress);
+            assertTrue(timeout >= previousTimeout);
+            previousTimeout = timeout;
+        }
+        assertEquals(BluetoothConnectionTimeouts.kMaximumTimeout, timeout);
+
+        // Timeouts are failures, so the terminal gets the largest retry budget.
+        assertEquals(3, connectionTimeouts.retryBudget(kAddress));
+    }
+
+    @Test
+    public void retryTimeoutDoublesUpToTheDefault() {
+        assertEquals(6000, BluetoothConnectionTimeouts.retryTimeout(3000, false));
+        assertEquals(12000, BluetoothConnectionTimeouts.retryTimeout(6000, false));
+        assertEquals(0, BluetoothConnectionTimeouts.retryTimeout(3000, true));
+        assertEquals(0, BluetoothConnectionTimeouts.retryTimeout(20000, false));
+        assertEquals(0, BluetoothConnectionTimeouts.retryTimeout(0, false));
+    }
+
+    /// Only what BluetoothConnectionTimeouts uses.
+    private static final class MemorySharedPreferences implements SharedPreferences {
+        private final HashMap<String, Object> values = new HashMap<String, Object>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<String, Object>(values);
+        }
+
+        @Override
+        public String getString(String key, String defaultValue) {
+            Object value = values.get(key);
+            return (value instanceof String) ? (String) value : defaultValue;
+        }
+
+        @Override
+        public Set<String> getStringSet(String key, Set<String> defaultValues) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getInt(String key, int defaultValue) {
+            Object value = values.get(key);
+            return (value instanceof Integer) ? (Integer) value : defaultValue;
+        }
+
+        @Override
+        public long getLong(String key, long defaultValue) {
+            Object value = values.get(key);
+            return (value instanceof Long) ? (Long) value : defaultValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defaultValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defaultValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                @Override
+                public Editor putString(String key, String value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putStringSet(String key, Set<String> values) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putInt(String key, int value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putLong(String key, long value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putFloat(String key, float value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putBoolean(String key, boolean value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor remove(String key) {
+                    values.remove(key);
+                    return this;
+                }
+
+                @Override
+                public Editor clear() {
+                    values.clear();
+                    return this;
+                }
+
+                @Override
+                public boolean commit() {
+                    return true;
+                }
+
+                @Override
+                public void apply() {
+                }
+            };
+        }
+    }
+}
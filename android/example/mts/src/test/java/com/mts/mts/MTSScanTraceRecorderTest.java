@@ -0,0 +1,96 @@
+package com.mts.mts;
+
+// Copyright © 2020 Mobile Technology Solutions, Inc. All rights reserved.
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MTSScanTraceRecorderTest {
+    private static final String kAddress = "00:A0:50:00:00:01";
+    private static final String kOtherAddress = "00:A0:50:AB:CD:EF";
+    private static final byte[] kPayload = {0x01, 0x02, 0x03};
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("scanTrace", ".bin");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void recordSession(long start) throws IOException, InterruptedException {
+        MTSScanTraceRecorder recorder = new MTSScanTraceRecorder(file);
+        recorder.record(start, kAddress, "MTS", -60, 0x0123, kPayload);
+        recorder.record(start + 100, kOtherAddress, null, -70, 0x0123, null);
+        // Repeated payload.
+        recorder.record(start + 250, kAddress, "MTS", -61, 0x0123, kPayload);
+        // Same data under another manufacturer id.
+        recorder.record(start + 400, kAddress, "MTS", -62, 0x0456, kPayload);
+        assertEquals(4, recorder.sampleCount());
+        recorder.close();
+        assertTrue(recorder.awaitClosed(10 * 1000));
+    }
+
+    private static void assertSample(MTSScanTraceReader.Sample sample, int session, long time, String address,
+                                     String name, int rssi, int manufacturerId, byte[] manufacturerData) {
+        assertEquals(session, sample.session);
+        assertEquals(time, sample.time);
+        assertEquals(address, sample.address);
+        assertEquals(name, sample.name);
+        assertEquals(rssi, sample.rssi);
+        assertEquals(manufacturerId, sample.manufacturerId);
+        assertArrayEquals(manufacturerData, sample.manufacturerData);
+    }
+
+    @Test
+    public void recordsAndReadsBackSessions() throws Exception {
+        // SystemClock.elapsedRealtime() returns 0 in local unit tests, so times are from 0.
+        recordSession(0);
+        recordSession(1000);
+
+        MTSScanTraceReader reader = new MTSScanTraceReader(file);
+        for (int session = 0; session < 2; session++) {
+            long start = 1000 * session;
+            assertSample(reader.next(), session, start, kAddress, "MTS", -60, 0x0123, kPayload);
+            assertSample(reader.next(), session, start + 100, kOtherAddress, null, -70, -1, null);
+            assertSample(reader.next(), session, start + 250, kAddress, "MTS", -61, 0x0123, kPayload);
+            assertSample(reader.next(), session, start + 400, kAddress, "MTS", -62, 0x0456, kPayload);
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void truncatedLastRecordEndsTheTrace() throws Exception {
+        recordSession(0);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // The last sample ends with its 3 bytes of manufacturer data, cut it off inside them.
+            randomAccessFile.setLength(randomAccessFile.length() - 2);
+        } finally {
+            randomAccessFile.close();
+        }
+
+        MTSScanTraceReader reader = new MTSScanTraceReader(file);
+        assertSample(reader.next(), 0, 0, kAddress, "MTS", -60, 0x0123, kPayload);
+        assertSample(reader.next(), 0, 100, kOtherAddress, null, -70, -1, null);
+        assertSample(reader.next(), 0, 250, kAddress, "MTS", -61, 0x0123, kPayload);
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+}